@@ -0,0 +1,165 @@
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A text analyzer for unbounded streams that uses a fixed amount of memory.
+ *
+ * TextAnalyzer keeps every distinct word, so its memory grows with the
+ * vocabulary. This analyzer keeps only sketches instead:
+ * - word frequencies are estimated with a CountMinSketch,
+ * - the most frequent words are tracked with SpaceSaving,
+ * - the number of unique words is estimated with a HyperLogLog.
+ * Character counts and the total character and word counts stay exact,
+ * since they already use a fixed amount of memory.
+ *
+ * The error bounds of each structure are documented in its own class. With
+ * the default settings the analyzer uses about 2 MB whatever the input size:
+ * word counts are too high by at most 0.01% of all words with probability
+ * 99.9%, heavy hitters above 0.1% of all words are always found, and the
+ * unique word count is typically within 0.8%.
+ */
+public class ApproximateTextAnalyzer implements TextSink {
+
+    // Default settings; see the class comment for what they guarantee.
+    public static final double DEFAULT_EPSILON = 0.0001;
+    public static final double DEFAULT_DELTA = 0.001;
+    public static final int DEFAULT_HEAVY_HITTERS = 1000;
+    public static final int DEFAULT_PRECISION = 14;
+
+    private final CountMinSketch wordFrequencies;
+    private final SpaceSaving heavyHitters;
+    private final HyperLogLog uniqueWords;
+    private final CharCountTable charCounts = new CharCountTable();
+
+    // Splits the text into lowercase words and feeds the three sketches.
+    private final WordTokenizer tokenizer = new WordTokenizer(this::countWord);
+
+    // Total number of characters (UTF-16 code units).
+    private long charCount = 0;
+
+    /**
+     * Creates an analyzer with the default settings (about 2 MB).
+     */
+    public ApproximateTextAnalyzer() {
+        this(DEFAULT_EPSILON, DEFAULT_DELTA, DEFAULT_HEAVY_HITTERS, DEFAULT_PRECISION);
+    }
+
+    /**
+     * Creates an analyzer with specific error bounds.
+     * @param epsilon Count-Min error as a fraction of the total word count.
+     * @param delta Probability that a Count-Min estimate exceeds its error bound.
+     * @param heavyHitters Number of words monitored by Space-Saving.
+     * @param precision HyperLogLog precision (4 to 18); uses 2^precision bytes.
+     */
+    public ApproximateTextAnalyzer(double epsilon, double delta, int heavyHitters, int precision) {
+        this.wordFrequencies = new CountMinSketch(epsilon, delta);
+        this.heavyHitters = new SpaceSaving(heavyHitters);
+        this.uniqueWords = new HyperLogLog(precision);
+    }
+
+    @Override
+    public void accept(CharSequence chunk) {
+        int length = chunk.length();
+        charCount += length;
+        for (int i = 0; i < length; i++) {
+            // Approximate mode counts UTF-16 code units, like TextAnalysis does.
+            charCounts.increment(Character.toLowerCase(chunk.charAt(i)));
+        }
+        tokenizer.accept(chunk);
+    }
+
+    @Override
+    public void finish() {
+        tokenizer.finish();
+    }
+
+    // Receives each lowercase word from the tokenizer.
+    private void countWord(char[] chars, int offset, int length, int hash) {
+        long hash64 = hash64(chars, offset, length);
+        wordFrequencies.add(hash64);
+        heavyHitters.offer(hash64, chars, offset, length);
+        uniqueWords.add(hash64);
+    }
+
+    // ============================
+    // QUERIES
+    // ============================
+
+    /**
+     * Estimates how many times a word has appeared. Never too low.
+     * @param word The word to look up, in any case.
+     * @return The estimated count.
+     */
+    public long count(String word) {
+        char[] chars = word.toLowerCase().toCharArray();
+        return wordFrequencies.estimate(hash64(chars, 0, chars.length));
+    }
+
+    /**
+     * Returns how many times a character has appeared (exact).
+     * @param c The character to look up, in any case.
+     * @return Its count.
+     */
+    public long count(char c) {
+        return charCounts.get(Character.toLowerCase(c));
+    }
+
+    /**
+     * Estimates the number of different words.
+     * @return The estimated unique word count.
+     */
+    public long uniqueWords() {
+        return uniqueWords.estimate();
+    }
+
+    /**
+     * Returns the most frequent words found so far. Each count may be too
+     * high by at most totalWords / heavyHitters.
+     * @param k The number of words wanted.
+     * @return Up to k entries (word, count), most frequent first.
+     */
+    public List<Map.Entry<String, Long>> topK(int k) {
+        return heavyHitters.top(k);
+    }
+
+    public int mostCommonChar() {
+        return charCounts.mostCommon();
+    }
+
+    public long getCharCount() {
+        return charCount;
+    }
+
+    public long getWordCount() {
+        return tokenizer.getWordCount();
+    }
+
+    /**
+     * Returns the memory used by the sketches and the character table.
+     * @return The size in bytes; it does not grow with the input.
+     */
+    public long memoryBytes() {
+        return wordFrequencies.memoryBytes() + heavyHitters.memoryBytes()
+                + uniqueWords.memoryBytes() + 65536L * Long.BYTES;
+    }
+
+    /**
+     * Computes a 64-bit hash of a slice of characters (FNV-1a followed by a
+     * final bit mix), so the sketches do not depend on the weak low bits of
+     * String.hashCode().
+     * @return The hash of chars[offset, offset + length).
+     */
+    static long hash64(char[] chars, int offset, int length) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = offset; i < offset + length; i++) {
+            hash ^= chars[i];
+            hash *= 0x100000001B3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,144 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Analyzes every file of a directory concurrently and stores the results as
+ * TextIndex files, so later questions about the corpus can be answered from
+ * the indexes instead of re-reading gigabytes of text.
+ *
+ * Layout of the index directory:
+ *   files/&lt;path of the text file&gt;.tidx   one index per text file
+ *   corpus.tidx                           all the per-file indexes merged
+ *
+ * A per-file index is only rebuilt when its text file is newer than it. A file
+ * that cannot be analyzed is left out of the corpus and reported by
+ * getFailedFiles(), so one bad file does not stop the whole build.
+ */
+public class BatchTextIndexer {
+
+    public static final String INDEX_EXTENSION = ".tidx";
+    public static final String CORPUS_INDEX = "corpus" + INDEX_EXTENSION;
+    private static final String FILES_DIRECTORY = "files";
+
+    private final int threads;
+
+    // The files the last indexDirectory() call had to leave out, with the reason.
+    private final Map<Path, String> failedFiles = new LinkedHashMap<>();
+
+    /**
+     * Creates an indexer that analyzes one file per CPU core at a time.
+     */
+    public BatchTextIndexer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an indexer with a given number of worker threads.
+     * @param threads The number of files analyzed at the same time.
+     */
+    public BatchTextIndexer(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Indexes every regular file under a directory and merges the results
+     * into the corpus index.
+     * @param textDirectory The directory holding the text files (searched recursively).
+     * @param indexDirectory The directory where the indexes are written.
+     * @return The number of text files in the corpus (files that failed are not counted).
+     * @throws IOException If the directory cannot be read or the corpus index cannot be written.
+     */
+    public int indexDirectory(Path textDirectory, Path indexDirectory) throws IOException {
+        List<Path> textFiles;
+        try (Stream<Path> walk = Files.walk(textDirectory)) {
+            textFiles = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+
+        // Analyze the files concurrently; each task streams one file into its own analyzer.
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Path>> results = new ArrayList<>();
+        failedFiles.clear();
+        try {
+            for (Path textFile : textFiles) {
+                Path relative = textDirectory.relativize(textFile);
+                Path indexFile = indexDirectory.resolve(FILES_DIRECTORY).resolve(relative + INDEX_EXTENSION);
+                results.add(executor.submit(() -> indexFile(textFile, indexFile)));
+            }
+
+            List<TextIndex> indexes = new ArrayList<>();
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    indexes.add(TextIndex.open(await(results.get(i))));
+                } catch (IOException e) {
+                    failedFiles.put(textFiles.get(i), e.getMessage());
+                }
+            }
+            TextIndex.merge(indexes, indexDirectory.resolve(CORPUS_INDEX));
+            return indexes.size();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the text files the last indexDirectory() call left out of the corpus.
+     * @return Each failed file with the error message, in directory order.
+     */
+    public Map<Path, String> getFailedFiles() {
+        return failedFiles;
+    }
+
+    /**
+     * Opens the corpus index written by indexDirectory().
+     * @param indexDirectory The directory holding the indexes.
+     * @return The merged index of the whole corpus.
+     * @throws IOException If the index cannot be opened.
+     */
+    public static TextIndex openCorpus(Path indexDirectory) throws IOException {
+        return TextIndex.open(indexDirectory.resolve(CORPUS_INDEX));
+    }
+
+    // Builds the index of one text file unless an up-to-date one already exists.
+    private static Path indexFile(Path textFile, Path indexFile) throws IOException {
+        if (Files.exists(indexFile)
+                && Files.getLastModifiedTime(indexFile).compareTo(Files.getLastModifiedTime(textFile)) >= 0) {
+            return indexFile;
+        }
+
+        TextAnalyzer analyzer = new TextAnalyzer();
+        ChunkedTextReader.readFile(textFile, StandardCharsets.UTF_8, analyzer);
+        Files.createDirectories(indexFile.getParent());
+        TextIndex.write(indexFile, analyzer);
+        return indexFile;
+    }
+
+    // Waits for a task and turns its failure back into an IOException.
+    private static Path await(Future<Path> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Indexing was interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Indexing failed: " + e.getCause(), e.getCause());
+        }
+    }
+}
@@ -0,0 +1,194 @@
+import java.util.Arrays;
+
+/**
+ * Counts characters without boxing. Every char (UTF-16 code unit) has its own
+ * slot in a flat long[65536] array, so counting one is a single array
+ * increment. Supplementary characters (code points above U+FFFF, such as most
+ * emoji) are rare, so they go into a small open-addressing table instead.
+ */
+public class CharCountTable {
+
+    // Size of the table for supplementary characters when it is first needed.
+    private static final int INITIAL_SUPPLEMENTARY_CAPACITY = 16;
+
+    // One counter per UTF-16 code unit.
+    private final long[] counts = new long[65536];
+
+    // Open-addressing table for code points above U+FFFF.
+    // A key of 0 marks an empty slot (0 is never a supplementary code point).
+    private int[] supplementaryKeys = new int[0];
+    private long[] supplementaryCounts = new long[0];
+    private int supplementarySize = 0;
+
+    // Number of different characters counted so far.
+    private int distinctCount = 0;
+
+    // The most common code point so far and its count. Counts only ever go up,
+    // so these can be updated on every increment instead of scanning the table.
+    private int mostCommon = ' ';
+    private long mostCommonCount = 0;
+
+    /**
+     * Adds one to the count of a character.
+     * @param c The character to count.
+     */
+    public void increment(char c) {
+        long count = ++counts[c];
+        if (count == 1) {
+            distinctCount++;
+        }
+        updateMostCommon(c, count);
+    }
+
+    /**
+     * Adds one to the count of a code point. Code points up to U+FFFF use the
+     * flat array, larger ones use the supplementary table.
+     * @param codePoint The code point to count.
+     */
+    public void incrementCodePoint(int codePoint) {
+        add(codePoint, 1);
+    }
+
+    /**
+     * Adds an amount to the count of a code point.
+     * @param codePoint The code point to count.
+     * @param amount The amount to add.
+     */
+    public void add(int codePoint, long amount) {
+        if (codePoint < counts.length) {
+            if (counts[codePoint] == 0 && amount != 0) {
+                distinctCount++;
+            }
+            counts[codePoint] += amount;
+            updateMostCommon(codePoint, counts[codePoint]);
+            return;
+        }
+
+        if (supplementarySize * 2 >= supplementaryKeys.length) {
+            growSupplementary();
+        }
+        int slot = findSupplementarySlot(supplementaryKeys, codePoint);
+        if (supplementaryKeys[slot] == 0) {
+            supplementaryKeys[slot] = codePoint;
+            supplementarySize++;
+            distinctCount++;
+        }
+        supplementaryCounts[slot] += amount;
+        updateMostCommon(codePoint, supplementaryCounts[slot]);
+    }
+
+    /**
+     * Returns how many times a code point has been counted.
+     * @param codePoint The code point to look up.
+     * @return Its count, or 0 if it has never been seen.
+     */
+    public long get(int codePoint) {
+        if (codePoint < counts.length) {
+            return counts[codePoint];
+        }
+        if (supplementarySize == 0) {
+            return 0;
+        }
+        int slot = findSupplementarySlot(supplementaryKeys, codePoint);
+        return supplementaryKeys[slot] == 0 ? 0 : supplementaryCounts[slot];
+    }
+
+    /**
+     * Returns the number of different characters counted.
+     * @return The number of distinct code points.
+     */
+    public int distinctCount() {
+        return distinctCount;
+    }
+
+    /**
+     * Returns every code point that has been counted.
+     * @return The code points in ascending order.
+     */
+    public int[] codePoints() {
+        int[] codePoints = new int[distinctCount];
+        int n = 0;
+        for (int c = 0; c < counts.length; c++) {
+            if (counts[c] != 0) {
+                codePoints[n++] = c;
+            }
+        }
+        int firstSupplementary = n;
+        for (int key : supplementaryKeys) {
+            if (key != 0) {
+                codePoints[n++] = key;
+            }
+        }
+        Arrays.sort(codePoints, firstSupplementary, n);
+        return codePoints;
+    }
+
+    /**
+     * Returns the code point with the highest count, in O(1). On a tie the
+     * smallest code point wins, so the answer does not depend on the order of
+     * the input.
+     * @return The most common code point, or ' ' if nothing has been counted.
+     */
+    public int mostCommon() {
+        return mostCommon;
+    }
+
+    /**
+     * Adds all the counts of another table to this one.
+     * @param other The table to merge in.
+     */
+    public void merge(CharCountTable other) {
+        for (int c = 0; c < counts.length; c++) {
+            if (other.counts[c] != 0) {
+                add(c, other.counts[c]);
+            }
+        }
+        for (int slot = 0; slot < other.supplementaryKeys.length; slot++) {
+            if (other.supplementaryKeys[slot] != 0) {
+                add(other.supplementaryKeys[slot], other.supplementaryCounts[slot]);
+            }
+        }
+    }
+
+    // Checks whether a code point whose count just went up is now the most common.
+    private void updateMostCommon(int codePoint, long count) {
+        if (count > mostCommonCount || (count == mostCommonCount && codePoint < mostCommon)) {
+            mostCommon = codePoint;
+            mostCommonCount = count;
+        }
+    }
+
+    // Doubles the supplementary table and re-inserts every key.
+    private void growSupplementary() {
+        int newCapacity = Math.max(INITIAL_SUPPLEMENTARY_CAPACITY, supplementaryKeys.length * 2);
+        int[] newKeys = new int[newCapacity];
+        long[] newCounts = new long[newCapacity];
+
+        for (int slot = 0; slot < supplementaryKeys.length; slot++) {
+            int key = supplementaryKeys[slot];
+            if (key != 0) {
+                int newSlot = findSupplementarySlot(newKeys, key);
+                newKeys[newSlot] = key;
+                newCounts[newSlot] = supplementaryCounts[slot];
+            }
+        }
+        supplementaryKeys = newKeys;
+        supplementaryCounts = newCounts;
+    }
+
+    // Linear probing: returns the slot holding the key, or the empty slot where it belongs.
+    private static int findSupplementarySlot(int[] keys, int codePoint) {
+        int mask = keys.length - 1;
+        int hash = codePoint * 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (keys[slot] != 0 && keys[slot] != codePoint) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    @Override
+    public String toString() {
+        return "CharCountTable [distinct=" + distinctCount + ", supplementary=" + supplementarySize + "]";
+    }
+}
@@ -0,0 +1,127 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file or a stream in fixed-size chunks and passes the decoded text
+ * to a TextSink such as TextAnalyzer. Files are memory-mapped one window at a time, so even
+ * files larger than 2 GB can be read without loading them into the heap.
+ */
+public class ChunkedTextReader {
+
+    // Size of each memory-mapped window of the file (64 MB).
+    private static final long MAP_WINDOW_SIZE = 64L * 1024 * 1024;
+
+    // Size of the buffer used when reading from a stream such as System.in (64 KB).
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    // Number of characters decoded before they are handed to the sink.
+    private static final int CHAR_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Reads a whole file through memory-mapped windows.
+     * @param path The file to read.
+     * @param charset The character encoding of the file.
+     * @param sink The analyzer (or other sink) that receives the text.
+     * @throws IOException If the file cannot be read.
+     */
+    public static void readFile(Path path, Charset charset, TextSink sink) throws IOException {
+        CharsetDecoder decoder = newDecoder(charset);
+        CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+
+            while (position < size) {
+                long length = Math.min(MAP_WINDOW_SIZE, size - position);
+                boolean lastWindow = position + length >= size;
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+                decode(decoder, window, chars, lastWindow, sink);
+
+                // A multi-byte character may be cut off at the end of the window.
+                // Its bytes are left unread, so the next window starts with them.
+                position += window.position();
+            }
+            if (size == 0) {
+                // An empty file has no window, but the decoder still has to see the end of
+                // the input before it can be flushed.
+                decode(decoder, ByteBuffer.allocate(0), chars, true, sink);
+            }
+        }
+        finish(decoder, chars, sink);
+    }
+
+    /**
+     * Reads a stream until it ends, for example System.in.
+     * @param in The stream to read. It is not closed.
+     * @param charset The character encoding of the stream.
+     * @param sink The analyzer (or other sink) that receives the text.
+     * @throws IOException If the stream cannot be read.
+     */
+    public static void readStream(InputStream in, Charset charset, TextSink sink) throws IOException {
+        CharsetDecoder decoder = newDecoder(charset);
+        CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+        ByteBuffer bytes = ByteBuffer.allocateDirect(STREAM_BUFFER_SIZE);
+        ReadableByteChannel channel = Channels.newChannel(in);
+
+        while (channel.read(bytes) != -1) {
+            bytes.flip();
+            decode(decoder, bytes, chars, false, sink);
+            // Keep any incomplete character for the next read.
+            bytes.compact();
+        }
+        bytes.flip();
+        decode(decoder, bytes, chars, true, sink);
+        finish(decoder, chars, sink);
+    }
+
+    // Creates a decoder that replaces invalid bytes instead of failing halfway through a file.
+    private static CharsetDecoder newDecoder(Charset charset) {
+        return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    // Decodes as many bytes as possible, passing each full char buffer to the sink.
+    private static void decode(CharsetDecoder decoder, ByteBuffer bytes, CharBuffer chars,
+                               boolean endOfInput, TextSink sink) {
+        while (true) {
+            CoderResult result = decoder.decode(bytes, chars, endOfInput);
+            if (result.isOverflow()) {
+                drain(chars, sink);
+            } else {
+                // Underflow: every complete character in 'bytes' has been decoded.
+                return;
+            }
+        }
+    }
+
+    // Flushes the decoder and tells the sink that the input is over.
+    private static void finish(CharsetDecoder decoder, CharBuffer chars, TextSink sink) {
+        while (decoder.flush(chars).isOverflow()) {
+            drain(chars, sink);
+        }
+        drain(chars, sink);
+        sink.finish();
+    }
+
+    // Hands the decoded characters to the sink and empties the buffer for reuse.
+    private static void drain(CharBuffer chars, TextSink sink) {
+        chars.flip();
+        sink.accept(chars);
+        chars.clear();
+    }
+}
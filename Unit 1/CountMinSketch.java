@@ -0,0 +1,101 @@
+/**
+ * A Count-Min Sketch: estimates how often each item has been seen using a
+ * fixed table of counters, no matter how many different items there are.
+ *
+ * The table has 'depth' rows of 'width' counters. Every item is hashed to one
+ * counter per row; adding the item raises those counters, and its estimate is
+ * the smallest of them. Collisions can only make a counter too high, so the
+ * estimate is never below the true count.
+ *
+ * Error bound: with width = ceil(e / epsilon) and depth = ceil(ln(1 / delta)),
+ * every estimate is at most (true count + epsilon * N) with probability at
+ * least 1 - delta, where N is the total number of items added. This sketch
+ * uses conservative update (only the counters that are too low are raised),
+ * which keeps the same bound and is usually much tighter in practice.
+ *
+ * Memory: width * depth * 8 bytes. For example epsilon = 0.0001 and
+ * delta = 0.001 give 27183 x 7 counters, about 1.5 MB.
+ */
+public class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+
+    // depth rows of width counters, stored row after row in one array.
+    private final long[] counters;
+
+    // Total number of items added (N in the error bound).
+    private long totalCount = 0;
+
+    /**
+     * Creates a sketch sized for an error bound.
+     * @param epsilon The error as a fraction of the total count, e.g. 0.0001.
+     * @param delta The probability that an estimate exceeds the bound, e.g. 0.001.
+     */
+    public CountMinSketch(double epsilon, double delta) {
+        if (epsilon <= 0 || epsilon >= 1 || delta <= 0 || delta >= 1) {
+            throw new IllegalArgumentException("epsilon and delta must be between 0 and 1.");
+        }
+        this.width = (int) Math.ceil(Math.E / epsilon);
+        this.depth = (int) Math.ceil(Math.log(1 / delta));
+        this.counters = new long[width * depth];
+    }
+
+    /**
+     * Counts one occurrence of an item.
+     * @param hash A 64-bit hash of the item.
+     */
+    public void add(long hash) {
+        totalCount++;
+
+        // Conservative update: find the current estimate, then raise only the
+        // counters that are below the new estimate.
+        long newEstimate = estimate(hash) + 1;
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int row = 0; row < depth; row++) {
+            int index = row * width + column(h1, h2, row);
+            if (counters[index] < newEstimate) {
+                counters[index] = newEstimate;
+            }
+        }
+    }
+
+    /**
+     * Estimates how many times an item has been added. The estimate is never
+     * too low, and is too high by at most epsilon * N with probability 1 - delta.
+     * @param hash A 64-bit hash of the item.
+     * @return The estimated count.
+     */
+    public long estimate(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters[row * width + column(h1, h2, row)]);
+        }
+        return min;
+    }
+
+    /**
+     * Returns the total number of items added.
+     * @return N, the total count.
+     */
+    public long totalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the amount of memory used by the counters.
+     * @return The size of the table in bytes.
+     */
+    public long memoryBytes() {
+        return (long) counters.length * Long.BYTES;
+    }
+
+    // Picks the counter for a row. Each row uses a different combination of the
+    // two halves of the hash (h1 + row * h2), which behaves like independent hashes.
+    private int column(int h1, int h2, int row) {
+        return Math.floorMod(h1 + row * h2, width);
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * HyperLogLog: estimates the number of distinct items in a stream using a
+ * small, fixed array of registers.
+ *
+ * The hash of each item picks one of m = 2^precision registers, and the
+ * register remembers the longest run of leading zero bits seen among the
+ * hashes sent to it. Long runs are rare, so they tell how many different
+ * hashes have gone by.
+ *
+ * Error bound: the standard error of the estimate is about 1.04 / sqrt(m).
+ * For example precision 14 uses 16 KB and is typically within 0.8% of the
+ * true count. Memory: m bytes.
+ */
+public class HyperLogLog {
+
+    private final int precision;
+
+    // One register per bucket, holding the largest rank seen in that bucket.
+    private final byte[] registers;
+
+    /**
+     * Creates an estimator.
+     * @param precision The number of index bits, between 4 and 18.
+     */
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("Precision must be between 4 and 18: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Adds an item.
+     * @param hash A 64-bit hash of the item.
+     */
+    public void add(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // The rank is the position of the first 1 bit in the remaining bits.
+        // The extra 1 bit stops the count if all remaining bits are zero.
+        long remaining = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * Estimates the number of distinct items added so far.
+     * @return The estimated cardinality.
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeroRegisters = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeroRegisters++;
+            }
+        }
+
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+
+        // For small cardinalities many registers are still empty, and counting
+        // them (linear counting) is more accurate.
+        if (estimate <= 2.5 * m && zeroRegisters > 0) {
+            estimate = m * Math.log((double) m / zeroRegisters);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Adds every item of another estimator with the same precision to this one.
+     * @param other The estimator to merge in.
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge HyperLogLogs with different precisions.");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the expected relative standard error, 1.04 / sqrt(m).
+     * @return The standard error as a fraction, e.g. 0.008 for 0.8%.
+     */
+    public double standardError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    /**
+     * Returns the amount of memory used by the registers.
+     * @return The size in bytes.
+     */
+    public long memoryBytes() {
+        return registers.length;
+    }
+}
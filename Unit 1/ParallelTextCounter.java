@@ -0,0 +1,232 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts words and characters on all CPU cores with a fork/join pool.
+ *
+ * The input is cut into chunks that always end right after a word delimiter,
+ * so no word is ever split between two chunks. Each chunk is counted by its
+ * own TextAnalyzer (no shared maps, no locking), and the partial results are
+ * merged pairwise on the way back up the fork/join tree.
+ */
+public class ParallelTextCounter {
+
+    // Default chunk size. Large enough that the per-chunk overhead is small,
+    // small enough that a big file gives every core plenty of work.
+    private static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    // How far ahead we read at a time when looking for a delimiter in a file.
+    private static final int BOUNDARY_SCAN_SIZE = 4096;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    /**
+     * Creates a counter that uses the common fork/join pool.
+     */
+    public ParallelTextCounter() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a counter with a specific pool and chunk size.
+     * @param pool The pool that runs the counting tasks.
+     * @param chunkSize The target size of each chunk (characters or bytes).
+     */
+    public ParallelTextCounter(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    // ============================
+    // COUNTING TEXT IN MEMORY
+    // ============================
+
+    /**
+     * Counts a piece of text that is already in memory.
+     * @param text The text to analyze.
+     * @return A finished analyzer holding the results for the whole text.
+     */
+    public TextAnalyzer count(CharSequence text) {
+        // Find the chunk boundaries: each chunk ends just after a delimiter.
+        List<long[]> chunks = new ArrayList<>();
+        int start = 0;
+        int length = text.length();
+        while (start < length) {
+            int end = Math.min(start + chunkSize, length);
+            while (end < length && !WordTokenizer.isDelimiter(text.charAt(end - 1))) {
+                end++;
+            }
+            chunks.add(new long[] {start, end});
+            start = end;
+        }
+
+        return pool.invoke(new CountTask(chunks, 0, chunks.size(), range -> {
+            TextAnalyzer analyzer = new TextAnalyzer();
+            analyzer.accept(text.subSequence((int) range[0], (int) range[1]));
+            analyzer.finish();
+            return analyzer;
+        }));
+    }
+
+    // ============================
+    // COUNTING A UTF-8 FILE
+    // ============================
+
+    /**
+     * Counts a UTF-8 file. Each chunk is memory-mapped and decoded by the task
+     * that counts it, so the reading is spread over all cores as well.
+     *
+     * Chunks are split at ASCII delimiter bytes. In UTF-8 an ASCII byte is never
+     * part of a multi-byte character, so no character is cut in half.
+     * @param path The file to analyze.
+     * @return A finished analyzer holding the results for the whole file.
+     * @throws IOException If the file cannot be read.
+     */
+    public TextAnalyzer countFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<long[]> chunks = findFileChunks(channel);
+
+            try {
+                return pool.invoke(new CountTask(chunks, 0, chunks.size(), range -> {
+                    try {
+                        return countFileChunk(channel, range[0], range[1]);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // Splits the file into byte ranges that each end right after a delimiter byte.
+    private List<long[]> findFileChunks(FileChannel channel) throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+        ByteBuffer scan = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        long size = channel.size();
+        long start = 0;
+
+        while (start < size) {
+            long end = Math.min(start + chunkSize, size);
+
+            // Move the end forward until the byte before it is a delimiter.
+            boolean found = false;
+            while (!found && end < size) {
+                scan.clear();
+                int read = channel.read(scan, end - 1);
+                if (read <= 0) {
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    byte b = scan.get(i);
+                    if (b >= 0 && WordTokenizer.isDelimiter((char) b)) {
+                        end = end + i;
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    end = Math.min(end + read, size);
+                }
+            }
+
+            chunks.add(new long[] {start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    // Maps one byte range of the file, decodes it and counts it.
+    private static TextAnalyzer countFileChunk(FileChannel channel, long start, long end) throws IOException {
+        MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        CharBuffer chars;
+        try {
+            chars = decoder.decode(bytes);
+        } catch (CharacterCodingException e) {
+            // Cannot happen with REPLACE, but decode() declares it.
+            throw new IOException(e);
+        }
+
+        TextAnalyzer analyzer = new TextAnalyzer();
+        analyzer.accept(chars);
+        analyzer.finish();
+        return analyzer;
+    }
+
+    // ============================
+    // THE FORK/JOIN TASK
+    // ============================
+
+    /**
+     * Counts one chunk of the input and returns its finished analyzer.
+     */
+    private interface ChunkCounter {
+        TextAnalyzer count(long[] range);
+    }
+
+    /**
+     * Counts the chunks [from, to). Ranges of more than one chunk are split in
+     * half; the left half is forked and the right half runs on this thread.
+     */
+    private static class CountTask extends RecursiveTask<TextAnalyzer> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<long[]> chunks;
+        private final int from;
+        private final int to;
+        private final ChunkCounter counter;
+
+        CountTask(List<long[]> chunks, int from, int to, ChunkCounter counter) {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+            this.counter = counter;
+        }
+
+        @Override
+        protected TextAnalyzer compute() {
+            if (to - from == 0) {
+                // Empty input: an unfinished analyzer that has read nothing.
+                return new TextAnalyzer();
+            }
+            if (to - from == 1) {
+                return counter.count(chunks.get(from));
+            }
+
+            int middle = (from + to) >>> 1;
+            CountTask left = new CountTask(chunks, from, middle, counter);
+            CountTask right = new CountTask(chunks, middle, to, counter);
+            left.fork();
+            TextAnalyzer rightResult = right.compute();
+            TextAnalyzer leftResult = left.join();
+
+            // Text order matters for the "starts with a delimiter" rule, so the
+            // right half is always merged into the left half.
+            leftResult.merge(rightResult);
+            return leftResult;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Space-Saving algorithm: finds the most frequent items (heavy hitters) of
+ * a stream while monitoring only a fixed number k of them.
+ *
+ * While there is room, every new item gets a counter. When all k counters are
+ * taken, a new item replaces the item with the smallest counter and inherits
+ * that count plus one, remembering the inherited part as its possible error.
+ *
+ * Error bound: after N items, every item that appeared more than N / k times
+ * is guaranteed to be monitored, and each reported count is too high by at
+ * most N / k (the exact amount is reported as the item's error).
+ *
+ * Items are identified by a 64-bit hash; two different words with the same
+ * 64-bit hash would share a counter, which is vanishingly unlikely for k
+ * counters. Each counter keeps its word in its own reusable char buffer, so a
+ * replacement copies characters but creates no objects once the buffers have
+ * grown to the usual word length.
+ */
+public class SpaceSaving {
+
+    private final int capacity;
+
+    // Counter data, indexed by counter number.
+    private final long[] hashes;
+    private final long[] counts;
+    private final long[] errors;
+    private final char[][] keys;
+    private final int[] keyLengths;
+    private int size = 0;
+
+    // A min-heap of counter numbers ordered by count, and where each counter sits in it.
+    private final int[] heap;
+    private final int[] heapPositions;
+
+    // Open-addressing index from hash to (counter number + 1); 0 means empty.
+    private final long[] indexHashes;
+    private final int[] indexCounters;
+
+    /**
+     * Creates a heavy-hitter tracker.
+     * @param capacity The number of counters k.
+     */
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        hashes = new long[capacity];
+        counts = new long[capacity];
+        errors = new long[capacity];
+        keys = new char[capacity][];
+        keyLengths = new int[capacity];
+        heap = new int[capacity];
+        heapPositions = new int[capacity];
+
+        // Keep the index at most half full so probe sequences stay short.
+        int indexSize = Integer.highestOneBit(capacity * 4 - 1);
+        indexHashes = new long[indexSize];
+        indexCounters = new int[indexSize];
+    }
+
+    /**
+     * Counts one occurrence of the word held in chars[offset, offset + length).
+     * @param hash A 64-bit hash of the word.
+     */
+    public void offer(long hash, char[] chars, int offset, int length) {
+        int slot = findSlot(hash);
+        if (indexCounters[slot] != 0) {
+            int counter = indexCounters[slot] - 1;
+            counts[counter]++;
+            siftDown(heapPositions[counter]);
+            return;
+        }
+
+        int counter;
+        if (size < capacity) {
+            // There is still a free counter.
+            counter = size++;
+            counts[counter] = 1;
+            errors[counter] = 0;
+            heap[counter] = counter;
+            heapPositions[counter] = counter;
+            siftUp(counter);
+        } else {
+            // Take over the counter with the smallest count.
+            counter = heap[0];
+            removeFromIndex(hashes[counter]);
+            errors[counter] = counts[counter];
+            counts[counter]++;
+            siftDown(0);
+            slot = findSlot(hash);
+        }
+
+        hashes[counter] = hash;
+        if (keys[counter] == null || keys[counter].length < length) {
+            keys[counter] = new char[Math.max(16, length)];
+        }
+        System.arraycopy(chars, offset, keys[counter], 0, length);
+        keyLengths[counter] = length;
+        indexHashes[slot] = hash;
+        indexCounters[slot] = counter + 1;
+    }
+
+    /**
+     * Returns the count of an item if it is monitored. The count may be too
+     * high by up to error(hash).
+     * @param hash A 64-bit hash of the item.
+     * @return Its count, or 0 if it is not monitored.
+     */
+    public long count(long hash) {
+        int counter = indexCounters[findSlot(hash)] - 1;
+        return counter < 0 ? 0 : counts[counter];
+    }
+
+    /**
+     * Returns the largest possible over-count of a monitored item.
+     * @param hash A 64-bit hash of the item.
+     * @return Its error, or 0 if it is not monitored.
+     */
+    public long error(long hash) {
+        int counter = indexCounters[findSlot(hash)] - 1;
+        return counter < 0 ? 0 : errors[counter];
+    }
+
+    /**
+     * Returns the smallest monitored count. Any item that is not monitored
+     * appeared at most this many times.
+     * @return The minimum count, or 0 while counters are still free.
+     */
+    public long minCount() {
+        return size < capacity ? 0 : counts[heap[0]];
+    }
+
+    /**
+     * Returns the k most frequent items found so far.
+     * @param k The number of items wanted.
+     * @return Up to k entries (word, count), largest count first.
+     */
+    public List<Map.Entry<String, Long>> top(int k) {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(counts[b], counts[a]));
+
+        int n = Math.min(k, size);
+        List<Map.Entry<String, Long>> top = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int counter = order[i];
+            String word = new String(keys[counter], 0, keyLengths[counter]);
+            top.add(new AbstractMap.SimpleImmutableEntry<>(word, counts[counter]));
+        }
+        return top;
+    }
+
+    /**
+     * Returns the approximate amount of memory used, not counting the words.
+     * @return The size in bytes.
+     */
+    public long memoryBytes() {
+        return capacity * (3L * Long.BYTES + 4L * Integer.BYTES) + indexHashes.length * (long) (Long.BYTES + Integer.BYTES);
+    }
+
+    // ============================
+    // MIN-HEAP
+    // ============================
+
+    // Moves the counter at this heap position up while it is smaller than its parent.
+    private void siftUp(int position) {
+        int counter = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (counts[heap[parent]] <= counts[counter]) {
+                break;
+            }
+            moveInHeap(heap[parent], position);
+            position = parent;
+        }
+        moveInHeap(counter, position);
+    }
+
+    // Moves the counter at this heap position down while a child is smaller.
+    private void siftDown(int position) {
+        int counter = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+                child++;
+            }
+            if (counts[heap[child]] >= counts[counter]) {
+                break;
+            }
+            moveInHeap(heap[child], position);
+            position = child;
+        }
+        moveInHeap(counter, position);
+    }
+
+    private void moveInHeap(int counter, int position) {
+        heap[position] = counter;
+        heapPositions[counter] = position;
+    }
+
+    // ============================
+    // HASH INDEX
+    // ============================
+
+    // Linear probing: returns the slot holding the hash, or the empty slot where it belongs.
+    private int findSlot(long hash) {
+        int mask = indexHashes.length - 1;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (indexCounters[slot] != 0 && indexHashes[slot] != hash) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Removes a hash from the index, shifting later entries back so lookups
+    // never stop early at the hole (no tombstones needed).
+    private void removeFromIndex(long hash) {
+        int mask = indexHashes.length - 1;
+        int hole = findSlot(hash);
+        indexCounters[hole] = 0;
+
+        int slot = (hole + 1) & mask;
+        while (indexCounters[slot] != 0) {
+            int home = (int) (indexHashes[slot] ^ (indexHashes[slot] >>> 32)) & mask;
+            // Move the entry into the hole if the hole lies between its home and its slot.
+            boolean movable = hole <= slot ? (home <= hole || home > slot) : (home <= hole && home > slot);
+            if (movable) {
+                indexHashes[hole] = indexHashes[slot];
+                indexCounters[hole] = indexCounters[slot];
+                indexCounters[slot] = 0;
+                hole = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+}
@@ -1,5 +1,8 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Map;
-import java.util.HashMap;
 import java.util.Scanner;
 
 /**
@@ -7,8 +10,44 @@ import java.util.Scanner;
  * and analyzes character and word frequency in a given text input.
  */
 public class TextAnalysis {
+
+    // Number of most common words listed when analyzing a file.
+    private static final int TOP_WORDS = 10;
+
     public static void main(String[] args) {
 
+        // ============================
+        // 0. STREAMING MODE
+        // ============================
+
+        // If a file name is given on the command line (or "-" for standard input),
+        // analyze it in chunks instead of reading a single line from the user.
+        // With "--parallel" the file is counted on all CPU cores instead, and with
+        // "--approx" the words are estimated in a fixed amount of memory.
+        if (args.length == 2 && args[0].equals("--parallel")) {
+            analyzeInParallel(args[1]);
+            return;
+        }
+        if (args.length == 2 && args[0].equals("--approx")) {
+            analyzeApproximately(args[1]);
+            return;
+        }
+
+        // "--index" analyzes a whole directory of files and saves binary indexes;
+        // "--query" then answers questions from those indexes without re-reading the text.
+        if (args.length == 3 && args[0].equals("--index")) {
+            buildIndex(args[1], args[2]);
+            return;
+        }
+        if (args.length == 3 && args[0].equals("--query")) {
+            queryIndex(args[1], args[2]);
+            return;
+        }
+        if (args.length > 0) {
+            analyzeStream(args[0]);
+            return;
+        }
+
         // ============================
         // 1. USER INPUT AND INITIAL SETUP
         // ============================
@@ -39,32 +78,22 @@ public class TextAnalysis {
         // 3. WORD ANALYSIS
         // ============================
 
-        // Use a powerful regular expression to split the string into words.
-        // [\\s\\p{Punct}]+ matches one or more whitespace characters (\\s) or
-        // any punctuation characters (\\p{Punct}). This ensures accurate word splitting
-        // by treating punctuation and multiple spaces as delimiters.
-        String [] words = input.split("[\\s\\p{Punct}]+");
-
-        // A HashMap is used to store word counts. The key is the word (String),
-        // and the value is its frequency (Integer).
-        Map<String, Integer> wordCountMap = new HashMap<>();
-
-        // Loop through each word from the split array to populate the map.
-        for (String word : words) {
-            // Check if the word is not an empty string. This handles cases where
-            // the split operation might create empty elements due to leading/trailing
-            // delimiters in the input.
-            if (!word.isEmpty()) {
-                // Convert the word to lowercase to ensure case-insensitive counting.
-                word = word.toLowerCase();
-                // Get the current count of the word, or 0 if it's the first time
-                // we've seen it. Then increment the count and store it back in the map.
-                wordCountMap.put(word, wordCountMap.getOrDefault(word, 0) + 1);
-            }
-        }
+        // A WordCountTable is used to store word counts. It works like a
+        // Map<String, Integer>, but keeps the counts in primitive arrays so
+        // counting a word does not create an Integer object every time.
+        WordCountTable wordCountTable = new WordCountTable();
 
-        // The total number of words is the size of the array after splitting.
-        int wordCount = words.length;
+        // Split the input into words with a WordTokenizer. It treats whitespace
+        // and punctuation as delimiters, exactly like the regular expression
+        // [\\s\\p{Punct}]+, but reads the text in a single pass without
+        // creating an array or a substring for every word. Each word arrives
+        // already lowercased and goes straight into the table.
+        WordTokenizer tokenizer = new WordTokenizer(wordCountTable::increment);
+        tokenizer.accept(input);
+        tokenizer.finish();
+
+        // The total number of words follows the same rules as input.split(...).length.
+        long wordCount = tokenizer.getWordCount();
 
         System.out.println("The total number of words is: " + wordCount);
 
@@ -72,30 +101,22 @@ public class TextAnalysis {
         // 4. FINDING THE MOST COMMON CHARACTER
         // ============================
 
-        // Create a HashMap to store the frequency of each character.
+        // Create a CharCountTable to store the frequency of each character.
+        // It is a flat array with one counter per character, so counting is a
+        // single array increment with no boxing.
         // We first convert the entire input string to lowercase to handle
         // case-insensitive counting.
         input = input.toLowerCase();
-        Map<Character, Integer> charCountMap = new HashMap<>();
+        CharCountTable charCountTable = new CharCountTable();
 
-        // Iterate over each character in the input string's character array.
-        for (char c : input.toCharArray()) {
-            charCountMap.put(c, charCountMap.getOrDefault(c, 0) + 1);
+        // Iterate over each character in the input string.
+        for (int i = 0; i < input.length(); i++) {
+            charCountTable.increment(input.charAt(i));
         }
 
-        // Initialize variables to track the most common character and its count.
-        char mostCommonChar = ' ';
-        int maxCount = 0;
-
-        // Iterate through each entry in the character count map to find the max count.
-        for (Map.Entry<Character, Integer> entry : charCountMap.entrySet()) {
-            // If the current character's count is greater than the current maxCount,
-            // update both the maxCount and the mostCommonChar.
-            if (entry.getValue() > maxCount) {
-                maxCount = entry.getValue();
-                mostCommonChar = entry.getKey();
-            }
-        }
+        // The table keeps track of its most common character as it counts, so no scan is needed.
+        char mostCommonChar = (char) charCountTable.mostCommon();
+        long maxCount = charCountTable.get(mostCommonChar);
 
         // Display the result.
         System.out.println("The most common character is: '" + mostCommonChar + "' with a count of " + maxCount);
@@ -116,8 +137,8 @@ public class TextAnalysis {
             // case-insensitive lookup.
             char charToCount = Character.toLowerCase(charInput.charAt(0));
 
-            // Look up the character's count directly from the map.
-            int count = charCountMap.getOrDefault(charToCount,0);
+            // Look up the character's count directly from the table.
+            long count = charCountTable.get(charToCount);
 
             // Display the final result to the user.
             System.out.println("The character '" + charToCount + "' appears " + count + " times.");
@@ -132,8 +153,8 @@ public class TextAnalysis {
         // Read the user input and convert it to lowercase.
         String wordToCount = scanner.nextLine().toLowerCase();
 
-        // Look up the word's count directly from the map.
-        int count = wordCountMap.getOrDefault(wordToCount, 0);
+        // Look up the word's count directly from the table.
+        long count = wordCountTable.get(wordToCount);
 
         // Display the final result.
         System.out.println("The word '" + wordToCount + "' appears " + count + " times.");
@@ -142,8 +163,8 @@ public class TextAnalysis {
         // 7. UNIQUE WORD COUNT AND CLEANUP
         // ============================
 
-        // The number of unique words is simply the size of the wordCountMap.
-        int uniqueWordCount = wordCountMap.size();
+        // The number of unique words is simply the size of the word table.
+        int uniqueWordCount = wordCountTable.size();
         System.out.println("The total number of unique words is: " + uniqueWordCount);
 
 
@@ -151,4 +172,134 @@ public class TextAnalysis {
         // step to prevent resource leaks.
         scanner.close();
     }
+
+    /**
+     * Analyzes a file, or standard input when the name is "-", one chunk at a time.
+     * Memory use depends on the number of distinct words, not on the file size.
+     * @param fileName The file to analyze, or "-" for standard input.
+     */
+    private static void analyzeStream(String fileName) {
+        TextAnalyzer analyzer = new TextAnalyzer();
+        if (read(fileName, analyzer)) {
+            printResults(analyzer);
+        }
+    }
+
+    /**
+     * Analyzes a file, or standard input when the name is "-", with sketches
+     * that use a fixed amount of memory however large the input is.
+     * @param fileName The file to analyze, or "-" for standard input.
+     */
+    private static void analyzeApproximately(String fileName) {
+        ApproximateTextAnalyzer analyzer = new ApproximateTextAnalyzer();
+        if (!read(fileName, analyzer)) {
+            return;
+        }
+
+        System.out.println("The total number of character is: " + analyzer.getCharCount());
+        System.out.println("The total number of words is: " + analyzer.getWordCount());
+        int mostCommonChar = analyzer.mostCommonChar();
+        System.out.println("The most common character is: '" + new String(Character.toChars(mostCommonChar))
+                + "' with a count of " + analyzer.count((char) mostCommonChar));
+        System.out.println("The estimated number of unique words is: " + analyzer.uniqueWords());
+
+        System.out.println("The " + TOP_WORDS + " most common words are (estimated):");
+        for (Map.Entry<String, Long> entry : analyzer.topK(TOP_WORDS)) {
+            System.out.println("  " + entry.getKey() + ": ~" + entry.getValue());
+        }
+        System.out.println("Memory used by the sketches: " + analyzer.memoryBytes() / 1024 + " KB");
+    }
+
+    /**
+     * Indexes every file of a directory concurrently and merges the results
+     * into one corpus index.
+     * @param textDirectory The directory holding the text files.
+     * @param indexDirectory The directory where the indexes are written.
+     */
+    private static void buildIndex(String textDirectory, String indexDirectory) {
+        try {
+            BatchTextIndexer indexer = new BatchTextIndexer();
+            int files = indexer.indexDirectory(Paths.get(textDirectory), Paths.get(indexDirectory));
+            for (Map.Entry<Path, String> failed : indexer.getFailedFiles().entrySet()) {
+                System.out.println("Warning: Skipped '" + failed.getKey() + "': " + failed.getValue());
+            }
+            TextIndex corpus = BatchTextIndexer.openCorpus(Paths.get(indexDirectory));
+            System.out.println("Indexed " + files + " files.");
+            System.out.println("The total number of words is: " + corpus.wordCount());
+            System.out.println("The total number of unique words is: " + corpus.uniqueWords());
+        } catch (IOException e) {
+            System.out.println("Error: Could not index '" + textDirectory + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Answers a word query from a corpus index built with "--index".
+     * @param indexDirectory The directory holding the indexes.
+     * @param word The word to look up.
+     */
+    private static void queryIndex(String indexDirectory, String word) {
+        try {
+            TextIndex corpus = BatchTextIndexer.openCorpus(Paths.get(indexDirectory));
+            System.out.println("The word '" + word.toLowerCase() + "' appears " + corpus.count(word) + " times.");
+            System.out.println("The total number of unique words is: " + corpus.uniqueWords());
+        } catch (IOException e) {
+            System.out.println("Error: Could not open the index in '" + indexDirectory + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a file, or standard input when the name is "-", into a sink.
+     * @param fileName The file to read, or "-" for standard input.
+     * @param sink The analyzer that receives the text.
+     * @return true if the whole input was read, false if an error was displayed.
+     */
+    private static boolean read(String fileName, TextSink sink) {
+        try {
+            if (fileName.equals("-")) {
+                ChunkedTextReader.readStream(System.in, StandardCharsets.UTF_8, sink);
+            } else {
+                Path path = Paths.get(fileName);
+                ChunkedTextReader.readFile(path, StandardCharsets.UTF_8, sink);
+            }
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error: Could not read '" + fileName + "': " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Analyzes a UTF-8 file on all CPU cores with a fork/join pool.
+     * @param fileName The file to analyze.
+     */
+    private static void analyzeInParallel(String fileName) {
+        TextAnalyzer analyzer;
+        try {
+            analyzer = new ParallelTextCounter().countFile(Paths.get(fileName));
+        } catch (IOException e) {
+            System.out.println("Error: Could not read '" + fileName + "': " + e.getMessage());
+            return;
+        }
+
+        printResults(analyzer);
+    }
+
+    /**
+     * Displays the same results as the interactive mode, followed by the most
+     * common words.
+     * @param analyzer A finished analyzer.
+     */
+    private static void printResults(TextAnalyzer analyzer) {
+        System.out.println("The total number of character is: " + analyzer.getCharCount());
+        System.out.println("The total number of words is: " + analyzer.getWordCount());
+        int mostCommonChar = analyzer.mostCommonChar();
+        System.out.println("The most common character is: '" + new String(Character.toChars(mostCommonChar))
+                + "' with a count of " + analyzer.countCodePoint(mostCommonChar));
+        System.out.println("The total number of unique words is: " + analyzer.uniqueWords());
+
+        System.out.println("The " + TOP_WORDS + " most common words are:");
+        for (Map.Entry<String, Long> entry : analyzer.topK(TOP_WORDS)) {
+            System.out.println("  " + entry.getKey() + ": " + entry.getValue());
+        }
+    }
 }
@@ -0,0 +1,402 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * A small benchmark harness for the TextAnalysis counting pipeline.
+ *
+ * The project has no build tool, so instead of a JMH module this class follows
+ * the same method by hand: each benchmark is warmed up first, then run
+ * repeatedly for a fixed time, and the harness reports
+ * - throughput (operations and megabytes per second),
+ * - allocation rate (bytes allocated per operation by the benchmark thread),
+ * - garbage collections during the measurement,
+ * - p50 and p99 latency of a single operation.
+ *
+ * The original pipeline (regex split, HashMap character loop, most common
+ * character scan) is measured step by step, next to the newer engines, on
+ * synthetic ASCII and Unicode corpora of 1 KB and 1 MB. With "--large", a
+ * 1 GB corpus is also written to a temporary file and run through the
+ * streaming and parallel file engines (the in-memory benchmarks would need
+ * several GB of heap at that size).
+ *
+ * Usage: java -Xmx2g TextAnalysisBenchmark [--large] [--seconds N]
+ */
+public class TextAnalysisBenchmark {
+
+    private static final int KB = 1024;
+    private static final int MB = 1024 * 1024;
+    private static final long GB = 1024L * 1024 * 1024;
+
+    // Words used to build the synthetic corpora. Earlier words are picked more
+    // often (roughly Zipf-distributed), like in real text.
+    private static final String[] ASCII_WORDS = {
+            "the", "of", "and", "to", "in", "a", "is", "that", "for", "it", "as", "was", "with",
+            "be", "by", "on", "not", "he", "this", "are", "Java", "Thread", "HashMap", "analysis",
+            "character", "frequency", "performance", "benchmark", "throughput", "latency"
+    };
+    private static final String[] UNICODE_WORDS = {
+            "the", "und", "de", "\u00E9t\u00E9", "na\u00EFve", "Stra\u00DFe", "\u03A3\u039F\u03A6\u0399\u0391", "\u03BB\u03CC\u03B3\u03BF\u03C2", "\u043C\u0438\u0440", "\u043F\u0440\u0438\u0432\u0435\u0442",
+            "\u65E5\u672C\u8A9E", "\u6587\u5B57", "\uD83D\uDE00", "\uD835\uDD18\uD835\uDD2B\uD835\uDD26\uD835\uDD20\uD835\uDD2C\uD835\uDD21\uD835\uDD22", "\u0130stanbul", "caf\u00E9", "cr\u00E8me", "\u0395\u03BB\u03BB\u03AC\u03B4\u03B1", "\u4E2D\u6587", "\uD55C\uAD6D\uC5B4"
+    };
+    private static final String[] SEPARATORS = {" ", " ", " ", " ", ", ", ". ", "\n", "! ", "? ", " - "};
+
+    // Blackhole: results are added here so the JIT cannot remove the work.
+    private static long sink = 0;
+
+    /**
+     * One operation to measure. It returns a value that depends on its work.
+     */
+    private interface Workload {
+        long run(String input) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean large = false;
+        int seconds = 2;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--large")) {
+                large = true;
+            } else if (args[i].equals("--seconds") && i + 1 < args.length) {
+                seconds = Integer.parseInt(args[++i]);
+            }
+        }
+
+        checkEdgeCases();
+
+        Map<String, Workload> workloads = new LinkedHashMap<>();
+        workloads.put("regex split + word HashMap", TextAnalysisBenchmark::regexWordCount);
+        workloads.put("char HashMap loop", TextAnalysisBenchmark::charHashMapLoop);
+        workloads.put("most common char scan", TextAnalysisBenchmark::mostCommonCharScan);
+        workloads.put("original pipeline (all three)", TextAnalysisBenchmark::originalPipeline);
+        workloads.put("WordTokenizer + WordCountTable", TextAnalysisBenchmark::tokenizerWordCount);
+        workloads.put("TextAnalyzer (streaming)", TextAnalysisBenchmark::textAnalyzer);
+        workloads.put("ParallelTextCounter", TextAnalysisBenchmark::parallelCounter);
+        workloads.put("ApproximateTextAnalyzer", TextAnalysisBenchmark::approximateAnalyzer);
+
+        System.out.printf("%-32s %-12s %12s %10s %14s %6s %12s %12s%n",
+                "Benchmark", "Corpus", "ops/s", "MB/s", "alloc B/op", "GCs", "p50", "p99");
+
+        for (int size : new int[] {KB, MB}) {
+            for (boolean unicode : new boolean[] {false, true}) {
+                String corpus = generateCorpus(size, unicode, 42);
+                String corpusName = (unicode ? "unicode " : "ascii ") + (size == KB ? "1KB" : "1MB");
+                for (Map.Entry<String, Workload> entry : workloads.entrySet()) {
+                    measure(entry.getKey(), corpusName, entry.getValue(), corpus, seconds);
+                }
+            }
+        }
+
+        if (large) {
+            for (boolean unicode : new boolean[] {false, true}) {
+                runLargeFileBenchmarks(unicode, seconds);
+            }
+        }
+        System.out.println("(blackhole: " + sink + ")");
+    }
+
+    // ============================
+    // EDGE CASES
+    // ============================
+
+    // Inputs the measurements never produce, checked once before them.
+    private static void checkEdgeCases() throws IOException {
+        Path empty = Files.createTempFile("text-analysis-empty", ".txt");
+        try {
+            TextAnalyzer analyzer = new TextAnalyzer();
+            ChunkedTextReader.readFile(empty, StandardCharsets.UTF_8, analyzer);
+            // "".split(...) has one (empty) word
+            check("Empty file reads as empty text", analyzer.getCharCount() == 0 && analyzer.getWordCount() == 1);
+        } finally {
+            Files.deleteIfExists(empty);
+        }
+
+        // An empty file in a corpus adds no words, and does not stop the others from being indexed
+        Path texts = Files.createTempDirectory("text-analysis-corpus");
+        Path indexes = Files.createTempDirectory("text-analysis-indexes");
+        try {
+            Files.writeString(texts.resolve("a.txt"), "one two, three");
+            Files.writeString(texts.resolve("b.txt"), "");
+            BatchTextIndexer indexer = new BatchTextIndexer(2);
+            int files = indexer.indexDirectory(texts, indexes);
+            TextIndex corpus = BatchTextIndexer.openCorpus(indexes);
+            check("Corpus with an empty file counts only real words",
+                    files == 2 && indexer.getFailedFiles().isEmpty() && corpus.wordCount() == 3);
+        } finally {
+            deleteTree(texts);
+            deleteTree(indexes);
+        }
+
+        // Merges only mark the ranking out of date; the next topK() sorts the merged counts
+        TextAnalyzer merged = finishedAnalyzer("a a b ");
+        merged.merge(finishedAnalyzer("b b c "));
+        merged.merge(finishedAnalyzer("c c c a a a"));
+        check("Top words after merges are ranked by the merged counts",
+                merged.topK(3).toString().equals("[a=5, c=4, b=3]"));
+    }
+
+    private static TextAnalyzer finishedAnalyzer(String text) {
+        TextAnalyzer analyzer = new TextAnalyzer();
+        analyzer.accept(text);
+        analyzer.finish();
+        return analyzer;
+    }
+
+    private static void deleteTree(Path directory) throws IOException {
+        try (Stream<Path> walk = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) walk.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static void check(String description, boolean passed) {
+        if (!passed) {
+            throw new IllegalStateException("[FAIL] " + description);
+        }
+        System.out.println("[PASS] " + description);
+    }
+
+    // ============================
+    // THE WORKLOADS
+    // ============================
+
+    // Step 3 of TextAnalysis: regex split and a HashMap of lowercase words.
+    private static long regexWordCount(String input) {
+        String[] words = input.split("[\\s\\p{Punct}]+");
+        Map<String, Integer> wordCountMap = new HashMap<>();
+        for (String word : words) {
+            if (!word.isEmpty()) {
+                word = word.toLowerCase();
+                wordCountMap.put(word, wordCountMap.getOrDefault(word, 0) + 1);
+            }
+        }
+        return words.length + wordCountMap.size();
+    }
+
+    // Step 4 of TextAnalysis, first half: the HashMap character loop.
+    private static long charHashMapLoop(String input) {
+        return buildCharMap(input).size();
+    }
+
+    // Step 4 of TextAnalysis, second half: scanning the map for the most common
+    // character. The map is built outside the timed part by caching it per input.
+    private static long mostCommonCharScan(String input) {
+        Map<Character, Integer> charCountMap = cachedCharMap(input);
+        char mostCommonChar = ' ';
+        int maxCount = 0;
+        for (Map.Entry<Character, Integer> entry : charCountMap.entrySet()) {
+            if (entry.getValue() > maxCount) {
+                maxCount = entry.getValue();
+                mostCommonChar = entry.getKey();
+            }
+        }
+        return mostCommonChar + maxCount;
+    }
+
+    private static long originalPipeline(String input) {
+        long result = regexWordCount(input);
+        Map<Character, Integer> charCountMap = buildCharMap(input);
+        char mostCommonChar = ' ';
+        int maxCount = 0;
+        for (Map.Entry<Character, Integer> entry : charCountMap.entrySet()) {
+            if (entry.getValue() > maxCount) {
+                maxCount = entry.getValue();
+                mostCommonChar = entry.getKey();
+            }
+        }
+        return result + mostCommonChar + maxCount;
+    }
+
+    private static long tokenizerWordCount(String input) {
+        WordCountTable table = new WordCountTable();
+        WordTokenizer tokenizer = new WordTokenizer(table::increment);
+        tokenizer.accept(input);
+        tokenizer.finish();
+        return tokenizer.getWordCount() + table.size();
+    }
+
+    private static long textAnalyzer(String input) {
+        TextAnalyzer analyzer = new TextAnalyzer();
+        analyzer.accept(input);
+        analyzer.finish();
+        return analyzer.getWordCount() + analyzer.mostCommonChar();
+    }
+
+    private static long parallelCounter(String input) {
+        TextAnalyzer analyzer = new ParallelTextCounter().count(input);
+        return analyzer.getWordCount() + analyzer.mostCommonChar();
+    }
+
+    private static long approximateAnalyzer(String input) {
+        ApproximateTextAnalyzer analyzer = new ApproximateTextAnalyzer();
+        analyzer.accept(input);
+        analyzer.finish();
+        return analyzer.getWordCount() + analyzer.uniqueWords();
+    }
+
+    private static Map<Character, Integer> buildCharMap(String input) {
+        String lower = input.toLowerCase();
+        Map<Character, Integer> charCountMap = new HashMap<>();
+        for (char c : lower.toCharArray()) {
+            charCountMap.put(c, charCountMap.getOrDefault(c, 0) + 1);
+        }
+        return charCountMap;
+    }
+
+    private static String cachedInput;
+    private static Map<Character, Integer> cachedMap;
+
+    private static Map<Character, Integer> cachedCharMap(String input) {
+        if (input != cachedInput) {
+            cachedInput = input;
+            cachedMap = buildCharMap(input);
+        }
+        return cachedMap;
+    }
+
+    // ============================
+    // THE 1 GB FILE BENCHMARKS
+    // ============================
+
+    private static void runLargeFileBenchmarks(boolean unicode, int seconds) throws Exception {
+        Path file = Files.createTempFile("text-analysis-benchmark", ".txt");
+        try {
+            writeLargeCorpus(file, GB, unicode);
+            String corpusName = (unicode ? "unicode " : "ascii ") + "1GB";
+
+            // The file name is passed as the "input"; each operation reads the whole file.
+            measure("TextAnalyzer (file)", corpusName, path -> {
+                TextAnalyzer analyzer = new TextAnalyzer();
+                ChunkedTextReader.readFile(Path.of(path), StandardCharsets.UTF_8, analyzer);
+                return analyzer.getWordCount();
+            }, file.toString(), Files.size(file), seconds);
+
+            measure("ParallelTextCounter (file)", corpusName, path ->
+                    new ParallelTextCounter().countFile(Path.of(path)).getWordCount(),
+                    file.toString(), Files.size(file), seconds);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // Writes a corpus of about 'size' bytes, 1 MB of text at a time.
+    private static void writeLargeCorpus(Path file, long size, boolean unicode) throws IOException {
+        Random random = new Random(7);
+        long written = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            while (written < size) {
+                String block = generateCorpus(MB, unicode, random.nextLong());
+                writer.write(block);
+                written += block.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+    }
+
+    // ============================
+    // MEASUREMENT
+    // ============================
+
+    /**
+     * Builds a synthetic corpus of roughly 'size' UTF-16 characters.
+     * @param size The approximate length.
+     * @param unicode Whether to mix in non-ASCII words (accents, Greek, CJK, emoji).
+     * @param seed The random seed, so every run measures the same text.
+     * @return The corpus.
+     */
+    static String generateCorpus(int size, boolean unicode, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(size + 64);
+        while (text.length() < size) {
+            String[] words = unicode && random.nextInt(3) == 0 ? UNICODE_WORDS : ASCII_WORDS;
+            // Squaring a uniform number favours the first words of the list.
+            double r = random.nextDouble();
+            text.append(words[(int) (r * r * words.length)]);
+            if (random.nextInt(8) == 0) {
+                text.append(random.nextInt(1000));
+            }
+            text.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+        }
+        text.setLength(size);
+        return text.toString();
+    }
+
+    private static void measure(String name, String corpusName, Workload workload, String input, int seconds)
+            throws Exception {
+        measure(name, corpusName, workload, input, input.getBytes(StandardCharsets.UTF_8).length, seconds);
+    }
+
+    // Warms up for one period, then measures for another and prints one result row.
+    private static void measure(String name, String corpusName, Workload workload, String input,
+                                long inputBytes, int seconds) throws Exception {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long period = seconds * 1_000_000_000L;
+
+        // Warm-up: let the JIT compile the hot paths.
+        long end = System.nanoTime() + period;
+        while (System.nanoTime() < end) {
+            sink += workload.run(input);
+        }
+
+        // Measurement: time every operation.
+        long[] latencies = new long[1024];
+        int operations = 0;
+        long gcBefore = gcCount();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        end = start + period;
+        long now = start;
+        while (now < end || operations == 0) {
+            long before = System.nanoTime();
+            sink += workload.run(input);
+            now = System.nanoTime();
+            if (operations == latencies.length) {
+                latencies = Arrays.copyOf(latencies, operations * 2);
+            }
+            latencies[operations++] = now - before;
+        }
+        long elapsed = now - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        long gcs = gcCount() - gcBefore;
+
+        Arrays.sort(latencies, 0, operations);
+        double opsPerSecond = operations * 1e9 / elapsed;
+        double megabytesPerSecond = opsPerSecond * inputBytes / MB;
+
+        System.out.printf("%-32s %-12s %12.1f %10.1f %14d %6d %12s %12s%n",
+                name, corpusName, opsPerSecond, megabytesPerSecond, allocated / operations, gcs,
+                formatNanos(latencies[(int) (operations * 0.50)]),
+                formatNanos(latencies[Math.min(operations - 1, (int) (operations * 0.99))]));
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 10_000) {
+            return nanos + " ns";
+        } else if (nanos < 10_000_000) {
+            return nanos / 1000 + " us";
+        } else {
+            return nanos / 1_000_000 + " ms";
+        }
+    }
+}
@@ -0,0 +1,194 @@
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A streaming text analyzer. Text is fed to it in chunks of any size through
+ * accept(), and it keeps the same statistics as TextAnalysis (character count,
+ * word count, word and character frequencies, most common character) without
+ * ever holding the whole input in memory.
+ *
+ * Every statistic is kept up to date as the text arrives, so it can be queried
+ * at any moment: count(word), count(char), uniqueWords() and mostCommonChar()
+ * are O(1), and topK(k) is O(k) (the first call after merge() sorts the
+ * vocabulary once). The one exception is the last word of the text so far,
+ * which is only counted once a delimiter or finish() ends it.
+ *
+ * Memory use is bounded by the vocabulary (distinct words and characters),
+ * not by the size of the input. Counts live in primitive tables, and words
+ * come from a WordTokenizer that hands them over in a reusable char buffer,
+ * so counting a word that has been seen before allocates nothing.
+ */
+public class TextAnalyzer implements TextSink {
+
+    // Frequency of every lowercase word seen so far.
+    private final WordCountTable wordCounts = new WordCountTable();
+
+    // Frequency of every lowercase character seen so far.
+    private final CharCountTable charCounts = new CharCountTable();
+
+    // The words of wordCounts sorted by count, for topK().
+    private final WordRanking ranking = new WordRanking(wordCounts);
+
+    // Splits the text into lowercase words, counts them and keeps the ranking sorted.
+    private final WordTokenizer tokenizer = new WordTokenizer(
+            (chars, offset, length, hash) -> ranking.incremented(wordCounts.increment(chars, offset, length, hash)));
+
+    // A high surrogate waiting for the low surrogate that may start the next chunk.
+    private char pendingHighSurrogate = 0;
+
+    // Total number of characters (UTF-16 code units, the same as String.length()).
+    private long charCount = 0;
+
+    /**
+     * Feeds the next chunk of text to the analyzer.
+     * @param chunk The text to analyze. It may end in the middle of a word.
+     */
+    @Override
+    public void accept(CharSequence chunk) {
+        int length = chunk.length();
+        charCount += length;
+        for (int i = 0; i < length; i++) {
+            countChar(chunk.charAt(i));
+        }
+        tokenizer.accept(chunk);
+    }
+
+    /**
+     * Signals that there is no more input, so the last word can be counted.
+     * It is safe to call this more than once.
+     */
+    @Override
+    public void finish() {
+        tokenizer.finish();
+        if (pendingHighSurrogate != 0) {
+            charCounts.increment(pendingHighSurrogate);
+            pendingHighSurrogate = 0;
+        }
+    }
+
+    /**
+     * Adds the counts of another analyzer to this one. The other analyzer must
+     * have read the text that directly follows this analyzer's text, and the
+     * two parts must be split at a delimiter so that no word is cut in half.
+     * Both analyzers should have been finished.
+     * @param other The analyzer holding the following part of the text.
+     */
+    public void merge(TextAnalyzer other) {
+        charCount += other.charCount;
+        tokenizer.merge(other.tokenizer);
+        wordCounts.merge(other.wordCounts);
+        charCounts.merge(other.charCounts);
+        ranking.invalidate();   // sorted once, on the next topK()
+    }
+
+    // Counts one character in lowercase, just like TextAnalysis does. A surrogate
+    // pair is counted as one supplementary code point.
+    private void countChar(char c) {
+        if (pendingHighSurrogate != 0) {
+            char high = pendingHighSurrogate;
+            pendingHighSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                charCounts.incrementCodePoint(Character.toLowerCase(Character.toCodePoint(high, c)));
+                return;
+            }
+            // A lone high surrogate is counted on its own.
+            charCounts.increment(high);
+        }
+
+        if (Character.isHighSurrogate(c)) {
+            pendingHighSurrogate = c;
+        } else {
+            charCounts.increment(Character.toLowerCase(c));
+        }
+    }
+
+    // ============================
+    // QUERIES
+    // ============================
+
+    /**
+     * Returns how many times a word has appeared so far, ignoring case.
+     * @param word The word to look up.
+     * @return Its count.
+     */
+    public long count(String word) {
+        return wordCounts.get(word.toLowerCase());
+    }
+
+    /**
+     * Returns how many times a character has appeared so far, ignoring case.
+     * @param c The character to look up.
+     * @return Its count.
+     */
+    public long count(char c) {
+        return charCounts.get(Character.toLowerCase(c));
+    }
+
+    /**
+     * Returns how many times a code point has appeared so far, ignoring case.
+     * Use this for characters above U+FFFF, which do not fit in a char.
+     * @param codePoint The code point to look up.
+     * @return Its count.
+     */
+    public long countCodePoint(int codePoint) {
+        return charCounts.get(Character.toLowerCase(codePoint));
+    }
+
+    /**
+     * Returns the number of different words seen so far.
+     * @return The unique word count.
+     */
+    public long uniqueWords() {
+        return wordCounts.size();
+    }
+
+    /**
+     * Returns the most common character so far. On a tie the smallest code point wins.
+     * @return Its code point, or ' ' if nothing has been read.
+     */
+    public int mostCommonChar() {
+        return charCounts.mostCommon();
+    }
+
+    /**
+     * Returns the k most common words so far, most common first.
+     * @param k The number of words wanted.
+     * @return Up to k entries (word, count).
+     */
+    public List<Map.Entry<String, Long>> topK(int k) {
+        return ranking.topK(k);
+    }
+
+    // --- Getter Methods ---
+
+    public long getCharCount() {
+        return charCount;
+    }
+
+    /**
+     * Returns the word count with the same rules as input.split("[\\s\\p{Punct}]+").length,
+     * so the streaming mode prints exactly what the interactive mode would.
+     * @return The number of words.
+     */
+    public long getWordCount() {
+        return tokenizer.getWordCount();
+    }
+
+    /**
+     * Returns the number of non-empty words. Unlike getWordCount(), these add up
+     * across texts: an empty text has none.
+     * @return The number of words passed to the word table.
+     */
+    public long getTokenCount() {
+        return tokenizer.getTokenCount();
+    }
+
+    public WordCountTable getWordCounts() {
+        return wordCounts;
+    }
+
+    public CharCountTable getCharCounts() {
+        return charCounts;
+    }
+
+}
@@ -0,0 +1,504 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * A compact, read-only binary index of the word and character histograms of
+ * one text (or of a whole corpus, after merging). Queries such as "how often
+ * does this word appear" are answered from the index, without reading the
+ * original text again.
+ *
+ * File layout (all numbers are unsigned varints unless noted):
+ *   "TIDX", version byte
+ *   character count, word count (non-empty words only, so that the counts of
+ *   several indexes add up), number of distinct characters
+ *   per character: code point (as a delta from the previous one), count
+ *   number of distinct words
+ *   words in sorted order, grouped in blocks of 64. Each entry is:
+ *     length of the prefix shared with the previous word (0 at a block start),
+ *     length of the rest in UTF-8 bytes, those bytes, count
+ *   block offset table: one 4-byte offset per block
+ *   footer: 4-byte position of the offset table, 4-byte number of blocks
+ *
+ * Because the words are sorted, shared prefixes are stored only once, a word
+ * is found by a binary search over the blocks, and several indexes can be
+ * merged in one streaming pass. The file is memory-mapped when opened.
+ */
+public class TextIndex {
+
+    private static final byte[] MAGIC = {'T', 'I', 'D', 'X'};
+    private static final int VERSION = 1;
+
+    // Number of words per block. Every block starts with a complete word,
+    // so a lookup decodes at most this many entries.
+    private static final int BLOCK_SIZE = 64;
+
+    // Size of the footer at the very end of the file.
+    private static final int FOOTER_SIZE = 8;
+
+    private final ByteBuffer data;
+    private final long charCount;
+    private final long wordCount;
+    private final long uniqueWords;
+    private final int charSectionPosition;
+    private final int blockCount;
+    private final int offsetTablePosition;
+
+    private TextIndex(ByteBuffer data) throws IOException {
+        this.data = data;
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (data.get(i) != MAGIC[i]) {
+                throw new IOException("Not a text index file.");
+            }
+        }
+        if (data.get(MAGIC.length) != VERSION) {
+            throw new IOException("Unsupported text index version: " + data.get(MAGIC.length));
+        }
+
+        Reader reader = new Reader(data, MAGIC.length + 1);
+        charCount = reader.readVarLong();
+        wordCount = reader.readVarLong();
+        charSectionPosition = reader.position;
+
+        // Skip the character histogram to reach the word count.
+        long distinctChars = reader.readVarLong();
+        for (long i = 0; i < distinctChars; i++) {
+            reader.readVarLong();
+            reader.readVarLong();
+        }
+        uniqueWords = reader.readVarLong();
+
+        offsetTablePosition = data.getInt(data.limit() - FOOTER_SIZE);
+        blockCount = data.getInt(data.limit() - FOOTER_SIZE + 4);
+    }
+
+    // ============================
+    // OPENING AND QUERYING
+    // ============================
+
+    /**
+     * Opens an index file by memory-mapping it.
+     * @param path The index file.
+     * @return The opened index.
+     * @throws IOException If the file cannot be read or is not an index.
+     */
+    public static TextIndex open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new TextIndex(data);
+        }
+    }
+
+    public long charCount() {
+        return charCount;
+    }
+
+    // The number of non-empty words (an empty text has none, unlike String.split())
+    public long wordCount() {
+        return wordCount;
+    }
+
+    public long uniqueWords() {
+        return uniqueWords;
+    }
+
+    /**
+     * Looks up how often a word appears, with a binary search over the blocks.
+     * @param word The word to look up, in any case.
+     * @return Its count, or 0 if it does not appear.
+     */
+    public long count(String word) {
+        String target = word.toLowerCase();
+
+        // Find the last block whose first word is not after the target.
+        int low = 0;
+        int high = blockCount - 1;
+        int block = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            Cursor cursor = new Cursor(blockOffset(middle), 1);
+            cursor.next();
+            int comparison = cursor.word().compareTo(target);
+            if (comparison == 0) {
+                return cursor.count();
+            } else if (comparison < 0) {
+                block = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        if (block < 0) {
+            return 0;
+        }
+
+        // Scan the block.
+        long remaining = Math.min(BLOCK_SIZE, uniqueWords - (long) block * BLOCK_SIZE);
+        Cursor cursor = new Cursor(blockOffset(block), remaining);
+        while (cursor.next()) {
+            int comparison = cursor.word().compareTo(target);
+            if (comparison == 0) {
+                return cursor.count();
+            } else if (comparison > 0) {
+                break;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Looks up how often a character appears.
+     * @param c The character to look up, in any case.
+     * @return Its count.
+     */
+    public long count(char c) {
+        int target = Character.toLowerCase(c);
+        Reader reader = new Reader(data, charSectionPosition);
+        long distinctChars = reader.readVarLong();
+        int codePoint = 0;
+        for (long i = 0; i < distinctChars; i++) {
+            codePoint += (int) reader.readVarLong();
+            long count = reader.readVarLong();
+            if (codePoint == target) {
+                return count;
+            } else if (codePoint > target) {
+                break;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns a cursor over every word of the index in sorted order.
+     * @return A new cursor, positioned before the first word.
+     */
+    public Cursor words() {
+        return new Cursor(blockCount == 0 ? 0 : blockOffset(0), uniqueWords);
+    }
+
+    private int blockOffset(int block) {
+        return data.getInt(offsetTablePosition + block * 4);
+    }
+
+    /**
+     * Walks through the words of an index in sorted order, decoding the
+     * shared prefixes as it goes.
+     */
+    public class Cursor {
+        private final Reader reader;
+        private long remaining;
+        private char[] word = new char[32];
+        private int wordLength = 0;
+        private long count = 0;
+
+        Cursor(int position, long entries) {
+            this.reader = new Reader(data, position);
+            this.remaining = entries;
+        }
+
+        /**
+         * Moves to the next word.
+         * @return false if there are no more words.
+         */
+        public boolean next() {
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            int shared = (int) reader.readVarLong();
+            int suffixBytes = (int) reader.readVarLong();
+            String suffix = reader.readUtf8(suffixBytes);
+            wordLength = shared + suffix.length();
+            if (wordLength > word.length) {
+                word = Arrays.copyOf(word, Math.max(wordLength, word.length * 2));
+            }
+            suffix.getChars(0, suffix.length(), word, shared);
+            count = reader.readVarLong();
+            return true;
+        }
+
+        public String word() {
+            return new String(word, 0, wordLength);
+        }
+
+        public long count() {
+            return count;
+        }
+    }
+
+    // ============================
+    // WRITING
+    // ============================
+
+    /**
+     * Writes the index of a finished analyzer. The file is written under a
+     * temporary name and then moved into place, so a reader never sees half
+     * an index.
+     * @param path The index file to create.
+     * @param analyzer A finished analyzer.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(Path path, TextAnalyzer analyzer) throws IOException {
+        WordCountTable words = analyzer.getWordCounts();
+        Integer[] ids = new Integer[words.size()];
+        for (int id = 0; id < ids.length; id++) {
+            ids[id] = id;
+        }
+        Arrays.sort(ids, (a, b) -> words.word(a).compareTo(words.word(b)));
+
+        CharCountTable chars = analyzer.getCharCounts();
+        Path temporary = temporaryPath(path);
+        try (Writer writer = new Writer(Files.newOutputStream(temporary))) {
+            writer.writeHeader(analyzer.getCharCount(), analyzer.getTokenCount());
+            writer.writeChars(chars);
+            writer.startWords(words.size());
+            for (Integer id : ids) {
+                writer.writeWord(words.word(id), words.count(id));
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Merges several indexes into one, in a single streaming pass over their
+     * sorted dictionaries. The counts of words that appear in several indexes
+     * are added together.
+     * @param indexes The indexes to merge.
+     * @param path The merged index file to create.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void merge(List<TextIndex> indexes, Path path) throws IOException {
+        long charCount = 0;
+        long wordCount = 0;
+        CharCountTable chars = new CharCountTable();
+        for (TextIndex index : indexes) {
+            charCount += index.charCount;
+            wordCount += index.wordCount;
+            index.addCharsTo(chars);
+        }
+
+        // First pass: count the distinct words, since the count comes first in the file.
+        long uniqueWords = countUniqueWords(indexes);
+
+        Path temporary = temporaryPath(path);
+        try (Writer writer = new Writer(Files.newOutputStream(temporary))) {
+            writer.writeHeader(charCount, wordCount);
+            writer.writeChars(chars);
+            writer.startWords(uniqueWords);
+            mergeWords(indexes, writer::writeWord);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Counts the distinct words across several indexes without building any
+     * set in memory, by merging their sorted dictionaries.
+     * @param indexes The indexes to look at.
+     * @return The number of different words in the whole corpus.
+     * @throws IOException If an index cannot be read.
+     */
+    public static long countUniqueWords(List<TextIndex> indexes) throws IOException {
+        long[] unique = new long[1];
+        mergeWords(indexes, (word, count) -> unique[0]++);
+        return unique[0];
+    }
+
+    // Walks the sorted dictionaries of all indexes together (a k-way merge),
+    // passing each distinct word once with the sum of its counts.
+    private static void mergeWords(List<TextIndex> indexes, WriterSink sink) throws IOException {
+        PriorityQueue<MergeCursor> queue = new PriorityQueue<>((a, b) -> a.word.compareTo(b.word));
+        for (TextIndex index : indexes) {
+            MergeCursor cursor = new MergeCursor(index.words());
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            MergeCursor first = queue.poll();
+            String word = first.word;
+            long total = first.cursor.count();
+            if (first.advance()) {
+                queue.add(first);
+            }
+            while (!queue.isEmpty() && queue.peek().word.equals(word)) {
+                MergeCursor same = queue.poll();
+                total += same.cursor.count();
+                if (same.advance()) {
+                    queue.add(same);
+                }
+            }
+            sink.word(word, total);
+        }
+    }
+
+    /**
+     * Receives each distinct word of a merge with its total count.
+     */
+    private interface WriterSink {
+        void word(String word, long count) throws IOException;
+    }
+
+    // A cursor together with its current word, for the merge queue.
+    private static class MergeCursor {
+        private final Cursor cursor;
+        private String word;
+
+        MergeCursor(Cursor cursor) {
+            this.cursor = cursor;
+        }
+
+        boolean advance() {
+            if (!cursor.next()) {
+                return false;
+            }
+            word = cursor.word();
+            return true;
+        }
+    }
+
+    // Adds this index's character histogram to a table.
+    private void addCharsTo(CharCountTable chars) {
+        Reader reader = new Reader(data, charSectionPosition);
+        long distinctChars = reader.readVarLong();
+        int codePoint = 0;
+        for (long i = 0; i < distinctChars; i++) {
+            codePoint += (int) reader.readVarLong();
+            chars.add(codePoint, reader.readVarLong());
+        }
+    }
+
+    private static Path temporaryPath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".tmp");
+    }
+
+    // ============================
+    // ENCODING HELPERS
+    // ============================
+
+    /**
+     * Writes an index file front to back.
+     */
+    private static class Writer implements AutoCloseable {
+        private final DataOutputStream out;
+        private final List<Integer> blockOffsets = new ArrayList<>();
+        private String previousWord = "";
+        private long wordsWritten = 0;
+
+        Writer(OutputStream out) {
+            this.out = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        }
+
+        void writeHeader(long charCount, long wordCount) throws IOException {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            writeVarLong(charCount);
+            writeVarLong(wordCount);
+        }
+
+        void writeChars(CharCountTable chars) throws IOException {
+            int[] codePoints = chars.codePoints();
+            writeVarLong(codePoints.length);
+            int previous = 0;
+            for (int codePoint : codePoints) {
+                writeVarLong(codePoint - previous);
+                writeVarLong(chars.get(codePoint));
+                previous = codePoint;
+            }
+        }
+
+        void startWords(long uniqueWords) throws IOException {
+            writeVarLong(uniqueWords);
+        }
+
+        void writeWord(String word, long count) throws IOException {
+            int shared = 0;
+            if (wordsWritten % BLOCK_SIZE == 0) {
+                blockOffsets.add(out.size());
+            } else {
+                int max = Math.min(previousWord.length(), word.length());
+                while (shared < max && previousWord.charAt(shared) == word.charAt(shared)) {
+                    shared++;
+                }
+                // Never split a surrogate pair between the prefix and the suffix.
+                if (shared > 0 && Character.isHighSurrogate(word.charAt(shared - 1))) {
+                    shared--;
+                }
+            }
+            byte[] suffix = word.substring(shared).getBytes(StandardCharsets.UTF_8);
+            writeVarLong(shared);
+            writeVarLong(suffix.length);
+            out.write(suffix);
+            writeVarLong(count);
+            previousWord = word;
+            wordsWritten++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            int offsetTablePosition = out.size();
+            for (int offset : blockOffsets) {
+                out.writeInt(offset);
+            }
+            out.writeInt(offsetTablePosition);
+            out.writeInt(blockOffsets.size());
+            out.close();
+        }
+
+        // Writes 7 bits per byte, low bits first; the top bit means "more bytes follow".
+        private void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+    }
+
+    /**
+     * Reads varints and strings from an absolute position of a buffer,
+     * without changing the buffer's own position.
+     */
+    private static class Reader {
+        private final ByteBuffer data;
+        private int position;
+
+        Reader(ByteBuffer data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            while (true) {
+                byte b = data.get(position++);
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+                shift += 7;
+            }
+        }
+
+        String readUtf8(int length) {
+            byte[] bytes = new byte[length];
+            data.get(position, bytes);
+            position += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
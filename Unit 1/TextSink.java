@@ -0,0 +1,18 @@
+/**
+ * Something that consumes text one chunk at a time, such as TextAnalyzer or
+ * ApproximateTextAnalyzer. ChunkedTextReader feeds any TextSink.
+ */
+public interface TextSink {
+
+    /**
+     * Receives the next chunk of text. The chunk may end in the middle of a word,
+     * and it may be reused by the caller once this method returns.
+     * @param chunk The text.
+     */
+    void accept(CharSequence chunk);
+
+    /**
+     * Signals that there is no more text.
+     */
+    void finish();
+}
@@ -0,0 +1,247 @@
+import java.util.Arrays;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Counts words without boxing. This is an open-addressing hash table built
+ * from primitive arrays, so there is no entry object per word and no Integer
+ * per count.
+ *
+ * Every word gets a small id (0, 1, 2, ...) in the order it was first seen.
+ * The words and their counts are stored by id, and the hash table only maps
+ * a word to its id. Other structures, such as WordRanking, can use the ids to
+ * keep their own per-word data in plain arrays.
+ *
+ * Words can be looked up straight from a char[] buffer. The String key is only
+ * created the first time a word is seen; counting a word that is already in
+ * the table allocates nothing.
+ */
+public class WordCountTable {
+
+    // Number of hash slots a new table starts with. Always a power of two.
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Hash table: slot i holds (id + 1) of a word, or 0 if it is empty,
+    // together with the word's hash so most mismatches are rejected cheaply.
+    private int[] slots;
+    private int[] slotHashes;
+
+    // Words and counts, indexed by id.
+    private String[] words;
+    private long[] counts;
+
+    // Number of words in the table, which is also the next id to hand out.
+    private int size = 0;
+
+    public WordCountTable() {
+        slots = new int[INITIAL_CAPACITY];
+        slotHashes = new int[INITIAL_CAPACITY];
+        words = new String[INITIAL_CAPACITY / 2];
+        counts = new long[INITIAL_CAPACITY / 2];
+    }
+
+    /**
+     * Adds one to the count of a word.
+     * @param word The word to count.
+     * @return The id of the word.
+     */
+    public int increment(String word) {
+        return add(word, 1);
+    }
+
+    /**
+     * Adds an amount to the count of a word.
+     * @param word The word to count.
+     * @param amount The amount to add.
+     * @return The id of the word.
+     */
+    public int add(String word, long amount) {
+        int hash = word.hashCode();
+        int slot = findSlot(word, hash);
+        int id = slots[slot] - 1;
+        if (id < 0) {
+            id = insert(slot, word, hash);
+        }
+        counts[id] += amount;
+        return id;
+    }
+
+    /**
+     * Adds one to the count of the word held in chars[offset, offset + length).
+     * No object is created unless the word is new.
+     * @param chars The buffer holding the word.
+     * @param offset The index of the first character of the word.
+     * @param length The number of characters in the word.
+     * @return The id of the word.
+     */
+    public int increment(char[] chars, int offset, int length) {
+        return increment(chars, offset, length, hash(chars, offset, length));
+    }
+
+    /**
+     * Same as increment(char[], int, int), for callers that have already
+     * computed the hash while reading the word.
+     * @param hash The word's hash, equal to the hashCode() of the same String.
+     * @return The id of the word.
+     */
+    public int increment(char[] chars, int offset, int length, int hash) {
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (slotHashes[slot] == hash && matches(words[id], chars, offset, length)) {
+                counts[id]++;
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int id = insert(slot, new String(chars, offset, length), hash);
+        counts[id]++;
+        return id;
+    }
+
+    /**
+     * Returns how many times a word has been counted.
+     * @param word The word to look up.
+     * @return Its count, or 0 if it has never been seen.
+     */
+    public long get(String word) {
+        int id = indexOf(word);
+        return id < 0 ? 0 : counts[id];
+    }
+
+    /**
+     * Finds the id of a word.
+     * @param word The word to look up.
+     * @return Its id, or -1 if it has never been seen.
+     */
+    public int indexOf(String word) {
+        return slots[findSlot(word, word.hashCode())] - 1;
+    }
+
+    /**
+     * Returns the word with the given id.
+     * @param id An id between 0 and size() - 1.
+     * @return The word.
+     */
+    public String word(int id) {
+        return words[id];
+    }
+
+    /**
+     * Returns the count of the word with the given id.
+     * @param id An id between 0 and size() - 1.
+     * @return The count.
+     */
+    public long count(int id) {
+        return counts[id];
+    }
+
+    /**
+     * Returns the number of different words counted.
+     * @return The number of distinct words.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Calls the action once for every word and its count, in id order.
+     * @param action The action to run for each word.
+     */
+    public void forEach(ObjLongConsumer<String> action) {
+        for (int id = 0; id < size; id++) {
+            action.accept(words[id], counts[id]);
+        }
+    }
+
+    /**
+     * Adds all the counts of another table to this one.
+     * @param other The table to merge in.
+     */
+    public void merge(WordCountTable other) {
+        for (int id = 0; id < other.size; id++) {
+            add(other.words[id], other.counts[id]);
+        }
+    }
+
+    /**
+     * Computes the same hash as String.hashCode() over a slice of a char array.
+     * @return The hash of chars[offset, offset + length).
+     */
+    public static int hash(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        return hash;
+    }
+
+    // Linear probing: returns the slot holding the word, or the empty slot where it belongs.
+    private int findSlot(String word, int hash) {
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != 0 && !(slotHashes[slot] == hash && words[slots[slot] - 1].equals(word))) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Gives a new word the next id and puts it in an empty slot, growing the
+    // table first if it is half full. Returns the new id.
+    private int insert(int slot, String word, int hash) {
+        if ((size + 1) * 2 > slots.length) {
+            grow();
+            slot = findSlot(word, hash);
+        }
+        int id = size++;
+        if (id == words.length) {
+            words = Arrays.copyOf(words, id * 2);
+            counts = Arrays.copyOf(counts, id * 2);
+        }
+        words[id] = word;
+        slots[slot] = id + 1;
+        slotHashes[slot] = hash;
+        return id;
+    }
+
+    // Doubles the hash table and re-inserts every id. The words and counts stay where they are.
+    private void grow() {
+        int[] oldSlots = slots;
+        int[] oldHashes = slotHashes;
+
+        int capacity = oldSlots.length * 2;
+        slots = new int[capacity];
+        slotHashes = new int[capacity];
+
+        int mask = capacity - 1;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != 0) {
+                int slot = mix(oldHashes[i]) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = oldSlots[i];
+                slotHashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    // Spreads the bits of String.hashCode(), which are weak in the low bits for short words.
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    // Compares a stored word with a slice of a char array, character by character.
+    private static boolean matches(String word, char[] chars, int offset, int length) {
+        if (word.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (word.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,212 @@
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the words of a WordCountTable sorted by count, from most to least
+ * common, while the counts keep growing. The top k words can then be read at
+ * any moment in O(k), without sorting or scanning the whole vocabulary.
+ *
+ * The words are kept in one array ordered by count, so words with the same
+ * count form a block. When a word's count goes from c to c + 1, it is swapped
+ * with the first word of the block for c and then belongs to the block for
+ * c + 1, which is just in front. That keeps the array sorted in O(1) per word.
+ *
+ * After counts jump by more than one (a merge), the ranking is only marked out
+ * of date; it is sorted again on the next topK(), so a chain of merges costs a
+ * single sort.
+ */
+public class WordRanking {
+
+    // Counts below this limit remember where their block starts in an array.
+    // Higher counts (very common words in huge inputs) use a binary search.
+    private static final int BLOCK_TABLE_LIMIT = 1 << 16;
+
+    private final WordCountTable table;
+
+    // Word ids sorted by count, most common first, and the position of each id.
+    private int[] order = new int[64];
+    private int[] positions = new int[64];
+    private int size = 0;
+
+    // blockStart[c] is the position of the first word whose count is c.
+    // Only valid while at least one word has that count.
+    private int[] blockStart = new int[64];
+
+    // Set by invalidate(): order no longer matches the counts until the next sort.
+    private boolean stale = false;
+
+    /**
+     * Creates a ranking for the words of a table and sorts the words it already holds.
+     * @param table The table whose counts are ranked.
+     */
+    public WordRanking(WordCountTable table) {
+        this.table = table;
+        rebuild();
+    }
+
+    /**
+     * Updates the ranking after the count of one word went up by exactly one.
+     * @param id The id of the word that was just counted.
+     */
+    public void incremented(int id) {
+        if (stale) {
+            return;   // the next sort sees the new count
+        }
+        if (id == size) {
+            // A new word: count 1, so it goes at the very end.
+            add(id);
+            return;
+        }
+
+        long newCount = table.count(id);
+        long oldCount = newCount - 1;
+
+        // Swap the word with the first word of its block...
+        int position = positions[id];
+        int first = blockStart(oldCount, id);
+        int other = order[first];
+        order[first] = id;
+        order[position] = other;
+        positions[id] = first;
+        positions[other] = position;
+
+        // ...so the block for the old count now starts one place later,
+        // and the word is the last one of the block for the new count.
+        setBlockStart(oldCount, first + 1);
+        if (first == 0 || table.count(order[first - 1]) != newCount) {
+            setBlockStart(newCount, first);
+        }
+    }
+
+    /**
+     * Marks the ranking out of date. Use this after counts changed by more than
+     * one at a time, for example after WordCountTable.merge(); the words are
+     * sorted again when topK() is next called.
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    // Sorts every word of the table again.
+    private void rebuild() {
+        size = 0;
+        int words = table.size();
+        ensureCapacity(words);
+        sortIdsByCount(words);
+
+        for (int i = 0; i < words; i++) {
+            int id = order[i];
+            positions[id] = i;
+            if (i == 0 || table.count(order[i - 1]) != table.count(id)) {
+                setBlockStart(table.count(id), i);
+            }
+        }
+        size = words;
+        stale = false;
+    }
+
+    // Fills order with the ids 0..words-1, most common first. Each id is packed
+    // with its count into one long, so a primitive sort does the work without
+    // boxing. A count that needs more than 32 bits falls back to a comparator.
+    private void sortIdsByCount(int words) {
+        long maxCount = 0;
+        for (int id = 0; id < words; id++) {
+            maxCount = Math.max(maxCount, table.count(id));
+        }
+        if (maxCount >>> 32 == 0) {
+            // Ascending keys: (maxCount - count) in the high half, the id in the low half.
+            long[] keys = new long[words];
+            for (int id = 0; id < words; id++) {
+                keys[id] = (maxCount - table.count(id)) << 32 | id;
+            }
+            Arrays.sort(keys);
+            for (int i = 0; i < words; i++) {
+                order[i] = (int) keys[i];
+            }
+            return;
+        }
+        Integer[] ids = new Integer[words];
+        for (int id = 0; id < words; id++) {
+            ids[id] = id;
+        }
+        Arrays.sort(ids, (a, b) -> Long.compare(table.count(b), table.count(a)));
+        for (int i = 0; i < words; i++) {
+            order[i] = ids[i];
+        }
+    }
+
+    /**
+     * Returns the k most common words with their counts. Words with the same
+     * count are returned in no particular order.
+     * @param k The number of words wanted.
+     * @return Up to k entries (word, count), most common first.
+     */
+    public List<Map.Entry<String, Long>> topK(int k) {
+        if (stale) {
+            rebuild();
+        }
+        int n = Math.min(k, size);
+        List<Map.Entry<String, Long>> top = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int id = order[i];
+            top.add(new AbstractMap.SimpleImmutableEntry<>(table.word(id), table.count(id)));
+        }
+        return top;
+    }
+
+    // Appends a new word with count 1 to the end of the order.
+    private void add(int id) {
+        ensureCapacity(size + 1);
+        order[size] = id;
+        positions[id] = size;
+        if (size == 0 || table.count(order[size - 1]) != 1) {
+            setBlockStart(1, size);
+        }
+        size++;
+    }
+
+    // Finds where the block of words with this count starts. The word 'id' has
+    // just been counted, so the table already holds its new count; it is
+    // treated as still having the old one.
+    private int blockStart(long count, int id) {
+        if (count < blockStart.length) {
+            return blockStart[(int) count];
+        }
+        // Binary search for the first position whose count is not above 'count'.
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            long middleCount = order[middle] == id ? count : table.count(order[middle]);
+            if (middleCount > count) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Remembers where a block starts, if the count is small enough to have a table entry.
+    private void setBlockStart(long count, int position) {
+        if (count >= blockStart.length) {
+            if (count >= BLOCK_TABLE_LIMIT) {
+                return;
+            }
+            blockStart = Arrays.copyOf(blockStart, (int) Math.min(BLOCK_TABLE_LIMIT, Math.max(count + 1, blockStart.length * 2L)));
+        }
+        blockStart[(int) count] = position;
+    }
+
+    // Makes room for at least 'capacity' words.
+    private void ensureCapacity(int capacity) {
+        if (capacity > order.length) {
+            int newLength = Math.max(capacity, order.length * 2);
+            order = Arrays.copyOf(order, newLength);
+            positions = Arrays.copyOf(positions, newLength);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * A hand-written replacement for input.split("[\\s\\p{Punct}]+") followed by
+ * word.toLowerCase().
+ *
+ * The text is scanned once. Each character is classified with a lookup table,
+ * lowercased and added to the hash as it is read, and the finished word is
+ * handed to a TokenSink straight from a reusable buffer. No regular expression,
+ * String[] or substring is created, so a WordCountTable sink only allocates
+ * when it meets a word for the first time.
+ *
+ * Input may arrive in several chunks; a word cut by a chunk boundary is joined
+ * back together.
+ */
+public class WordTokenizer {
+
+    /**
+     * Receives each lowercase word. The buffer is reused for the next word, so
+     * the sink must copy it if it wants to keep it.
+     */
+    public interface TokenSink {
+        void token(char[] chars, int offset, int length, int hash);
+    }
+
+    // Character classes for the ASCII lookup table.
+    private static final byte LETTER = 0;
+    private static final byte DELIMITER = 1;
+
+    // Class of every ASCII character. \s is [ \t\n\x0B\f\r] and \p{Punct} is
+    // the 32 ASCII punctuation characters; nothing outside ASCII is a delimiter.
+    private static final byte[] CHAR_CLASS = new byte[128];
+
+    // Lowercase form of every ASCII character.
+    private static final char[] ASCII_LOWER = new char[128];
+
+    static {
+        for (char c = 0; c < 128; c++) {
+            boolean whitespace = c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+            boolean punctuation = (c >= '!' && c <= '/') || (c >= ':' && c <= '@')
+                    || (c >= '[' && c <= '`') || (c >= '{' && c <= '~');
+            CHAR_CLASS[c] = whitespace || punctuation ? DELIMITER : LETTER;
+            ASCII_LOWER[c] = (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+        }
+    }
+
+    private final TokenSink sink;
+
+    // String.toLowerCase() treats 'I' differently in Turkish, Azerbaijani and
+    // Lithuanian, so the per-character rules are only used for other locales.
+    private final boolean perCharLowercase;
+
+    // The word being read: lowercased, and as it appeared in the input.
+    private char[] lower = new char[32];
+    private char[] raw = new char[32];
+    private int length = 0;
+
+    // String.hashCode() of the lowercased word so far.
+    private int hash = 0;
+
+    // True if the word contains a character whose lowercase form depends on
+    // its neighbours or changes its length (final sigma, dotted capital I,
+    // surrogate pairs). Such words are lowercased by String instead.
+    private boolean needsStringLowercase = false;
+
+    // Split bookkeeping, so getWordCount() can match String.split().length.
+    private long tokenCount = 0;
+    private boolean sawInput = false;
+    private boolean startsWithDelimiter = false;
+
+    /**
+     * Creates a tokenizer.
+     * @param sink Receives every lowercase word in order.
+     */
+    public WordTokenizer(TokenSink sink) {
+        this.sink = sink;
+        String language = Locale.getDefault().getLanguage();
+        this.perCharLowercase = !(language.equals("tr") || language.equals("az") || language.equals("lt"));
+    }
+
+    /**
+     * Checks whether a character separates words.
+     * @param c The character to check.
+     * @return true for ASCII whitespace and ASCII punctuation.
+     */
+    public static boolean isDelimiter(char c) {
+        return c < 128 && CHAR_CLASS[c] == DELIMITER;
+    }
+
+    /**
+     * Splits the next chunk of text into words.
+     * @param chunk The text. It may end in the middle of a word.
+     */
+    public void accept(CharSequence chunk) {
+        int chunkLength = chunk.length();
+        if (chunkLength == 0) {
+            return;
+        }
+        if (!sawInput) {
+            sawInput = true;
+            startsWithDelimiter = isDelimiter(chunk.charAt(0));
+        }
+
+        for (int i = 0; i < chunkLength; i++) {
+            char c = chunk.charAt(i);
+
+            if (c < 128) {
+                if (CHAR_CLASS[c] == DELIMITER) {
+                    endToken();
+                    continue;
+                }
+                append(c, perCharLowercase ? ASCII_LOWER[c] : c);
+                if (!perCharLowercase) {
+                    needsStringLowercase = true;
+                }
+            } else if (perCharLowercase && c != '\u03A3' && c != '\u0130' && !Character.isSurrogate(c)) {
+                append(c, Character.toLowerCase(c));
+            } else {
+                append(c, c);
+                needsStringLowercase = true;
+            }
+        }
+    }
+
+    /**
+     * Signals the end of the input, so the last word is passed to the sink.
+     */
+    public void finish() {
+        endToken();
+    }
+
+    /**
+     * Returns the number of words, following the same rules as
+     * input.split("[\\s\\p{Punct}]+").length: a leading delimiter produces an
+     * empty first word, empty input is one (empty) word, and input made only of
+     * delimiters has no words at all.
+     * @return The word count.
+     */
+    public long getWordCount() {
+        if (tokenCount == 0) {
+            return sawInput ? 0 : 1;
+        }
+        return tokenCount + (startsWithDelimiter ? 1 : 0);
+    }
+
+    /**
+     * Returns the number of non-empty words passed to the sink.
+     * @return The token count.
+     */
+    public long getTokenCount() {
+        return tokenCount;
+    }
+
+    /**
+     * Returns whether the first character of the input was a delimiter.
+     * @return true if String.split() would produce a leading empty word.
+     */
+    public boolean startsWithDelimiter() {
+        return startsWithDelimiter;
+    }
+
+    /**
+     * Adds the counts of a tokenizer that read the text following this one's.
+     * The two texts must be split at a delimiter. Both must be finished.
+     * @param other The tokenizer that read the following text.
+     */
+    public void merge(WordTokenizer other) {
+        if (!sawInput) {
+            sawInput = other.sawInput;
+            startsWithDelimiter = other.startsWithDelimiter;
+        }
+        tokenCount += other.tokenCount;
+    }
+
+    // Adds one character to the current word and to its hash.
+    private void append(char original, char lowercase) {
+        if (length == lower.length) {
+            lower = Arrays.copyOf(lower, length * 2);
+            raw = Arrays.copyOf(raw, length * 2);
+        }
+        raw[length] = original;
+        lower[length] = lowercase;
+        length++;
+        hash = 31 * hash + lowercase;
+    }
+
+    // Passes the current word, if any, to the sink and starts a new one.
+    private void endToken() {
+        if (length == 0) {
+            return;
+        }
+        if (needsStringLowercase) {
+            // Rare case: let String apply the full Unicode rules to the original text.
+            String word = new String(raw, 0, length).toLowerCase();
+            char[] chars = word.toCharArray();
+            sink.token(chars, 0, chars.length, word.hashCode());
+        } else {
+            sink.token(lower, 0, length, hash);
+        }
+        tokenCount++;
+        length = 0;
+        hash = 0;
+        needsStringLowercase = false;
+    }
+}
@@ -1,5 +1,6 @@
 import com.ecommerce.Product;
 import com.ecommerce.Customer;
+import com.ecommerce.ProductCatalog;
 import com.ecommerce.orders.Order;
 
 /**
@@ -19,6 +20,14 @@ public class Main {
         System.out.println(mouse);
         System.out.println(keyboard);
 
+        // Register the products in a catalog to look them up by ID and by price
+        ProductCatalog catalog = new ProductCatalog(1000);
+        catalog.addProduct(laptop);
+        catalog.addProduct(mouse);
+        catalog.addProduct(keyboard);
+        System.out.println("\nProduct with ID P003: " + catalog.getProduct("P003").getName());
+        System.out.println("Products between $10 and $100: " + catalog.findByPriceRange(10, 100).size());
+
         // Create a customer
         Customer alice = new Customer("C001", "Alice");
 
@@ -26,7 +35,7 @@ public class Main {
         alice.addProductToCart(mouse, laptop);
 
         // Display the customer's cart
-        System.out.println("\n" + alice.getName() + "'s cart contains " + alice.getShoppingCart().size() + " items.");
+        System.out.println("\n" + alice.getName() + "'s cart contains " + alice.getCartItemCount() + " items.");
         System.out.println("Cart total before placing order: $" + String.format("%.2f", alice.calculateCartTotal()));
 
         // 3. Place a valid order
@@ -0,0 +1,111 @@
+import com.ecommerce.Customer;
+import com.ecommerce.Product;
+import com.ecommerce.orders.Order;
+import com.ecommerce.orders.OrderIntakeEngine;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Simulates a flash sale against the OrderIntakeEngine: many threads fill carts and check out
+ * at the same time. It then checks that every cart became exactly one order with a unique ID,
+ * even when the same cart was submitted twice, and prints the engine's metrics.
+ *
+ * Usage: java OrderIntakeBenchmark [threads] [checkoutsPerThread]
+ */
+public class OrderIntakeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int checkoutsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 250_000;
+
+        Product[] products = {
+                new Product("P001", "Laptop", 1200.00),
+                new Product("P002", "Wireless Mouse", 10.00),
+                new Product("P003", "Mechanical Keyboard", 75.00)
+        };
+
+        // The cart methods print a line per product; keep the console quiet during the run
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        List<List<CompletableFuture<Order>>> results = new ArrayList<>();
+        OrderIntakeEngine engine = new OrderIntakeEngine(65_536, 4096, "ORD-");
+        try {
+            List<Thread> producers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int number = t;
+                List<CompletableFuture<Order>> futures = new ArrayList<>(checkoutsPerThread * 11 / 10);
+                results.add(futures);
+                producers.add(new Thread(() -> {
+                    for (int i = 0; i < checkoutsPerThread; i++) {
+                        Customer customer = new Customer("C" + number + "-" + i, "Customer " + i);
+                        customer.addProductToCart(products[i % 3], products[(i + 1) % 3]);
+                        futures.add(engine.submit(customer));
+                        // Every 10th customer double-clicks "checkout": only one order may result
+                        if (i % 10 == 0) {
+                            futures.add(engine.submit(customer));
+                        }
+                    }
+                }));
+            }
+            long start = System.nanoTime();
+            for (Thread producer : producers) {
+                producer.start();
+            }
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            engine.close();
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.setOut(console);
+            verify(results, threads * checkoutsPerThread);
+            System.out.printf("%d producer threads, %,d checkouts in %.2f s%n", threads, engine.getSubmittedCount(), seconds);
+            System.out.println(engine.generateMetricsSummary());
+        } finally {
+            engine.close();
+            System.setOut(console);
+        }
+    }
+
+    // Every customer must have exactly one order, every order a unique ID and the right total
+    private static void verify(List<List<CompletableFuture<Order>>> results, int customers)
+            throws InterruptedException {
+        Set<String> orderIDs = new HashSet<>();
+        Set<String> customersWithOrders = new HashSet<>();
+        int rejected = 0;
+        for (List<CompletableFuture<Order>> futures : results) {
+            for (CompletableFuture<Order> future : futures) {
+                try {
+                    Order order = future.get();
+                    if (!orderIDs.add(order.getOrderID())) {
+                        throw new AssertionError("Duplicate order ID " + order.getOrderID());
+                    }
+                    if (!customersWithOrders.add(order.getCustomer().getCustomerID())) {
+                        throw new AssertionError("Two orders for " + order.getCustomer().getCustomerID());
+                    }
+                    long expected = 0;
+                    for (Product product : order.getProducts()) {
+                        expected += product.getPriceCents();
+                    }
+                    if (order.getProducts().size() != 2 || order.getOrderTotalCents() != expected) {
+                        throw new AssertionError("Wrong order contents in " + order.getOrderID());
+                    }
+                } catch (ExecutionException e) {
+                    rejected++;
+                }
+            }
+        }
+        if (customersWithOrders.size() != customers) {
+            throw new AssertionError(customers - customersWithOrders.size() + " customers got no order");
+        }
+        System.out.printf("Verified: %,d orders, one per customer, all IDs unique; %,d duplicate checkouts rejected%n",
+                orderIDs.size(), rejected);
+    }
+}
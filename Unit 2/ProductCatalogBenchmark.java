@@ -0,0 +1,130 @@
+import com.ecommerce.Product;
+import com.ecommerce.ProductCatalog;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Loads a ProductCatalog with millions of products and measures what the storefront does with it:
+ * loading, lookups by ID, price range queries, and price changes from several threads at once
+ * while range queries run. It then checks that the price index still matches every product.
+ *
+ * Usage: java -Xmx4g ProductCatalogBenchmark [products] [threads]
+ * (10 million products need about 3 GB of heap)
+ */
+public class ProductCatalogBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int productCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+        // --- Loading ---
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        ProductCatalog catalog = new ProductCatalog(productCount);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < productCount; i++) {
+            // Prices from $1.00 to $1,000.00
+            catalog.addProduct(Product.ofCents(productID(i), "Product " + i, 100 + random.nextInt(99_901)));
+        }
+        double loadSeconds = (System.nanoTime() - start) / 1e9;
+        long heapAfter = usedHeap();
+        System.out.printf("Loaded %,d products in %.2f s (%,.0f per second), about %d bytes each%n",
+                catalog.size(), loadSeconds, productCount / loadSeconds, (heapAfter - heapBefore) / productCount);
+
+        // --- Lookups by ID ---
+        int lookups = 5_000_000;
+        long found = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            if (catalog.getProduct(productID(random.nextInt(productCount))) != null) {
+                found++;
+            }
+        }
+        System.out.printf("Lookup by ID:              %8.0f ns each (%,d found)%n",
+                (System.nanoTime() - start) / (double) lookups, found);
+
+        // --- Price range queries ---
+        int queries = 100_000;
+        long returned = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            double min = 10 + random.nextInt(900);
+            returned += catalog.findByPriceRange(min, min + 90, 50).size();
+        }
+        System.out.printf("First 50 in a $90 range:   %8.0f ns each (%,d products returned)%n",
+                (System.nanoTime() - start) / (double) queries, returned);
+
+        start = System.nanoTime();
+        int between = catalog.countByPriceRange(10, 100);
+        System.out.printf("Count from $10 to $100:    %8.1f ms (%,d products)%n",
+                (System.nanoTime() - start) / 1e6, between);
+
+        // --- Concurrent price changes while queries run ---
+        int updatesPerThread = Math.max(1, productCount / 10 / threads);
+        List<Thread> updaters = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom threadRandom = random.split();
+            updaters.add(new Thread(() -> {
+                for (int i = 0; i < updatesPerThread; i++) {
+                    Product product = catalog.getProduct(productID(threadRandom.nextInt(productCount)));
+                    product.setPrice((100 + threadRandom.nextInt(99_901)) / 100.0);
+                }
+            }));
+        }
+        long[] concurrentQueries = {0};
+        Thread reader = new Thread(() -> {
+            SplittableRandom readerRandom = new SplittableRandom(7);
+            while (!Thread.currentThread().isInterrupted()) {
+                double min = 10 + readerRandom.nextInt(900);
+                catalog.findByPriceRange(min, min + 90, 50);
+                concurrentQueries[0]++;
+            }
+        });
+        start = System.nanoTime();
+        reader.start();
+        for (Thread updater : updaters) {
+            updater.start();
+        }
+        for (Thread updater : updaters) {
+            updater.join();
+        }
+        double updateSeconds = (System.nanoTime() - start) / 1e9;
+        reader.interrupt();
+        reader.join();
+        long updates = (long) updatesPerThread * threads;
+        System.out.printf("Price changes:             %,d by %d threads in %.2f s (%,.0f per second), "
+                        + "%,d range queries meanwhile%n",
+                updates, threads, updateSeconds, updates / updateSeconds, concurrentQueries[0]);
+
+        verify(catalog, productCount, random);
+    }
+
+    // Every product must be in the index exactly once, at its current price
+    private static void verify(ProductCatalog catalog, int productCount, SplittableRandom random) {
+        int indexed = catalog.countByPriceRange(0, 1_000_000);
+        if (indexed != catalog.size()) {
+            throw new AssertionError(indexed + " products in the price index, " + catalog.size() + " in the catalog");
+        }
+        for (int i = 0; i < 100_000; i++) {
+            Product product = catalog.getProduct(productID(random.nextInt(productCount)));
+            if (!catalog.findByPriceRange(product.getPrice(), product.getPrice()).contains(product)) {
+                throw new AssertionError(product + " is not indexed at its price");
+            }
+        }
+        System.out.printf("Verified: all %,d products indexed once, sampled products at their current price%n", indexed);
+    }
+
+    private static String productID(int number) {
+        return "P" + number;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,28 @@
+package com.ecommerce;
+import java.util.List;
+
+/**
+ * The contents of a cart at the moment it was checked out: the products (one entry per unit)
+ * and their exact total in cents, taken together so they always agree.
+ */
+public class CartCheckout {
+    private final List<Product> products;
+    private final long totalCents;
+
+    public CartCheckout(List<Product> products, long totalCents) {
+        this.products = products;
+        this.totalCents = totalCents;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    public long getTotalCents() {
+        return totalCents;
+    }
+
+    public boolean isEmpty() {
+        return products.isEmpty();
+    }
+}
@@ -1,22 +1,78 @@
 package com.ecommerce;
 import com.ecommerce.orders.Order;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Represents a customer with a shopping cart in the e-commerce system.
+ * The cart methods are synchronized, so several threads (e.g. checkout requests during a
+ * sale) can use the same customer safely.
+ *
+ * The cart keeps one line per product with its quantity and the unit price the total was
+ * last computed with, and a running total in cents that is updated on every change. Each line
+ * listens to its product's price while the product is in the cart and flags the change;
+ * reading the total only rescans the cart when one of its own products has changed price,
+ * so it is O(1) otherwise. Changing a price sets two flags per cart that holds the product,
+ * and costs nothing for the other carts. The products hold the lines, which only weakly refer
+ * to the customer, so a dropped customer is still garbage collected (its lines go at their
+ * product's next price change).
  */
 
 public class Customer {
     private String customerID;
     private String name;
-    private List<Product> shoppingCart;
+
+    // One line per product, in the order the products were first added
+    private final Map<Product, CartLine> shoppingCart = new LinkedHashMap<>();
+    private int cartItemCount = 0;
+    private long cartTotalCents = 0;
+
+    // Set when the price of a product in the cart changes; null while the cart is empty, so a
+    // customer whose order has been placed keeps nothing for it
+    private PriceChanges priceChanges;
+
+    // Shared by the lines of one cart. Only weakly refers to the customer: the products hold
+    // the lines, and must not keep a dropped customer alive
+    private static final class PriceChanges extends WeakReference<Customer> {
+        volatile boolean any;
+
+        PriceChanges(Customer customer) {
+            super(customer);
+        }
+    }
+
+    // A product in the cart: how many units, at the price the total currently includes.
+    // The line listens to its product's price while it is in the cart. It is called with the
+    // product's lock held, so it only sets flags and never takes the customer's lock (that
+    // would deadlock with a cart method changing the product's listeners)
+    private static final class CartLine implements PriceListener {
+        final PriceChanges cart;
+        int quantity;
+        long unitPriceCents;
+        volatile boolean priceChanged;
+
+        CartLine(PriceChanges cart) {
+            this.cart = cart;
+        }
+
+        @Override
+        public void priceChanged(Product product, long oldPriceCents, long newPriceCents) {
+            if (cart.get() == null) {
+                product.removePriceListener(this);   // the customer was dropped with a full cart
+            } else {
+                priceChanged = true;
+                cart.any = true;
+            }
+        }
+    }
 
 
     public Customer (String customerID, String name) {
         this.customerID = customerID;
         this.name = name;
-        this.shoppingCart = new ArrayList<>();
     }
 
 
@@ -29,31 +85,78 @@ public class Customer {
         return name;
     }
 
-    public List<Product> getShoppingCart() {
-        return shoppingCart;
+    /**
+     * Returns a copy of the cart with one entry per unit
+     * (a product with quantity 3 appears three times).
+     * @return The products in the cart.
+     */
+    public synchronized List<Product> getShoppingCart() {
+        List<Product> products = new ArrayList<>(cartItemCount);
+        for (Map.Entry<Product, CartLine> entry : shoppingCart.entrySet()) {
+            for (int i = 0; i < entry.getValue().quantity; i++) {
+                products.add(entry.getKey());
+            }
+        }
+        return products;
+    }
+
+    // The number of units in the cart
+    public synchronized int getCartItemCount() {
+        return cartItemCount;
+    }
+
+    // The number of units of one product in the cart
+    public synchronized int getCartQuantity(Product product) {
+        CartLine line = shoppingCart.get(product);
+        return line == null ? 0 : line.quantity;
     }
 
 
 /**
- * Adds products to the customer's shopping cart.
+ * Adds products to the customer's shopping cart, one unit each.
  * @param products The product to add.
  */
 
-    public void addProductToCart(Product... products) {
+    public synchronized void addProductToCart(Product... products) {
         for (Product product : products) {
-            this.shoppingCart.add(product);
+            addUnits(product, 1);
             System.out.println(product.getName() + " added to " + this.name + "'s cart.");
         }
     }
 
 /**
- * Removes a product from the customer's shopping cart.
+ * Adds several units of one product to the customer's shopping cart.
+ * @param product The product to add.
+ * @param quantity The number of units (at least 1).
+ */
+
+    public synchronized void addProductToCart(Product product, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("The quantity must be positive: " + quantity);
+        }
+        addUnits(product, quantity);
+        System.out.println(quantity + " x " + product.getName() + " added to " + this.name + "'s cart.");
+    }
+
+/**
+ * Removes one unit of a product from the customer's shopping cart.
  * @param product The product to remove.
  */
 
 
-   public void removeProductFromCart (Product product) {
-       if (this.shoppingCart.remove(product)) {
+   public synchronized void removeProductFromCart (Product product) {
+       CartLine line = this.shoppingCart.get(product);
+       if (line != null) {
+           line.quantity--;
+           cartItemCount--;
+           cartTotalCents -= line.unitPriceCents;
+           if (line.quantity == 0) {
+               this.shoppingCart.remove(product);
+               product.removePriceListener(line);
+               if (shoppingCart.isEmpty()) {
+                   priceChanges = null;
+               }
+           }
            System.out.println(product.getName() + " remove from " + this.name + "'s cart.");
        } else {
            System.out.println(product.getName() + " was not found in " + this.name + "'s cart.");
@@ -62,16 +165,40 @@ public class Customer {
 
 
     /**
-     * Calculates the total cost of all products in the shopping cart.
+     * Returns the total cost of all products in the shopping cart, at their current prices.
+     * The total is kept up to date as the cart changes, so this only visits the lines whose
+     * price has changed since the last call.
      * @return The total cost as a double.
      */
 
-    public double calculateCartTotal() {
-        double total = 0.0;
-        for (Product product : shoppingCart) {
-            total += product.getPrice();
+    public synchronized double calculateCartTotal() {
+        return getCartTotalCents() / 100.0;
+    }
+
+    // The exact total cost of the cart in cents
+    public synchronized long getCartTotalCents() {
+        updatePrices();
+        return cartTotalCents;
+    }
+
+
+    /**
+     * Takes everything out of the cart in one atomic step: the products and their total are
+     * returned and the cart is left empty. Two checkouts of the same cart can therefore never
+     * both get the products (no duplicate orders).
+     * @return The products that were in the cart, one entry per unit, and their total
+     *         (empty if the cart was empty).
+     */
+    public synchronized CartCheckout takeCartForCheckout() {
+        CartCheckout checkout = new CartCheckout(getShoppingCart(), getCartTotalCents());
+        for (Map.Entry<Product, CartLine> entry : shoppingCart.entrySet()) {
+            entry.getKey().removePriceListener(entry.getValue());
         }
-        return total;
+        priceChanges = null;
+        shoppingCart.clear();
+        cartItemCount = 0;
+        cartTotalCents = 0;
+        return checkout;
     }
 
 
@@ -80,22 +207,57 @@ public class Customer {
      * @return The newly created Order object, or null if the cart is empty.
      */
     public Order placeOrder(String orderID) {
-        if (this.shoppingCart.isEmpty()) {
+        // Take the products and clear the cart in one step
+        CartCheckout checkout = takeCartForCheckout();
+        if (checkout.isEmpty()) {
             System.out.println("Error: The shopping cart is empty. Please add products before placing an order.");
             return null;
         }
 
         // Create a new order
-        Order newOrder = new Order(orderID, this, new ArrayList<>(this.shoppingCart), this.calculateCartTotal());
-
-        // Clear the cart after placing the order
-        this.shoppingCart.clear();
+        Order newOrder = Order.withTotalCents(orderID, this, checkout.getProducts(), checkout.getTotalCents());
         System.out.println("Order " + orderID + " placed successfully! The cart has been cleared.");
 
         return newOrder;
     }
 
 
+    // Adds units to the product's line, creating the line on first use
+    private void addUnits(Product product, int quantity) {
+        CartLine line = shoppingCart.get(product);
+        if (line == null) {
+            if (priceChanges == null) {
+                priceChanges = new PriceChanges(this);
+            }
+            line = new CartLine(priceChanges);
+            // Listen before reading the price, so a change after the read is noted
+            product.addPriceListener(line);
+            line.unitPriceCents = product.getPriceCents();
+            shoppingCart.put(product, line);
+        }
+        line.quantity += quantity;
+        cartItemCount += quantity;
+        cartTotalCents += quantity * line.unitPriceCents;
+    }
+
+    // Moves the lines whose product's price has changed to the new price; nothing to do
+    // unless a product in this cart has changed price since the last call
+    private void updatePrices() {
+        if (priceChanges == null || !priceChanges.any) {
+            return;
+        }
+        // Clear the flags before reading the prices: a change made after a read sets them again
+        priceChanges.any = false;
+        for (Map.Entry<Product, CartLine> entry : shoppingCart.entrySet()) {
+            CartLine line = entry.getValue();
+            if (line.priceChanged) {
+                line.priceChanged = false;
+                long priceCents = entry.getKey().getPriceCents();
+                cartTotalCents += line.quantity * (priceCents - line.unitPriceCents);
+                line.unitPriceCents = priceCents;
+            }
+        }
+    }
 
 
     /**
@@ -103,8 +265,8 @@ public class Customer {
      * @return A formatted string with customer details.
      */
     @Override
-    public String toString() {
-        return "Customer [ID=" + customerID + ", Name=" + name + ", Items in cart: " + shoppingCart.size() + "]";
+    public synchronized String toString() {
+        return "Customer [ID=" + customerID + ", Name=" + name + ", Items in cart: " + cartItemCount + "]";
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.ecommerce;
+
+/**
+ * Receives price changes of a Product, e.g. to keep a price index or a cart total up to date.
+ * Listeners are called by the thread that changed the price, one change at a time per product.
+ */
+public interface PriceListener {
+
+    /**
+     * Called after a product's price has changed.
+     * @param product The product whose price changed.
+     * @param oldPriceCents The previous price in cents.
+     * @param newPriceCents The new price in cents.
+     */
+    void priceChanged(Product product, long oldPriceCents, long newPriceCents);
+}
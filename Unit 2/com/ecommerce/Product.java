@@ -1,13 +1,26 @@
 package com.ecommerce;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * Represents a product available for purchase in the e-commerce system.
+ * The price is stored exactly, as a whole number of cents; the double getters and setters
+ * convert to and from dollars. Price changes are reported to PriceListeners, such as the
+ * catalog that indexes the product and the carts that hold it.
  */
 public class Product {
     // Private attributes to encapsulate product data
     private String productID;
     private String name;
-    private double price;
+    private volatile long priceCents;
+
+    // Notified of every price change (e.g. the ProductCatalog and the carts that hold this product).
+    // Null, a single PriceListener, or a Set of them once there are two: most products have at
+    // most one listener (their catalog), so they pay no extra object for it
+    private volatile Object priceListeners;
+    private static final AtomicReferenceFieldUpdater<Product, Object> PRICE_LISTENERS =
+            AtomicReferenceFieldUpdater.newUpdater(Product.class, Object.class, "priceListeners");
 
     /**
      * Constructor for the Product class.
@@ -19,7 +32,26 @@ public class Product {
     public Product(String productID, String name, double price) {
         this.productID = productID;
         this.name = name;
-        this.price = price;
+        this.priceCents = toCents(price);
+    }
+
+    /**
+     * Creates a product with a price in cents, e.g. ofCents("P002", "Wireless Mouse", 1000).
+     * @return The new product.
+     */
+    public static Product ofCents(String productID, String name, long priceCents) {
+        Product product = new Product(productID, name, 0.0);
+        product.priceCents = priceCents;
+        return product;
+    }
+
+    /**
+     * Converts an amount in dollars to cents, rounding to the nearest cent.
+     * @param amount The amount in dollars, e.g. 19.99.
+     * @return The amount in cents, e.g. 1999.
+     */
+    public static long toCents(double amount) {
+        return Math.round(amount * 100);
     }
 
     // --- Getter Methods ---
@@ -33,7 +65,11 @@ public class Product {
     }
 
     public double getPrice() {
-        return price;
+        return priceCents / 100.0;
+    }
+
+    public long getPriceCents() {
+        return priceCents;
     }
 
     // --- Setter Methods ---
@@ -47,7 +83,93 @@ public class Product {
     }
 
     public void setPrice(double price) {
-        this.price = price;
+        setPriceCents(toCents(price));
+    }
+
+    /**
+     * Changes the price and tells every PriceListener the old and the new price.
+     * Synchronized, so listeners of one product receive its changes one at a time, in order.
+     * @param priceCents The new price in cents.
+     */
+    public synchronized void setPriceCents(long priceCents) {
+        long oldPriceCents = this.priceCents;
+        if (oldPriceCents == priceCents) {
+            return;
+        }
+        this.priceCents = priceCents;
+        Object listeners = priceListeners;
+        if (listeners instanceof PriceListener) {
+            ((PriceListener) listeners).priceChanged(this, oldPriceCents, priceCents);
+        } else if (listeners != null) {
+            for (PriceListener listener : listenerSet(listeners)) {
+                listener.priceChanged(this, oldPriceCents, priceCents);
+            }
+        }
+    }
+
+    // --- Price Listeners ---
+    // Changed with compare-and-set, without locking the product: setPriceCents() holds that lock
+    // while it calls listeners, which may be adding themselves to other products at the same time.
+    // A set of listeners is changed under its own lock, which is never held while calling them
+    public void addPriceListener(PriceListener listener) {
+        while (true) {
+            Object listeners = priceListeners;
+            if (listeners == null) {
+                if (PRICE_LISTENERS.compareAndSet(this, null, listener)) {
+                    return;
+                }
+            } else if (listeners instanceof PriceListener) {
+                if (listeners == listener) {
+                    return;
+                }
+                Set<PriceListener> set = ConcurrentHashMap.newKeySet();
+                set.add((PriceListener) listeners);
+                set.add(listener);
+                if (PRICE_LISTENERS.compareAndSet(this, listeners, set)) {
+                    return;
+                }
+            } else {
+                // The set's own lock orders this with removePriceListener() dropping the set:
+                // a set that is still in use here stays in use until the listener is in it
+                synchronized (listeners) {
+                    if (priceListeners == listeners) {
+                        listenerSet(listeners).add(listener);
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    public void removePriceListener(PriceListener listener) {
+        while (true) {
+            Object listeners = priceListeners;
+            if (listeners == listener) {
+                if (PRICE_LISTENERS.compareAndSet(this, listener, null)) {
+                    return;
+                }
+            } else if (listeners == null || listeners instanceof PriceListener) {
+                return;
+            } else {
+                // An emptied set is dropped, so a product that was in many carts at once does
+                // not keep a large table to walk on every price change. Only an empty set is
+                // ever dropped, so if this one was, the listener is not in it: look again
+                synchronized (listeners) {
+                    if (priceListeners == listeners) {
+                        Set<PriceListener> set = listenerSet(listeners);
+                        if (set.remove(listener) && set.isEmpty()) {
+                            priceListeners = null;
+                        }
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<PriceListener> listenerSet(Object listeners) {
+        return (Set<PriceListener>) listeners;
     }
 
     /**
@@ -57,6 +179,6 @@ public class Product {
      */
     @Override
     public String toString() {
-        return "Product [ID=" + productID + ", Name=" + name + ", Price=$" + String.format("%.2f", price) + "]";
+        return "Product [ID=" + productID + ", Name=" + name + ", Price=$" + String.format("%.2f", getPrice()) + "]";
     }
 }
@@ -0,0 +1,221 @@
+package com.ecommerce;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Stores the products of the e-commerce system, sized for millions of products.
+ *
+ * - Lookup by product ID is O(1): products are spread over several hash maps (shards), so the
+ *   tables stay small enough to grow without long pauses, and threads rarely touch the same one.
+ * - Lookup by price range ("products between $10 and $100") uses an index sorted by price
+ *   (then by ID), so a query only visits the products it returns.
+ * - Prices can be changed from any thread with Product.setPrice(): the catalog listens to the
+ *   prices of its products and moves them in the index.
+ */
+public class ProductCatalog {
+    private final ConcurrentHashMap<String, Product>[] shards;
+    private final int shardShift;   // 32 - log2 of the number of shards
+
+    // Every product in the catalog, ordered by price in cents, then by ID
+    private final ConcurrentSkipListMap<PriceKey, Product> priceIndex = new ConcurrentSkipListMap<>();
+
+    private final PriceListener priceIndexUpdater = this::priceChanged;
+
+    // The key of a product in the price index: the price it is indexed at and its ID.
+    // A null ID sorts after every ID, which makes an inclusive upper bound for a price
+    private static final class PriceKey implements Comparable<PriceKey> {
+        final long priceCents;
+        final String productID;
+
+        PriceKey(long priceCents, String productID) {
+            this.priceCents = priceCents;
+            this.productID = productID;
+        }
+
+        @Override
+        public int compareTo(PriceKey other) {
+            int byPrice = Long.compare(priceCents, other.priceCents);
+            if (byPrice != 0 || productID == other.productID) {
+                return byPrice;
+            }
+            if (productID == null || other.productID == null) {
+                return productID == null ? 1 : -1;
+            }
+            return productID.compareTo(other.productID);
+        }
+    }
+
+    /**
+     * Creates an empty catalog.
+     * @param expectedProducts The number of products the catalog is sized for, e.g. 10_000_000;
+     *                         it can hold more, at the cost of growing its tables.
+     */
+    public ProductCatalog(int expectedProducts) {
+        if (expectedProducts < 0) {
+            throw new IllegalArgumentException("The expected number of products cannot be negative.");
+        }
+        // Enough shards for every thread to work on its own, and for each table to stay
+        // below a million entries
+        int wanted = Math.max(Runtime.getRuntime().availableProcessors() * 4, expectedProducts / 1_000_000);
+        int shardCount = Integer.highestOneBit(Math.min(wanted, 1 << 12) * 2 - 1);
+        this.shardShift = 32 - Integer.numberOfTrailingZeros(shardCount);
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        ConcurrentHashMap<String, Product>[] maps = new ConcurrentHashMap[shardCount];
+        int perShard = (int) Math.min(Integer.MAX_VALUE, (long) expectedProducts / shardCount + 1);
+        for (int i = 0; i < shardCount; i++) {
+            maps[i] = new ConcurrentHashMap<>(perShard);
+        }
+        this.shards = maps;
+    }
+
+    // Picks the shard from the high bits of the mixed hash: the maps use the low bits for
+    // their buckets, so taking those here would leave most buckets of every shard empty
+    private ConcurrentHashMap<String, Product> shardFor(String productID) {
+        int hash = productID.hashCode() * 0x9E3779B9;
+        return shards[hash >>> shardShift];
+    }
+
+    // ============================
+    // ADDING AND REMOVING
+    // ============================
+
+    /**
+     * Adds a product to the catalog.
+     * @param product The product to add.
+     * @return true if it was added, false if the catalog already has a product with that ID.
+     */
+    public boolean addProduct(Product product) {
+        if (shardFor(product.getProductID()).putIfAbsent(product.getProductID(), product) != null) {
+            return false;
+        }
+        // The product's lock keeps setPriceCents() out until the product is indexed at its
+        // current price and listened to, so no change can be missed or applied twice
+        synchronized (product) {
+            if (getProduct(product.getProductID()) != product) {
+                return true;   // already removed again by another thread
+            }
+            product.addPriceListener(priceIndexUpdater);
+            priceIndex.put(new PriceKey(product.getPriceCents(), product.getProductID()), product);
+        }
+        return true;
+    }
+
+    /**
+     * Removes a product from the catalog.
+     * @param productID The ID of the product to remove.
+     * @return The removed product, or null if there was none with that ID.
+     */
+    public Product removeProduct(String productID) {
+        Product product = shardFor(productID).remove(productID);
+        if (product != null) {
+            synchronized (product) {
+                product.removePriceListener(priceIndexUpdater);
+                priceIndex.remove(new PriceKey(product.getPriceCents(), productID));
+            }
+        }
+        return product;
+    }
+
+    // Called by Product.setPriceCents() with the product's lock held: changes to one product
+    // arrive one at a time and in order
+    private void priceChanged(Product product, long oldPriceCents, long newPriceCents) {
+        if (priceIndex.remove(new PriceKey(oldPriceCents, product.getProductID())) != null) {
+            priceIndex.put(new PriceKey(newPriceCents, product.getProductID()), product);
+        }
+    }
+
+    // ============================
+    // LOOKUPS
+    // ============================
+
+    /**
+     * Finds a product by its ID.
+     * @param productID The ID, e.g. "P001".
+     * @return The product, or null if the catalog has none with that ID.
+     */
+    public Product getProduct(String productID) {
+        return shardFor(productID).get(productID);
+    }
+
+    /**
+     * Changes the price of a product in the catalog; the same as getProduct(productID).setPrice(price).
+     * @param productID The ID of the product.
+     * @param price The new price.
+     * @return false if the catalog has no product with that ID.
+     */
+    public boolean setPrice(String productID, double price) {
+        Product product = getProduct(productID);
+        if (product == null) {
+            return false;
+        }
+        product.setPrice(price);
+        return true;
+    }
+
+    /**
+     * Finds the products whose price is between two amounts, cheapest first.
+     * @param minPrice The lowest price, included.
+     * @param maxPrice The highest price, included.
+     * @return The products in that range.
+     */
+    public List<Product> findByPriceRange(double minPrice, double maxPrice) {
+        return findByPriceRange(minPrice, maxPrice, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds at most limit products whose price is between two amounts, cheapest first,
+     * e.g. for the first page of results.
+     * @param minPrice The lowest price, included.
+     * @param maxPrice The highest price, included.
+     * @param limit The largest number of products to return.
+     * @return The cheapest products in that range.
+     */
+    public List<Product> findByPriceRange(double minPrice, double maxPrice, int limit) {
+        List<Product> products = new ArrayList<>(Math.min(limit, 1024));
+        for (Product product : priceRange(minPrice, maxPrice).values()) {
+            if (products.size() >= limit) {
+                break;
+            }
+            products.add(product);
+        }
+        return products;
+    }
+
+    /**
+     * Counts the products whose price is between two amounts (both included).
+     * This walks the range, so it takes time in proportion to the count.
+     */
+    public int countByPriceRange(double minPrice, double maxPrice) {
+        return priceRange(minPrice, maxPrice).size();
+    }
+
+    private ConcurrentNavigableMap<PriceKey, Product> priceRange(double minPrice, double maxPrice) {
+        long minCents = Product.toCents(minPrice);
+        long maxCents = Product.toCents(maxPrice);
+        if (minCents > maxCents) {
+            throw new IllegalArgumentException("The lowest price is above the highest price.");
+        }
+        // "" sorts before every ID and null after every ID, so these keys bound all products
+        // from minCents to maxCents, even when maxCents is Long.MAX_VALUE
+        return priceIndex.subMap(new PriceKey(minCents, ""), true, new PriceKey(maxCents, null), true);
+    }
+
+    /**
+     * Returns the number of products in the catalog.
+     */
+    public long size() {
+        long size = 0;
+        for (ConcurrentHashMap<String, Product> shard : shards) {
+            size += shard.mappingCount();
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductCatalog [Products=" + size() + ", Shards=" + shards.length + "]";
+    }
+}
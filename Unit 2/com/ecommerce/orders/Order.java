@@ -12,7 +12,7 @@ public class Order {
     private String orderID;
     private Customer customer;
     private List<Product> products;
-    private double orderTotal;
+    private long orderTotalCents;   // exact: money is kept in whole cents
     private LocalDate orderDate;
     private OrderStatus status;
 
@@ -23,17 +23,33 @@ public class Order {
      * @param orderID The unique identifier for the order.
      * @param customer The customer who placed the order.
      * @param products The list of products included in the order.
-     * @param orderTotal The total cost of the order.
+     * @param orderTotal The total cost of the order (rounded to whole cents).
      */
     public Order(String orderID, Customer customer, List<Product> products, double orderTotal){
+        this(orderID, customer, products, Product.toCents(orderTotal));
+    }
+
+    private Order(String orderID, Customer customer, List<Product> products, long orderTotalCents){
         this.orderID = orderID;
         this.customer = customer;
         this.products = products;
-        this.orderTotal = orderTotal;
+        this.orderTotalCents = orderTotalCents;
         this.orderDate = LocalDate.now();
         this.status = OrderStatus.PENDING;
     }
 
+    /**
+     * Creates an order whose total is given exactly in cents, e.g. from Customer.takeCartForCheckout().
+     * @param orderID The unique identifier for the order.
+     * @param customer The customer who placed the order.
+     * @param products The list of products included in the order.
+     * @param orderTotalCents The total cost of the order in cents.
+     * @return The new order.
+     */
+    public static Order withTotalCents(String orderID, Customer customer, List<Product> products, long orderTotalCents) {
+        return new Order(orderID, customer, products, orderTotalCents);
+    }
+
     // --- Getter Methods ---
     public String getOrderID() {
         return orderID;
@@ -48,7 +64,11 @@ public class Order {
     }
 
     public double getOrderTotal() {
-        return orderTotal;
+        return orderTotalCents / 100.0;
+    }
+
+    public long getOrderTotalCents() {
+        return orderTotalCents;
     }
 
     public LocalDate getOrderDate() {
@@ -92,7 +112,7 @@ public class Order {
         for (Product product : products) {
             summary.append("  - ").append(product.getName()).append(" ($").append(String.format("%.2f", product.getPrice())).append(")\n");
         }
-        summary.append("Order Total: $").append(String.format("%.2f", orderTotal)).append("\n");
+        summary.append("Order Total: $").append(String.format("%.2f", getOrderTotal())).append("\n");
         summary.append("---------------------\n");
 
         // Converts the StringBuilder to a final String and returns it.
@@ -0,0 +1,327 @@
+package com.ecommerce.orders;
+import com.ecommerce.CartCheckout;
+import com.ecommerce.Customer;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Takes checkout requests from many threads at once and turns them into orders on a single
+ * intake thread, for flash sales with thousands of checkouts per second.
+ *
+ * Requests go through a lock-free ring buffer (in the style of the LMAX Disruptor) with many
+ * producers and one consumer:
+ * - a producer claims the next sequence number with one atomic increment, fills the slot for
+ *   that sequence and then marks the slot as published;
+ * - the intake thread takes every published request in one batch, checks out each cart and
+ *   creates the orders, then frees the slots;
+ * - when the ring is full, producers wait until the intake thread frees slots (backpressure).
+ *
+ * Only the intake thread creates orders, so order IDs are simply numbered by it, with no
+ * contention between threads. The cart of each customer is taken with
+ * Customer.takeCartForCheckout(), so two checkouts of the same cart never both produce an order.
+ *
+ * The engine counts submitted, accepted and rejected requests and batches, and records the
+ * latency from submission to completion in a histogram.
+ */
+public class OrderIntakeEngine implements AutoCloseable {
+
+    // One slot of the ring; written by the producer that claimed it, read by the intake thread
+    private static final class Slot {
+        Customer customer;
+        long submittedAt;
+        CompletableFuture<Order> result;
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final int shift;                     // log2 of the capacity
+    private final AtomicIntegerArray published;  // round number of the request in each slot
+    private final AtomicLong claimed = new AtomicLong(-1);     // last sequence handed to a producer
+    private final AtomicLong consumed = new AtomicLong(-1);    // last sequence the intake thread finished
+    private final int maxBatchSize;
+    private final String orderIDPrefix;
+    private final Thread intakeThread;
+    private volatile boolean closed = false;
+
+    // Order numbering: the intake thread is the only writer
+    private long nextOrderNumber = 1;
+
+    // Metrics (counters written only by the intake thread, except submitted)
+    private final AtomicLong submitted = new AtomicLong();
+    private volatile long accepted = 0;
+    private volatile long rejected = 0;
+    private volatile long batches = 0;
+    private final long startedAt = System.nanoTime();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /**
+     * Creates an engine and starts its intake thread.
+     * @param capacity The number of requests that can wait in the ring (rounded up to a power of two).
+     * @param maxBatchSize The largest number of requests handled in one batch.
+     * @param orderIDPrefix The text before the order number, e.g. "ORD-2025-".
+     */
+    public OrderIntakeEngine(int capacity, int maxBatchSize, String orderIDPrefix) {
+        if (capacity <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Capacity and batch size must be positive.");
+        }
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = size - 1;
+        this.shift = Integer.numberOfTrailingZeros(size);
+        this.published = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.orderIDPrefix = orderIDPrefix;
+        this.intakeThread = new Thread(this::intakeLoop, "OrderIntakeThread");
+        this.intakeThread.setDaemon(true);
+        this.intakeThread.start();
+    }
+
+    /**
+     * Submits a checkout of the customer's current cart. Safe to call from any thread.
+     * @param customer The customer checking out.
+     * @return A future that completes with the new order, or exceptionally with an
+     *         IllegalStateException if the cart was empty (or with whatever exception the
+     *         checkout threw).
+     * @throws IllegalStateException If the engine has been closed.
+     */
+    public CompletableFuture<Order> submit(Customer customer) {
+        Objects.requireNonNull(customer, "customer");
+        if (closed) {
+            throw new IllegalStateException("The order intake engine has been closed.");
+        }
+        CompletableFuture<Order> result = new CompletableFuture<>();
+        long sequence = claimed.incrementAndGet();
+        // close() may have happened since the check above. The intake thread only stops once
+        // it has handled every claimed sequence, so this one must still be published, but
+        // empty: if closed reads false here, the intake thread is sure to see this request
+        boolean refused = closed;
+
+        // Wait while the slot still holds a request from the previous round of the ring
+        long wrapPoint = sequence - slots.length;
+        int spins = 0;
+        while (wrapPoint > consumed.get()) {
+            spins = backOff(spins);
+        }
+
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.customer = refused ? null : customer;
+        slot.submittedAt = System.nanoTime();
+        slot.result = refused ? null : result;
+        // Publishing is the last write: the intake thread reads the slot only after seeing it
+        published.set((int) (sequence & mask), (int) (sequence >>> shift));
+        if (refused) {
+            throw new IllegalStateException("The order intake engine has been closed.");
+        }
+        submitted.incrementAndGet();
+        return result;
+    }
+
+    /**
+     * Stops taking requests. Requests already submitted are still turned into orders.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(intakeThread);
+        try {
+            intakeThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ============================
+    // THE INTAKE THREAD
+    // ============================
+
+    private void intakeLoop() {
+        int idleSpins = 0;
+        while (true) {
+            long next = consumed.get() + 1;
+            long last = next - 1;
+            // Take every request published in order after the last one handled, up to a batch
+            while (last - next + 1 < maxBatchSize && isPublished(last + 1)) {
+                last++;
+            }
+            if (last < next) {
+                if (closed && claimed.get() < next) {
+                    return;
+                }
+                idleSpins = backOff(idleSpins);
+                continue;
+            }
+            idleSpins = 0;
+            processBatch(next, last);
+        }
+    }
+
+    private boolean isPublished(long sequence) {
+        return published.get((int) (sequence & mask)) == (int) (sequence >>> shift);
+    }
+
+    // Checks out, prices and numbers the requests from sequence first to last
+    private void processBatch(long first, long last) {
+        long acceptedInBatch = 0;
+        long rejectedInBatch = 0;
+        for (long sequence = first; sequence <= last; sequence++) {
+            Slot slot = slots[(int) (sequence & mask)];
+            Customer customer = slot.customer;
+            CompletableFuture<Order> result = slot.result;
+            long submittedAt = slot.submittedAt;
+            slot.customer = null;
+            slot.result = null;
+            if (customer == null) {
+                continue;   // claimed while the engine was closing, and refused by submit()
+            }
+
+            // A failing request fails only its own future: the intake thread must keep running
+            try {
+                CartCheckout checkout = customer.takeCartForCheckout();
+                if (checkout.isEmpty()) {
+                    rejectedInBatch++;
+                    result.completeExceptionally(new IllegalStateException(
+                            "The shopping cart of customer " + customer.getCustomerID() + " is empty."));
+                } else {
+                    // The cart keeps its total in cents as it changes: no summing here
+                    acceptedInBatch++;
+                    result.complete(Order.withTotalCents(orderIDPrefix + nextOrderNumber++, customer,
+                            checkout.getProducts(), checkout.getTotalCents()));
+                }
+            } catch (RuntimeException e) {
+                rejectedInBatch++;
+                result.completeExceptionally(e);
+            }
+            latency.record(System.nanoTime() - submittedAt);
+        }
+        accepted += acceptedInBatch;
+        rejected += rejectedInBatch;
+        batches++;
+        // Frees all the batch's slots at once
+        consumed.set(last);
+    }
+
+    // Spins briefly, then yields, then sleeps in short naps
+    private static int backOff(int spins) {
+        if (spins < 100) {
+            Thread.onSpinWait();
+        } else if (spins < 200) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(50_000);
+        }
+        return spins + 1;
+    }
+
+    // ============================
+    // METRICS
+    // ============================
+
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    public long getAcceptedCount() {
+        return accepted;
+    }
+
+    public long getRejectedCount() {
+        return rejected;
+    }
+
+    public long getBatchCount() {
+        return batches;
+    }
+
+    public double getAverageBatchSize() {
+        long batchCount = batches;
+        return batchCount == 0 ? 0 : (accepted + rejected) / (double) batchCount;
+    }
+
+    // Completed requests per second since the engine started
+    public double getThroughput() {
+        return (accepted + rejected) / ((System.nanoTime() - startedAt) / 1e9);
+    }
+
+    /**
+     * The latency from submission to completion below which a share of the requests finished.
+     * @param percentile Between 0 and 1, e.g. 0.99.
+     * @return The latency in nanoseconds (accurate to about 12%).
+     */
+    public long getLatencyPercentile(double percentile) {
+        return latency.percentile(percentile);
+    }
+
+    /**
+     * Generates a one-line summary of the metrics.
+     * @return The number of requests, the throughput, the batch size and the latencies.
+     */
+    public String generateMetricsSummary() {
+        return String.format("Orders: %,d accepted, %,d rejected in %,d batches (%.1f per batch), %,.0f per second; "
+                        + "latency p50 %.1f us, p99 %.1f us, max %.1f us",
+                accepted, rejected, batches, getAverageBatchSize(), getThroughput(),
+                getLatencyPercentile(0.50) / 1e3, getLatencyPercentile(0.99) / 1e3, getLatencyPercentile(1.0) / 1e3);
+    }
+
+    /**
+     * A histogram of latencies with 8 buckets per power of two, recorded by one thread and
+     * readable from any thread.
+     */
+    private static final class LatencyHistogram {
+        private static final int SUB_BUCKETS = 8;
+        private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+
+        void record(long nanos) {
+            int index = indexOf(Math.max(1, nanos));
+            // Single writer: a plain increment published with lazySet is enough
+            counts.lazySet(index, counts.get(index) + 1);
+        }
+
+        long percentile(double percentile) {
+            long total = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                total += counts.get(i);
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(percentile * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= target) {
+                    return upperBound(i);
+                }
+            }
+            return upperBound(counts.length() - 1);
+        }
+
+        // Bucket = (power of two, next 3 bits below the highest one)
+        private static int indexOf(long value) {
+            int power = 63 - Long.numberOfLeadingZeros(value);
+            if (power < 3) {
+                return (int) value;
+            }
+            int sub = (int) ((value >>> (power - 3)) & (SUB_BUCKETS - 1));
+            return power * SUB_BUCKETS + sub;
+        }
+
+        private static long upperBound(int index) {
+            int power = index / SUB_BUCKETS;
+            int sub = index % SUB_BUCKETS;
+            if (power < 3) {
+                return index;
+            }
+            return ((long) (SUB_BUCKETS + sub + 1) << (power - 3)) - 1;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BatchedConsoleWriter class: Collects many small writes in one byte buffer and hands them to
+ * the output stream in a single write when flushed, instead of one write per print().
+ *
+ * System.out.print(String) encodes the text through several internal buffers and writes it out
+ * right away; at high rates (log lines, or thousands of clock displays) the work per call
+ * dominates. Here the caller writes bytes that are already encoded (such as a CoarseClock
+ * timestamp) and the batch goes out when flush() is called, when the buffer is full, or
+ * periodically with flushEvery().
+ *
+ * All methods are synchronized, so several threads may share one writer. I/O errors are
+ * thrown as UncheckedIOException, so the writer can be used inside a Runnable.
+ *
+ * log() writes a timestamped line (e.g. an error report) through one writer shared by the
+ * whole program, stamped with the shared CoarseClock.
+ */
+public class BatchedConsoleWriter implements Flushable, Closeable {
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int count = 0;
+
+    /**
+     * Creates a writer.
+     * @param out The stream the batches go to, e.g. System.out.
+     * @param capacity The buffer size in bytes.
+     */
+    public BatchedConsoleWriter(OutputStream out, int capacity) {
+        this.out = out;
+        this.buffer = new byte[capacity];
+    }
+
+    // A writer for System.out with an 8 KB buffer
+    public static BatchedConsoleWriter console() {
+        return new BatchedConsoleWriter(System.out, 8192);
+    }
+
+    // The writer behind log(), created on first use
+    private static final class SharedConsole {
+        static final BatchedConsoleWriter INSTANCE = console();
+    }
+
+    /**
+     * Prints "[HH:mm:ss dd-MM-yyyy] [tag] message" on its own line right away, through the
+     * program-wide console writer and the shared CoarseClock.
+     * @param tag The kind of line, e.g. "TIMER ERROR".
+     * @param message The text of the line (its toString()).
+     */
+    public static void log(String tag, Object message) {
+        SharedConsole.INSTANCE.writeLogLine(CoarseClock.shared(), tag, message);
+    }
+
+    // Writes one timestamped log line and flushes it, so it is not held back by the batching
+    public synchronized void writeLogLine(CoarseClock clock, String tag, Object message) {
+        write('\n');
+        write('[');
+        writeTimestamp(clock);
+        write(("] [" + tag + "] " + message + "\n").getBytes(Charset.defaultCharset()));
+        flush();
+    }
+
+    public synchronized void write(byte[] bytes) {
+        write(bytes, 0, bytes.length);
+    }
+
+    public synchronized void write(byte[] bytes, int offset, int length) {
+        if (length > buffer.length - count) {
+            flushBuffer();
+        }
+        if (length > buffer.length) {
+            // Too big to batch: write it straight through
+            writeOut(bytes, offset, length);
+            return;
+        }
+        System.arraycopy(bytes, offset, buffer, count, length);
+        count += length;
+    }
+
+    public synchronized void write(int b) {
+        if (count == buffer.length) {
+            flushBuffer();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    // Writes the current timestamp of a clock, copied straight into the buffer
+    public synchronized void writeTimestamp(CoarseClock clock) {
+        if (clock.timestampLength() > buffer.length - count) {
+            flushBuffer();
+        }
+        count += clock.copyTimestamp(buffer, count);
+    }
+
+    // Writes the batch collected so far with a single write
+    @Override
+    public synchronized void flush() {
+        flushBuffer();
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flushes the writer periodically, so a high-rate producer never waits for the output and
+     * the output is never more than one period behind.
+     * @return The ticker; cancel it when the writer is no longer used.
+     */
+    public TickerService.Ticker flushEvery(TickerService tickerService, long periodMillis) {
+        return tickerService.scheduleAtFixedRate(this::flush, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        flush();
+    }
+
+    private void flushBuffer() {
+        if (count > 0) {
+            writeOut(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    private void writeOut(byte[] bytes, int offset, int length) {
+        try {
+            out.write(bytes, offset, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
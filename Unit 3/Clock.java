@@ -1,85 +1,46 @@
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
 
 /**
- * TimePrinter class: Implements the Runnable interface to define the clock task
- * that will run in a separate, high-priority thread.
- * This design separates the "what to do" (the task) from the "how to do it" (the thread).
+ * TimePrinter class: Implements the Runnable interface to define the clock task.
+ * Each call to run() prints the time ONCE; a TickerService calls it at the start of every
+ * second on its shared timer thread, so the clock no longer needs a thread of its own.
+ * This design separates the "what to do" (the task) from the "when to do it" (the ticker).
  */
 class TimePrinter implements Runnable {
 
+    // The fixed text before the time, encoded once.
+    // The "\r" (carriage return) character moves the cursor back to the start of the line,
+    // overwriting the previous output and creating a continuous update effect.
+    private static final byte[] PREFIX = "\rCurrent Time and Date: ".getBytes(StandardCharsets.US_ASCII);
+
+    // The shared coarse clock keeps "HH:mm:ss dd-MM-yyyy" rendered as bytes, so a tick
+    // allocates no LocalDateTime, no String and formats nothing itself.
+    private final CoarseClock clock = CoarseClock.shared();
+
+    // Collects the prefix and the timestamp and writes them to the console in one go.
+    private final BatchedConsoleWriter console = new BatchedConsoleWriter(System.out, 256);
+
+    // Whether the header has been printed yet
+    private boolean started = false;
+
     /**
-     * The run() method contains the code that the new thread will execute.
-     * It's the entry point for the thread's independent execution flow.
+     * The run() method prints one tick of the clock.
+     * It is called by the ticker, not looped here, so there is no sleep() to drift.
      */
     @Override
     public void run() {
-        // Define the format for displaying the date and time.
-        // "HH:mm:ss" uses a 24-hour format, and "dd-MM-yyyy" specifies the day, month, and year.
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss dd-MM-yyyy");
-
-        // Print a message to the console to indicate that the clock thread has started.
-        System.out.println("Clock Thread started. Press Ctrl-C to stop.");
-        System.out.println("----------------------------------------------");
-
-        // An infinite loop to continuously update the clock.
-        // The loop will run indefinitely until the thread is interrupted.
-        while (true) {
-            // Get the current date and time from the system clock.
-            // This happens on every loop iteration to ensure the time is always up-to-date.
-            LocalDateTime now = LocalDateTime.now();
-
-            // Format the LocalDateTime object into a readable string using the formatter.
-            String currentTime = now.format(formatter);
-
-            // Print the formatted time to the console.
-            // The "\r" (carriage return) character moves the cursor back to the start of the line,
-            // overwriting the previous output and creating a continuous update effect.
-            System.out.print("\rCurrent Time and Date: " + currentTime);
-
-            try {
-                // Pause the current thread for 1000 milliseconds (1 second).
-                // This controls the clock's update frequency and prevents the thread from consuming excessive CPU.
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                // This block catches the InterruptedException.
-                // It is thrown when another thread (e.g., the main thread after a Ctrl-C)
-                // calls interrupt() on this thread while it is sleeping.
-                System.out.println("\nClock Thread interrupted and stopped.");
-
-                // Re-interrupt the thread. This is a best practice in concurrency
-                // to restore the thread's interrupted status, allowing higher-level
-                // interrupt handlers to take action if needed.
-                Thread.currentThread().interrupt();
-
-                // Break out of the infinite loop to terminate the thread's execution gracefully.
-                break;
-            }
+        // Print a message to the console to indicate that the clock has started.
+        if (!started) {
+            System.out.println("Clock started. Press Ctrl-C to stop.");
+            System.out.println("----------------------------------------------");
+            started = true;
         }
-    }
-}
 
-/**
- * DummyTask class: A simple Runnable task to simulate a low-priority background process.
- * It's used here to demonstrate the effect of thread priorities.
- */
-class DummyTask implements Runnable {
-    @Override
-    public void run() {
-        // A loop that runs a set number of times.
-        for (int i = 0; i < 50; i++) {
-            // Simulates a time-consuming background operation.
-            // By making the thread sleep, it yields CPU time to other threads.
-            try {
-                Thread.sleep(200);
-            } catch (InterruptedException ignored) {
-                // The 'ignored' variable name indicates that this interruption
-                // is not critical to the task's logic. We still handle it by
-                // setting the flag and exiting the run method.
-                Thread.currentThread().interrupt();
-                return;
-            }
-        }
+        // Copy the pre-rendered timestamp after the prefix and print both with one write.
+        console.write(PREFIX);
+        console.writeTimestamp(clock);
+        console.flush();
     }
 }
 
@@ -91,47 +52,47 @@ public class Clock {
 
     public static void main(String[] args) {
 
-        // --- A. Define and Start the High-Priority Display Thread ---
-
-        // Create an instance of the Runnable task for the clock.
-        TimePrinter timePrinterTask = new TimePrinter();
-
-        // Create a new Thread object and assign it the clock task.
-        // We also give the thread a descriptive name for easy identification.
-        Thread clockThread = new Thread(timePrinterTask, "ClockDisplayThread");
+        // --- A. Schedule the Clock Display on the Shared Ticker ---
 
-        // Set the clock thread's priority to the maximum (10).
-        // This is a hint to the operating system's scheduler to give this thread preferential treatment,
-        // which helps ensure the clock updates with high precision.
-        clockThread.setPriority(Thread.MAX_PRIORITY);
+        // The ticker service runs every periodic task on one timer-wheel thread,
+        // so thousands of clocks would still need just that one thread.
+        TickerService tickerService = new TickerService();
 
-        // Start the thread. This tells the JVM to allocate system resources and
-        // begin executing the run() method of the TimePrinter task concurrently.
-        clockThread.start();
+        // Run the clock task at the start of every wall-clock second.
+        // The ticks are computed from the first one, so the display never drifts.
+        TickerService.Ticker clockTicker = tickerService.everySecond(new TimePrinter());
 
-        // --- B. Define and Start the Low-Priority Background Thread ---
+        // On Ctrl-C, stop the ticker and report how many ticks ran.
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            clockTicker.cancel();
+            System.out.println("\nClock stopped after " + clockTicker.ticks() + " ticks ("
+                    + clockTicker.skippedTicks() + " skipped).");
+        }));
 
-        // Create an instance of the low-priority background task.
-        DummyTask dummyTask = new DummyTask();
+        // --- B. Run the Background Tasks on an Executor ---
 
-        // Create a new Thread object for the background task.
-        Thread backgroundThread = new Thread(dummyTask, "BackgroundWorkerThread");
+        // Choose how background tasks run: "virtual", "forkjoin" or "priority" (the default).
+        // Instead of one raw Thread per task with setPriority() (a hint the OS mostly ignores),
+        // the tasks go to an executor; the priority queue mode really runs important tasks first.
+        ExecutionMode mode = args.length > 0 ? ExecutionMode.parse(args[0]) : ExecutionMode.PRIORITY_QUEUE;
+        ExecutorService backgroundExecutor = mode.newExecutor(2, 100);
 
-        // Set the background thread's priority to the minimum (1).
-        // This indicates that the task is not critical and should only run when
-        // higher-priority threads are idle.
-        backgroundThread.setPriority(Thread.MIN_PRIORITY);
+        // Submit the low-priority background task.
+        // The priority wrapper is used by the priority queue and simply ignored by the other modes.
+        backgroundExecutor.execute(PriorityTaskExecutor.withPriority(new DummyTask(), Thread.MIN_PRIORITY));
 
-        // Start the background worker thread.
-        backgroundThread.start();
+        // No more tasks: the executor finishes the queued ones and then lets its threads end.
+        backgroundExecutor.shutdown();
 
-        // 5. Main thread output (Priority reporting)
-        // These print statements run immediately after the other threads are started.
-        // They show that the main thread is not blocked and that all three threads
-        // are running concurrently.
+        // 5. Main thread output
+        // These print statements run immediately after the clock and the task are started.
+        // They show that the main thread is not blocked and that everything runs concurrently.
         System.out.println("\nMain thread continues its work (Priority: " +
                 Thread.currentThread().getPriority() + ")");
-        System.out.println("Clock Display Thread Priority: " + clockThread.getPriority());
-        System.out.println("Background Worker Thread Priority: " + backgroundThread.getPriority());
+        System.out.println("Clock Display: ticker on " + tickerService.getThreadName()
+                + " (" + tickerService.activeTickers() + " active ticker)");
+        System.out.println("Background Tasks: " + mode
+                + (mode == ExecutionMode.VIRTUAL_THREADS && !ExecutionMode.virtualThreadsAvailable()
+                        ? " (not available on this Java version: one platform thread per task)" : ""));
     }
 }
\ No newline at end of file
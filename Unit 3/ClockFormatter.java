@@ -0,0 +1,120 @@
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+/**
+ * ClockFormatter class: Renders "HH:mm:ss dd-MM-yyyy" into a reusable char[] without
+ * allocating, for code that prints the time every tick.
+ *
+ * DateTimeFormatter builds a LocalDateTime, a String and several helper objects on every call.
+ * This formatter keeps the line it rendered last and, on the next call, only rewrites the fields
+ * that changed: normally just the two seconds digits. The date is recomputed once a day and the
+ * time zone offset only when the zone's rules change it (e.g. daylight saving time).
+ *
+ * Not thread-safe: give each printing thread its own formatter.
+ */
+public class ClockFormatter {
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private final ZoneRules rules;
+    private final char[] line;
+    private final int timeStart;   // index of the first hour digit
+    private final int dateStart;   // index of the first day digit
+
+    // The current zone offset and the period in which it is valid
+    private long offsetMillis;
+    private long offsetValidFrom = Long.MAX_VALUE;
+    private long offsetValidUntil = Long.MIN_VALUE;
+
+    // The fields currently in the line (-1 = not rendered yet)
+    private long lastDay = Long.MIN_VALUE;
+    private int lastHour = -1;
+    private int lastMinute = -1;
+    private int lastSecond = -1;
+
+    /**
+     * Creates a formatter for the system's time zone.
+     * @param prefix Fixed text before the time, e.g. "\rCurrent Time and Date: ".
+     */
+    public ClockFormatter(String prefix) {
+        this(prefix, ZoneId.systemDefault());
+    }
+
+    public ClockFormatter(String prefix, ZoneId zone) {
+        this.rules = zone.getRules();
+        this.line = (prefix + "00:00:00 00-00-0000").toCharArray();
+        this.timeStart = prefix.length();
+        this.dateStart = timeStart + 9;
+    }
+
+    /**
+     * Renders a moment into the line.
+     * @param epochMillis The moment, as from System.currentTimeMillis().
+     * @return The whole line (prefix, time, date); the same array every call, so print or copy
+     *         it before the next call.
+     */
+    public char[] format(long epochMillis) {
+        // The zone offset only changes at transitions, so it is looked up again only after
+        // leaving the period it was valid for
+        if (epochMillis < offsetValidFrom || epochMillis >= offsetValidUntil) {
+            updateOffset(epochMillis);
+        }
+        long localMillis = epochMillis + offsetMillis;
+        long day = Math.floorDiv(localMillis, MILLIS_PER_DAY);
+        int secondOfDay = (int) (Math.floorMod(localMillis, MILLIS_PER_DAY) / 1000);
+
+        // Rewrite only what changed since the last call
+        int second = secondOfDay % 60;
+        if (second != lastSecond) {
+            putTwoDigits(timeStart + 6, second);
+            lastSecond = second;
+        }
+        int minute = secondOfDay / 60 % 60;
+        if (minute != lastMinute) {
+            putTwoDigits(timeStart + 3, minute);
+            lastMinute = minute;
+        }
+        int hour = secondOfDay / 3600;
+        if (hour != lastHour) {
+            putTwoDigits(timeStart, hour);
+            lastHour = hour;
+        }
+        if (day != lastDay) {
+            // Once a day, so the LocalDate allocation does not matter
+            LocalDate date = LocalDate.ofEpochDay(day);
+            putTwoDigits(dateStart, date.getDayOfMonth());
+            putTwoDigits(dateStart + 3, date.getMonthValue());
+            putTwoDigits(dateStart + 6, date.getYear() / 100 % 100);
+            putTwoDigits(dateStart + 8, date.getYear() % 100);
+            lastDay = day;
+        }
+        return line;
+    }
+
+    // The length of the line returned by format()
+    public int length() {
+        return line.length;
+    }
+
+    @Override
+    public String toString() {
+        return new String(line);
+    }
+
+    private void updateOffset(long epochMillis) {
+        Instant instant = Instant.ofEpochMilli(epochMillis);
+        offsetMillis = rules.getOffset(instant).getTotalSeconds() * 1000L;
+        ZoneOffsetTransition next = rules.nextTransition(instant);
+        // Valid from this moment on; only a clock set backwards makes us look again early
+        offsetValidFrom = epochMillis;
+        offsetValidUntil = next == null ? Long.MAX_VALUE : next.toEpochSecond() * 1000;
+    }
+
+    private void putTwoDigits(int index, int value) {
+        line[index] = (char) ('0' + value / 10);
+        line[index + 1] = (char) ('0' + value % 10);
+    }
+}
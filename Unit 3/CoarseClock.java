@@ -0,0 +1,147 @@
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * CoarseClock class: A clock that one background thread keeps up to date, so reading the
+ * time costs a single volatile read and no allocation.
+ *
+ * At a fixed resolution the clock thread stores System.currentTimeMillis() in a volatile field.
+ * It also wakes right when the second changes, renders "HH:mm:ss dd-MM-yyyy" once into a new
+ * byte[] that is never changed afterwards, and publishes it, so the timestamp turns over on
+ * time whatever the resolution. Any number of threads can
+ * then copy that timestamp, e.g. into a log line or a console buffer, without formatting
+ * anything themselves.
+ *
+ * The price is precision: the milliseconds read may be up to one resolution old (100 ms for
+ * the shared clock, which only serves second-level displays and log timestamps). That is fine
+ * for clock displays and log timestamps, not for measuring durations (use System.nanoTime()).
+ *
+ * shared() returns one clock for the whole program; its thread is a daemon thread.
+ */
+public class CoarseClock implements AutoCloseable {
+
+    private static volatile CoarseClock shared;
+
+    // Enough for its users, which only show whole seconds: 10 wake-ups a second, plus one
+    // at each change of second
+    private static final long SHARED_RESOLUTION_MILLIS = 100;
+
+    private final long resolutionNanos;
+    private final ClockFormatter formatter = new ClockFormatter("");
+    private final Thread updater;
+    private volatile boolean running = true;
+
+    // Published by the clock thread; the array is never modified after publication
+    private volatile long millis;
+    private volatile byte[] timestamp;
+    private long renderedSecond = Long.MIN_VALUE;   // clock thread only
+
+    /**
+     * Creates a clock and starts its thread.
+     * @param resolutionMillis How often the time is refreshed.
+     */
+    public CoarseClock(long resolutionMillis) {
+        if (resolutionMillis <= 0) {
+            throw new IllegalArgumentException("The resolution must be positive: " + resolutionMillis);
+        }
+        this.resolutionNanos = TimeUnit.MILLISECONDS.toNanos(resolutionMillis);
+        update();
+        this.updater = new Thread(this::updateLoop, "CoarseClockThread");
+        this.updater.setDaemon(true);
+        this.updater.start();
+    }
+
+    // The program-wide clock with 100 ms resolution, started on first use
+    public static CoarseClock shared() {
+        CoarseClock clock = shared;
+        if (clock == null) {
+            synchronized (CoarseClock.class) {
+                clock = shared;
+                if (clock == null) {
+                    clock = new CoarseClock(SHARED_RESOLUTION_MILLIS);
+                    shared = clock;
+                }
+            }
+        }
+        return clock;
+    }
+
+    // ============================
+    // READING THE TIME
+    // ============================
+
+    // The time in milliseconds since the epoch, at most one resolution old
+    public long currentTimeMillis() {
+        return millis;
+    }
+
+    // The length of the rendered timestamp ("HH:mm:ss dd-MM-yyyy")
+    public int timestampLength() {
+        return timestamp.length;
+    }
+
+    /**
+     * Copies the current "HH:mm:ss dd-MM-yyyy" timestamp (ASCII) into a buffer.
+     * @return The number of bytes copied.
+     */
+    public int copyTimestamp(byte[] destination, int offset) {
+        byte[] current = timestamp;
+        System.arraycopy(current, 0, destination, offset, current.length);
+        return current.length;
+    }
+
+    // Appends the current timestamp to a builder, e.g. for a log line
+    public StringBuilder appendTimestamp(StringBuilder builder) {
+        for (byte b : timestamp) {
+            builder.append((char) b);
+        }
+        return builder;
+    }
+
+    // Stops the clock thread; the time then stays where it was
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(updater);
+    }
+
+    // ============================
+    // THE CLOCK THREAD
+    // ============================
+
+    private void updateLoop() {
+        long next = System.nanoTime() + resolutionNanos;
+        while (running) {
+            update();
+            long now = System.nanoTime();
+            if (now - next >= 0) {
+                // Wake at fixed intervals from the start, so updates stay evenly spaced; after
+                // a stall (GC pause, suspended machine) start again from now instead of
+                // running once for every interval that was missed
+                next += resolutionNanos;
+                if (now - next >= 0) {
+                    next = now + resolutionNanos;
+                }
+            }
+            // Also wake when the second changes, so the new timestamp is published on time
+            long secondChange = now + TimeUnit.MILLISECONDS.toNanos(1000 - Math.floorMod(millis, 1000));
+            long wakeAt = secondChange - next < 0 ? secondChange : next;
+            long wait;
+            while (running && (wait = wakeAt - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+    }
+
+    private void update() {
+        long now = System.currentTimeMillis();
+        long second = Math.floorDiv(now, 1000);
+        if (second != renderedSecond) {
+            // Once a second: render into a fresh array, then publish it
+            timestamp = new String(formatter.format(now)).getBytes(StandardCharsets.US_ASCII);
+            renderedSecond = second;
+        }
+        millis = now;
+    }
+}
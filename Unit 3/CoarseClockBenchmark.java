@@ -0,0 +1,120 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * CoarseClockBenchmark class: Measures what the clock display and a logger pay per timestamp.
+ *
+ * 1. Getting a timestamp: LocalDateTime.now().format(...) (what TimePrinter used to do) versus
+ *    copying the pre-rendered CoarseClock timestamp; time and heap allocation per call.
+ * 2. Printing lines: System.out-style PrintStream.print() of a concatenated String per line
+ *    versus BatchedConsoleWriter with the CoarseClock timestamp; time and write calls.
+ *
+ * Usage: java CoarseClockBenchmark [timestamps] [lines]
+ */
+public class CoarseClockBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int timestamps = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int lines = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        // --- 1. Timestamps ---
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss dd-MM-yyyy");
+        CoarseClock clock = CoarseClock.shared();
+        byte[] destination = new byte[64];
+        long sink = 0;
+        for (int round = 0; round < 2; round++) {
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < timestamps; i++) {
+                sink += LocalDateTime.now().format(formatter).length();
+            }
+            long formatNanos = System.nanoTime() - start;
+            long formatBytes = allocatedBytes() - allocatedBefore;
+
+            allocatedBefore = allocatedBytes();
+            start = System.nanoTime();
+            for (int i = 0; i < timestamps; i++) {
+                sink += clock.copyTimestamp(destination, 0) + clock.currentTimeMillis();
+            }
+            long coarseNanos = System.nanoTime() - start;
+            long coarseBytes = allocatedBytes() - allocatedBefore;
+
+            if (round == 1) {
+                System.out.printf("Timestamps (%,d):%n", timestamps);
+                System.out.printf("  LocalDateTime.format  %8.1f ns/op  %8.1f bytes/op%n",
+                        formatNanos / (double) timestamps, formatBytes / (double) timestamps);
+                System.out.printf("  CoarseClock           %8.1f ns/op  %8.1f bytes/op%n",
+                        coarseNanos / (double) timestamps, coarseBytes / (double) timestamps);
+            }
+        }
+
+        // --- 2. Printing lines to a file ---
+        File file = File.createTempFile("clock-output", ".txt");
+        file.deleteOnExit();
+        byte[] prefix = "\rCurrent Time and Date: ".getBytes(StandardCharsets.US_ASCII);
+        for (int round = 0; round < 2; round++) {
+            CountingStream printTarget = new CountingStream(new FileOutputStream(file));
+            long start = System.nanoTime();
+            try (PrintStream print = new PrintStream(printTarget, true, "US-ASCII")) {
+                for (int i = 0; i < lines; i++) {
+                    print.print("\rCurrent Time and Date: " + LocalDateTime.now().format(formatter));
+                }
+            }
+            long printNanos = System.nanoTime() - start;
+
+            CountingStream batchTarget = new CountingStream(new FileOutputStream(file));
+            start = System.nanoTime();
+            try (BatchedConsoleWriter writer = new BatchedConsoleWriter(batchTarget, 8192)) {
+                for (int i = 0; i < lines; i++) {
+                    writer.write(prefix);
+                    writer.writeTimestamp(clock);
+                }
+            }
+            batchTarget.close();
+            long batchNanos = System.nanoTime() - start;
+
+            if (round == 1) {
+                System.out.printf("Lines (%,d):%n", lines);
+                System.out.printf("  PrintStream.print     %8.1f ns/line %,10d writes%n",
+                        printNanos / (double) lines, printTarget.writes);
+                System.out.printf("  BatchedConsoleWriter  %8.1f ns/line %,10d writes%n",
+                        batchNanos / (double) lines, batchTarget.writes);
+            }
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    // Bytes allocated by this thread so far (HotSpot), or 0 when the JVM cannot tell
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    // Counts the write calls that reach the file
+    private static final class CountingStream extends FilterOutputStream {
+        long writes = 0;
+
+        CountingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            writes++;
+            out.write(bytes, offset, length);
+        }
+    }
+}
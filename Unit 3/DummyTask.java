@@ -0,0 +1,38 @@
+/**
+ * DummyTask class: A simple Runnable task to simulate a low-priority background process.
+ * It blocks (sleeps) most of the time, like a task waiting for disk or network.
+ * By default it sleeps 50 times for 200 ms; the load generator uses shorter runs.
+ */
+class DummyTask implements Runnable {
+
+    private final int steps;
+    private final long stepMillis;
+
+    DummyTask() {
+        this(50, 200);
+    }
+
+    DummyTask(int steps, long stepMillis) {
+        this.steps = steps;
+        this.stepMillis = stepMillis;
+    }
+
+    @Override
+    public void run() {
+        // A loop that runs a set number of times.
+        for (int i = 0; i < steps; i++) {
+            // Simulates a time-consuming background operation.
+            // The sleep goes through ExecutionMode.blockingSleep(), so a ForkJoinPool
+            // knows this worker is blocked and can start a spare one meanwhile.
+            try {
+                ExecutionMode.blockingSleep(stepMillis);
+            } catch (InterruptedException ignored) {
+                // The 'ignored' variable name indicates that this interruption
+                // is not critical to the task's logic. We still handle it by
+                // setting the flag and exiting the run method.
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
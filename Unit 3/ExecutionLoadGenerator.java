@@ -0,0 +1,124 @@
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ExecutionLoadGenerator class: Runs 100,000 DummyTask-style blocking tasks in every
+ * ExecutionMode and compares them.
+ *
+ * For each mode it reports:
+ * - throughput: tasks completed per second,
+ * - memory per task: the peak heap growth divided by the peak number of tasks running at once
+ *   (platform thread stacks live outside the heap, so the peak thread count is shown too),
+ * - latency: from submitting a task to its end, for all tasks and separately for the 1% that
+ *   are submitted with Thread.MAX_PRIORITY.
+ *
+ * Usage: java ExecutionLoadGenerator [tasks] [steps] [stepMillis] [threads]
+ *   threads = the workers of the priority queue and the parallelism of the ForkJoinPool
+ */
+public class ExecutionLoadGenerator {
+
+    public static void main(String[] args) throws InterruptedException {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        long stepMillis = args.length > 2 ? Long.parseLong(args[2]) : 20;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+
+        System.out.printf("%,d tasks, each blocking %d x %d ms; %d workers for the priority queue%n",
+                tasks, steps, stepMillis, threads);
+        if (!ExecutionMode.virtualThreadsAvailable()) {
+            System.out.println("Virtual threads are not available on this Java version: "
+                    + "VIRTUAL_THREADS uses one platform thread per task.");
+        }
+        System.out.printf("%n%-16s %12s %14s %12s %10s %10s %10s %14s%n", "Mode", "tasks/s", "KB per task",
+                "peak threads", "p50", "p99", "max", "p99 (urgent)");
+
+        for (ExecutionMode mode : ExecutionMode.values()) {
+            int parallelism = mode == ExecutionMode.WORK_STEALING ? Runtime.getRuntime().availableProcessors() : threads;
+            run(mode, mode.newExecutor(parallelism, 10_000), tasks, steps, stepMillis);
+        }
+    }
+
+    private static void run(ExecutionMode mode, ExecutorService executor, int tasks, int steps, long stepMillis)
+            throws InterruptedException {
+        long[] latency = new long[tasks];
+        boolean[] urgent = new boolean[tasks];
+        CountDownLatch done = new CountDownLatch(tasks);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peakRunning = new AtomicInteger();
+
+        // Samples the heap and the thread count while the tasks run
+        long baseline = usedHeap();
+        long[] peakHeap = {baseline};
+        int[] peakThreads = {Thread.activeCount()};
+        Thread sampler = new Thread(() -> {
+            while (done.getCount() > 0) {
+                Runtime runtime = Runtime.getRuntime();
+                peakHeap[0] = Math.max(peakHeap[0], runtime.totalMemory() - runtime.freeMemory());
+                peakThreads[0] = Math.max(peakThreads[0], Thread.activeCount());
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "LoadSampler");
+        sampler.setDaemon(true);
+        sampler.start();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < tasks; i++) {
+            int index = i;
+            long submitted = System.nanoTime();
+            DummyTask work = new DummyTask(steps, stepMillis);
+            Runnable task = () -> {
+                peakRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                work.run();
+                running.decrementAndGet();
+                latency[index] = System.nanoTime() - submitted;
+                done.countDown();
+            };
+            // Every 100th task is urgent
+            urgent[i] = i % 100 == 0;
+            executor.execute(PriorityTaskExecutor.withPriority(task, urgent[i] ? Thread.MAX_PRIORITY : Thread.MIN_PRIORITY));
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        sampler.join();
+
+        long[] urgentLatency = new long[(tasks + 99) / 100];
+        int urgentCount = 0;
+        for (int i = 0; i < tasks; i++) {
+            if (urgent[i]) {
+                urgentLatency[urgentCount++] = latency[i];
+            }
+        }
+        Arrays.sort(latency);
+        Arrays.sort(urgentLatency, 0, urgentCount);
+
+        double kilobytesPerTask = (peakHeap[0] - baseline) / 1024.0 / Math.max(1, peakRunning.get());
+        System.out.printf("%-16s %,12.0f %14.1f %12d %10s %10s %10s %14s%n", mode,
+                tasks / (elapsed / 1e9), kilobytesPerTask, peakThreads[0],
+                millis(latency, tasks, 0.50), millis(latency, tasks, 0.99), millis(latency, tasks, 1.0),
+                millis(urgentLatency, urgentCount, 0.99));
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        System.gc();
+        Thread.sleep(50);
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static String millis(long[] sorted, int count, double percentile) {
+        if (count == 0) {
+            return "-";
+        }
+        int index = Math.min(count - 1, (int) Math.ceil(percentile * count) - 1);
+        return String.format("%,.0f ms", sorted[Math.max(0, index)] / 1e6);
+    }
+}
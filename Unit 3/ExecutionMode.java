@@ -0,0 +1,114 @@
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * ExecutionMode enum: The ways the Clock program can run its background Runnables.
+ *
+ * - VIRTUAL_THREADS: one virtual thread per task (Java 21+). A blocked virtual thread gives its
+ *   carrier thread back, so 100,000 sleeping tasks cost only a little heap each. On older Java
+ *   versions this falls back to one platform thread per task.
+ * - WORK_STEALING: a ForkJoinPool with one worker per CPU; idle workers steal queued tasks
+ *   from busy ones. Tasks that block should do so through blockingSleep() (a ManagedBlocker),
+ *   which lets the pool add a spare worker while they wait.
+ * - PRIORITY_QUEUE: a PriorityTaskExecutor, a fixed pool with a bounded queue that always
+ *   runs the most important waiting task first.
+ */
+public enum ExecutionMode {
+    VIRTUAL_THREADS,
+    WORK_STEALING,
+    PRIORITY_QUEUE;
+
+    /**
+     * Creates an executor for this mode.
+     * @param threads The worker threads (PRIORITY_QUEUE) or parallelism (WORK_STEALING);
+     *                ignored for VIRTUAL_THREADS.
+     * @param queueCapacity The queue bound (PRIORITY_QUEUE only).
+     */
+    public ExecutorService newExecutor(int threads, int queueCapacity) {
+        switch (this) {
+            case VIRTUAL_THREADS:
+                return newVirtualThreadPerTaskExecutor();
+            case WORK_STEALING:
+                return new ForkJoinPool(threads);
+            default:
+                return new PriorityTaskExecutor(threads, queueCapacity);
+        }
+    }
+
+    // Parses "virtual", "forkjoin" or "priority" (or the constant names)
+    public static ExecutionMode parse(String text) {
+        switch (text.toLowerCase(Locale.ROOT)) {
+            case "virtual":
+                return VIRTUAL_THREADS;
+            case "forkjoin":
+                return WORK_STEALING;
+            case "priority":
+                return PRIORITY_QUEUE;
+            default:
+                return valueOf(text.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    // ============================
+    // VIRTUAL THREADS
+    // ============================
+
+    private static final Method VIRTUAL_EXECUTOR_FACTORY = findVirtualExecutorFactory();
+
+    // Looked up by reflection so the program still compiles and runs on Java 17
+    private static Method findVirtualExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    public static boolean virtualThreadsAvailable() {
+        return VIRTUAL_EXECUTOR_FACTORY != null;
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (VIRTUAL_EXECUTOR_FACTORY != null) {
+            try {
+                return (ExecutorService) VIRTUAL_EXECUTOR_FACTORY.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                // Fall back to platform threads below
+            }
+        }
+        return Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "TaskThread");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // ============================
+    // BLOCKING INSIDE TASKS
+    // ============================
+
+    /**
+     * Sleeps in a way every mode handles well: in a ForkJoinPool the pool is told the worker
+     * is blocked (so it can start a spare worker), elsewhere it is a plain Thread.sleep().
+     */
+    public static void blockingSleep(long millis) throws InterruptedException {
+        ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+            private boolean done = false;
+
+            @Override
+            public boolean block() throws InterruptedException {
+                Thread.sleep(millis);
+                done = true;
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+                return done;
+            }
+        });
+    }
+}
@@ -0,0 +1,249 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PriorityTaskExecutor class: A fixed pool of worker threads that take tasks from a bounded
+ * priority queue, highest priority first (and oldest first within one priority).
+ *
+ * Thread.setPriority() is only a hint that most operating systems ignore, so it cannot make an
+ * important task run before an unimportant one. This executor decides the order itself: when a
+ * worker becomes free it always takes the most important waiting task.
+ *
+ * The queue is bounded: when it is full, execute() waits for a free place, so a producer that
+ * is faster than the workers slows down instead of filling the heap (backpressure).
+ *
+ * Priorities use the Thread scale: Thread.MIN_PRIORITY (1) to Thread.MAX_PRIORITY (10).
+ * Wrap a task with withPriority() to give it one; other tasks get Thread.NORM_PRIORITY.
+ */
+public class PriorityTaskExecutor extends AbstractExecutorService {
+
+    /**
+     * PrioritizedTask class: A task with a priority. Other executors simply run it,
+     * so the same task can be handed to any ExecutionMode.
+     */
+    public static final class PrioritizedTask implements Runnable {
+        private final Runnable task;
+        private final int priority;
+
+        private PrioritizedTask(Runnable task, int priority) {
+            this.task = task;
+            this.priority = priority;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+    }
+
+    // A Future (from submit) that keeps the priority of its task
+    private static final class PriorityFuture<V> extends FutureTask<V> {
+        private final int priority;
+
+        PriorityFuture(Runnable task, V result, int priority) {
+            super(task, result);
+            this.priority = priority;
+        }
+    }
+
+    // A queued task with its order: priority, then arrival
+    private static final class QueuedTask {
+        final Runnable task;
+        final int priority;
+        final long sequence;
+
+        QueuedTask(Runnable task, int priority, long sequence) {
+            this.task = task;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+
+    // Queued after everything else; a worker that takes one stops
+    private static final int STOP_PRIORITY = Integer.MIN_VALUE;
+
+    private final PriorityBlockingQueue<QueuedTask> queue = new PriorityBlockingQueue<>(1024,
+            Comparator.comparingInt((QueuedTask queued) -> queued.priority).reversed().thenComparingLong(queued -> queued.sequence));
+    private final Semaphore freePlaces;
+    private final int capacity;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final List<Thread> workers = new ArrayList<>();
+    private final CountDownLatch terminated;
+    private volatile boolean shutdown = false;
+    private boolean stoppedNow = false;
+
+    // Queueing a task and shutting down never overlap: a task is either queued before the
+    // stop markers (and runs) or rejected, never left behind the markers
+    private final Object lifecycleLock = new Object();
+
+    /**
+     * Creates and starts the workers.
+     * @param threads The number of worker threads.
+     * @param capacity The number of tasks that may wait in the queue.
+     */
+    public PriorityTaskExecutor(int threads, int capacity) {
+        if (threads <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Threads and capacity must be positive.");
+        }
+        this.freePlaces = new Semaphore(capacity);
+        this.capacity = capacity;
+        this.terminated = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(this::workLoop, "PriorityWorker-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Gives a task a priority for this executor.
+     * @param priority Thread.MIN_PRIORITY (1) to Thread.MAX_PRIORITY (10).
+     */
+    public static Runnable withPriority(Runnable task, int priority) {
+        if (priority < Thread.MIN_PRIORITY || priority > Thread.MAX_PRIORITY) {
+            throw new IllegalArgumentException("Priority must be between 1 and 10: " + priority);
+        }
+        return new PrioritizedTask(task, priority);
+    }
+
+    /**
+     * Queues a task; waits while the queue is full.
+     * @throws RejectedExecutionException If the executor is shut down or the wait is interrupted.
+     */
+    @Override
+    public void execute(Runnable command) {
+        if (shutdown) {
+            throw new RejectedExecutionException("The executor has been shut down.");
+        }
+        try {
+            freePlaces.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for a free place in the queue.");
+        }
+        synchronized (lifecycleLock) {
+            // The executor may have been shut down while this thread waited for a place
+            if (shutdown) {
+                freePlaces.release();
+                throw new RejectedExecutionException("The executor has been shut down.");
+            }
+            queue.add(new QueuedTask(command, priorityOf(command), nextSequence.getAndIncrement()));
+        }
+    }
+
+    // submit() wraps tasks in a Future; this keeps their priority visible to execute()
+    @Override
+    protected <T> FutureTask<T> newTaskFor(Runnable runnable, T value) {
+        return new PriorityFuture<>(runnable, value, priorityOf(runnable));
+    }
+
+    private static int priorityOf(Runnable command) {
+        if (command instanceof PrioritizedTask) {
+            return ((PrioritizedTask) command).priority;
+        }
+        if (command instanceof PriorityFuture) {
+            return ((PriorityFuture<?>) command).priority;
+        }
+        return Thread.NORM_PRIORITY;
+    }
+
+    private void workLoop() {
+        try {
+            while (true) {
+                QueuedTask queued = queue.take();
+                if (queued.priority == STOP_PRIORITY) {
+                    return;
+                }
+                freePlaces.release();
+                try {
+                    queued.task.run();
+                } catch (RuntimeException e) {
+                    // A failing task must not kill the worker
+                    BatchedConsoleWriter.log("WORKER ERROR", e);
+                }
+            }
+        } catch (InterruptedException e) {
+            // shutdownNow(): stop at once
+        } finally {
+            terminated.countDown();
+        }
+    }
+
+    // ============================
+    // LIFECYCLE
+    // ============================
+
+    // Runs the tasks already queued, then stops the workers
+    @Override
+    public void shutdown() {
+        synchronized (lifecycleLock) {
+            if (!shutdown) {
+                shutdown = true;
+                addStopMarkers();
+            }
+        }
+    }
+
+    // Stops the workers at once and returns the tasks that never ran
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<QueuedTask> drained = new ArrayList<>();
+        synchronized (lifecycleLock) {
+            shutdown = true;
+            queue.drainTo(drained);
+            // A worker whose task swallows the interrupt still finds a marker and stops
+            addStopMarkers();
+            if (!stoppedNow) {
+                stoppedNow = true;
+                // Wake every producer waiting for a place; each one then sees shutdown and
+                // is rejected. Never more than the capacity of permits are out, so this cannot overflow
+                freePlaces.release(Integer.MAX_VALUE - capacity);
+            }
+        }
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        List<Runnable> notRun = new ArrayList<>();
+        for (QueuedTask queued : drained) {
+            if (queued.priority != STOP_PRIORITY) {
+                notRun.add(queued.task);
+            }
+        }
+        return notRun;
+    }
+
+    private void addStopMarkers() {
+        for (int i = 0; i < workers.size(); i++) {
+            queue.add(new QueuedTask(null, STOP_PRIORITY, Long.MAX_VALUE));
+        }
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+}
@@ -0,0 +1,95 @@
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TickerBenchmark class: Runs thousands of independent tickers on one TickerService and
+ * measures how late their ticks are, then compares the drift of a ticker with the drift of the
+ * old "work, then sleep(period)" loop.
+ *
+ * Usage: java TickerBenchmark [tickers] [seconds]
+ */
+public class TickerBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int tickerCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        long periodNanos = TimeUnit.MILLISECONDS.toNanos(100);
+
+        // --- 1. Many tickers on one thread ---
+        // Every tick records how late it ran compared with its ideal time (first + n * period).
+        // All tickers run on the wheel thread, so a plain array is safe.
+        long[] lateness = new long[(int) (tickerCount * (seconds * 1_000_000_000L / periodNanos + 2))];
+        int[] sampleCount = {0};
+
+        try (TickerService service = new TickerService()) {
+            int threadsBefore = Thread.activeCount();
+            TickerService.Ticker[] tickers = new TickerService.Ticker[tickerCount];
+            for (int i = 0; i < tickerCount; i++) {
+                // Spread the tickers over the period, as independent clocks would be
+                long delay = ThreadLocalRandom.current().nextLong(periodNanos);
+                long first = System.nanoTime() + delay;
+                long[] n = {0};
+                tickers[i] = service.scheduleAtFixedRate(() -> {
+                    long ideal = first + n[0]++ * periodNanos;
+                    if (sampleCount[0] < lateness.length) {
+                        lateness[sampleCount[0]++] = System.nanoTime() - ideal;
+                    }
+                }, delay, periodNanos, TimeUnit.NANOSECONDS);
+            }
+            Thread.sleep(seconds * 1000L);
+            long skipped = 0;
+            for (TickerService.Ticker ticker : tickers) {
+                ticker.cancel();
+                skipped += ticker.skippedTicks();
+            }
+            System.out.printf("%,d tickers every 100 ms for %d s on %d extra thread(s): %,d ticks, %,d skipped%n",
+                    tickerCount, seconds, Thread.activeCount() - threadsBefore + 1, sampleCount[0], skipped);
+        }
+        long[] sorted = Arrays.copyOf(lateness, sampleCount[0]);
+        Arrays.sort(sorted);
+        System.out.printf("Lateness: p50 %s  p99 %s  max %s%n",
+                millis(sorted, 0.50), millis(sorted, 0.99), millis(sorted, 1.0));
+
+        // --- 2. Drift: ticker versus sleep loop, both doing 5 ms of work per 100 ms tick ---
+        int ticks = seconds * 10;
+        long loopStart = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            busyWork(5);
+            Thread.sleep(100);
+        }
+        long loopDrift = System.nanoTime() - loopStart - ticks * periodNanos;
+
+        long[] lastTick = {0};
+        try (TickerService service = new TickerService()) {
+            long tickerStart = System.nanoTime();
+            TickerService.Ticker ticker = service.scheduleAtFixedRate(() -> {
+                busyWork(5);
+                lastTick[0] = System.nanoTime();
+            }, 100, 100, TimeUnit.MILLISECONDS);
+            while (ticker.ticks() < ticks) {
+                Thread.sleep(10);
+            }
+            ticker.cancel();
+            // The last tick should have ended 5 ms after its ideal time, ticks * period after the start
+            long tickerDrift = lastTick[0] - tickerStart - ticks * periodNanos - TimeUnit.MILLISECONDS.toNanos(5);
+            System.out.printf("Drift after %d ticks: sleep loop %.1f ms, ticker %.1f ms%n",
+                    ticks, loopDrift / 1e6, tickerDrift / 1e6);
+        }
+    }
+
+    private static void busyWork(long millis) {
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static String millis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return "-";
+        }
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1);
+        return String.format("%.1f ms", sorted[Math.max(0, index)] / 1e6);
+    }
+}
@@ -0,0 +1,151 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TickerService class: Runs any number of periodic tasks ("tickers") on one shared TimerWheel,
+ * instead of one sleeping thread per task.
+ *
+ * Tickers are drift-free: the n-th tick is due at first + n * period, computed from the first
+ * deadline, never from "when the last tick happened to run". A sleep loop (work, then
+ * sleep(1000)) falls a little further behind on every tick; a ticker stays on schedule. If a
+ * tick is so late that later ticks are already due, those are skipped (and counted) rather than
+ * run in a burst.
+ *
+ * Ticker tasks run on the wheel thread, so they must be short (printing a line is fine).
+ */
+public class TickerService implements AutoCloseable {
+
+    // 10 ms resolution; 512 buckets per level (level 0 turns every 5 seconds)
+    private static final long TICK_MILLIS = 10;
+    private static final int WHEEL_SIZE = 512;
+
+    private final TimerWheel wheel;
+    private final AtomicInteger activeTickers = new AtomicInteger();
+
+    public TickerService() {
+        this(new TimerWheel(TICK_MILLIS, WHEEL_SIZE, "TickerServiceThread"));
+    }
+
+    public TickerService(TimerWheel wheel) {
+        this.wheel = wheel;
+    }
+
+    /**
+     * Ticker class: One periodic task on the service.
+     */
+    public final class Ticker {
+        private final Runnable task;
+        private final long periodNanos;
+        private final long firstDeadline;
+        private long tickNumber = 0;            // ticks due so far (wheel thread only)
+        private volatile long ticks = 0;
+        private volatile long skippedTicks = 0;
+        private volatile boolean cancelled = false;
+        private volatile TimerWheel.Timeout nextTimeout;
+
+        private Ticker(Runnable task, long firstDeadline, long periodNanos) {
+            this.task = task;
+            this.firstDeadline = firstDeadline;
+            this.periodNanos = periodNanos;
+        }
+
+        // Runs on the wheel thread when a tick is due
+        private void fire() {
+            if (cancelled) {
+                return;
+            }
+            task.run();
+            ticks++;
+
+            // The next deadline is computed from the first one, so lateness never accumulates
+            tickNumber++;
+            long now = System.nanoTime();
+            long next = firstDeadline + tickNumber * periodNanos;
+            if (next <= now) {
+                // Whole periods have gone by: skip them instead of firing several ticks at once
+                long missed = (now - next) / periodNanos + 1;
+                tickNumber += missed;
+                skippedTicks += missed;
+                next = firstDeadline + tickNumber * periodNanos;
+            }
+            scheduleNext(next);
+        }
+
+        private void scheduleNext(long deadline) {
+            nextTimeout = wheel.scheduleAt(this::fire, deadline);
+            // cancel() may have run between the check in fire() and here
+            if (cancelled) {
+                nextTimeout.cancel();
+            }
+        }
+
+        // Stops the ticker; a tick that is already running still finishes
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                activeTickers.decrementAndGet();
+                TimerWheel.Timeout timeout = nextTimeout;
+                if (timeout != null) {
+                    timeout.cancel();
+                }
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        // The number of ticks that ran
+        public long ticks() {
+            return ticks;
+        }
+
+        // The number of ticks that were skipped because they were already overdue
+        public long skippedTicks() {
+            return skippedTicks;
+        }
+    }
+
+    /**
+     * Starts a ticker.
+     * @param task The task to run every period.
+     * @param initialDelay The time until the first tick.
+     * @param period The time between ticks.
+     * @param unit The unit of initialDelay and period.
+     * @return The ticker, which can be cancelled.
+     */
+    public Ticker scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("The period must be positive: " + period);
+        }
+        Ticker ticker = new Ticker(task, System.nanoTime() + unit.toNanos(initialDelay), unit.toNanos(period));
+        activeTickers.incrementAndGet();
+        ticker.scheduleNext(ticker.firstDeadline);
+        return ticker;
+    }
+
+    /**
+     * Starts a ticker that runs just after the start of every wall-clock second, which is what
+     * a clock display wants: the printed second changes right when the real one does. The ticks
+     * come one wheel tick (10 ms) after the second turns, so a CoarseClock read by the task has
+     * surely moved on to the new second.
+     */
+    public Ticker everySecond(Runnable task) {
+        long untilNextSecond = 1000 - System.currentTimeMillis() % 1000 + TICK_MILLIS;
+        return scheduleAtFixedRate(task, untilNextSecond, 1000, TimeUnit.MILLISECONDS);
+    }
+
+    public int activeTickers() {
+        return activeTickers.get();
+    }
+
+    public String getThreadName() {
+        return wheel.getThreadName();
+    }
+
+    // Stops every ticker and the wheel thread
+    @Override
+    public void close() {
+        wheel.close();
+    }
+}
@@ -0,0 +1,342 @@
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * TimerWheel class: A hierarchical timer wheel that runs many timers on ONE thread.
+ *
+ * Each level of the wheel is a ring of buckets. A level-0 bucket covers one tick (e.g. 10 ms),
+ * a level-1 bucket covers a whole turn of level 0, and so on, like the hands of a clock. A timer
+ * goes into the lowest level whose range still reaches its deadline; when the ticks reach a
+ * higher-level bucket, its timers "cascade" down into finer buckets, and level-0 buckets hold
+ * only timers due in exactly that tick. With 4 levels of 512 buckets a wheel with 10 ms ticks
+ * covers over 20 years, yet scheduling, cancelling and expiring are all O(1): no timer is ever
+ * looked at more than once per level, however many timers are pending.
+ *
+ * The wheel thread wakes at absolute tick boundaries (start + n * tick), so it never drifts.
+ * Work is batched: every wake-up hands over all schedule and cancel requests that arrived in
+ * the meantime, then processes every tick that has elapsed, so a late wake-up (a GC pause, a
+ * busy CPU) catches up in one go. A timer fires at the first tick boundary at or after its
+ * deadline, i.e. at most one tick late.
+ *
+ * Any thread may schedule or cancel; those requests are handed to the wheel thread through
+ * lock-free queues, and only the wheel thread touches the buckets.
+ */
+public class TimerWheel implements AutoCloseable {
+
+    /**
+     * Timeout class: One scheduled timer. It is also the node of its bucket's linked list,
+     * so removing it from the wheel needs no search.
+     */
+    public static final class Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final TimerWheel wheel;
+        private final Runnable task;
+        private final long deadline;     // nanoseconds since the wheel started
+        private volatile int state = PENDING;
+
+        // Only used by the wheel thread
+        private long expiryTick;
+        private Bucket bucket;
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(TimerWheel wheel, Runnable task, long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the timer if it has not fired yet.
+         * @return true if this call cancelled it.
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            // The wheel thread unlinks it on its next tick
+            wheel.cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+    }
+
+    // A bucket: a doubly linked list of timers
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.previous = tail;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.previous == null) {
+                head = timeout.next;
+            } else {
+                timeout.previous.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.previous;
+            } else {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        // Empties the bucket and returns its first timer (the rest follow through next)
+        Timeout clear() {
+            Timeout first = head;
+            head = null;
+            tail = null;
+            return first;
+        }
+    }
+
+    // Levels of buckets; level L bucket = wheelSize^L ticks
+    private static final int LEVELS = 4;
+
+    private final long tickNanos;
+    private final Bucket[][] levels;
+    private final int bits;      // log2 of the buckets per level
+    private final int mask;
+    private final Executor executor;
+    private final Thread workerThread;
+    private final long startTime;
+
+    // Requests from other threads, handed to the wheel thread
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean running = true;
+    private volatile long pendingCount = 0;   // written only by the wheel thread
+    private long tick = 0;                    // the next tick to process (wheel thread only)
+
+    /**
+     * Creates and starts a wheel whose expired timers run on the wheel thread itself.
+     * @param tickMillis The length of one tick (the timer resolution).
+     * @param wheelSize The number of buckets per level (rounded up to a power of two).
+     * @param threadName The name of the wheel thread.
+     */
+    public TimerWheel(long tickMillis, int wheelSize, String threadName) {
+        this(tickMillis, wheelSize, threadName, null);
+    }
+
+    /**
+     * Creates and starts a wheel.
+     * @param executor Runs the expired timers' tasks, or null to run them on the wheel thread
+     *                 (fine for short tasks, such as printing the time).
+     */
+    public TimerWheel(long tickMillis, int wheelSize, String threadName, Executor executor) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick and wheel size must be positive.");
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        int size = Math.max(2, Integer.highestOneBit(wheelSize * 2 - 1));
+        this.levels = new Bucket[LEVELS][size];
+        for (Bucket[] level : levels) {
+            for (int i = 0; i < size; i++) {
+                level[i] = new Bucket();
+            }
+        }
+        this.bits = Integer.numberOfTrailingZeros(size);
+        this.mask = size - 1;
+        this.executor = executor;
+        this.startTime = System.nanoTime();
+        this.workerThread = new Thread(this::workLoop, threadName);
+        this.workerThread.start();
+    }
+
+    /**
+     * Schedules a task to run once after a delay.
+     * @return The timeout, which can be cancelled.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return scheduleAt(task, System.nanoTime() + unit.toNanos(delay));
+    }
+
+    /**
+     * Schedules a task to run once at an absolute time.
+     * @param deadlineNanos The time to run at, on the System.nanoTime() scale.
+     * @return The timeout, which can be cancelled.
+     */
+    public Timeout scheduleAt(Runnable task, long deadlineNanos) {
+        if (!running) {
+            throw new IllegalStateException("The timer wheel has been closed.");
+        }
+        Timeout timeout = new Timeout(this, task, deadlineNanos - startTime);
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    // The number of timers currently on the wheel (approximate while others are scheduling)
+    public long pendingTimers() {
+        return pendingCount + scheduled.size();
+    }
+
+    public String getThreadName() {
+        return workerThread.getName();
+    }
+
+    // Stops the wheel thread; timers that have not fired yet are dropped
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(workerThread);
+        try {
+            workerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ============================
+    // THE WHEEL THREAD
+    // ============================
+
+    private void workLoop() {
+        while (running) {
+            // Sleep until the END of the next tick, measured from the start time, not from
+            // "now": a slow wake-up makes the next sleep shorter instead of shifting every later tick
+            long tickEnd = (tick + 1) * tickNanos;
+            long now;
+            while (running && (now = System.nanoTime() - startTime) < tickEnd) {
+                LockSupport.parkNanos(tickEnd - now);
+            }
+            if (!running) {
+                break;
+            }
+
+            // One batch: all requests since the last wake-up, then every tick that has ended
+            removeCancelled();
+            addScheduled();
+            long lastTick = (System.nanoTime() - startTime) / tickNanos;
+            if (pendingCount == 0) {
+                // Nothing on the wheel: jump straight to now instead of visiting empty buckets
+                tick = lastTick;
+                continue;
+            }
+            while (tick < lastTick && running) {
+                processTick();
+                tick++;
+            }
+        }
+    }
+
+    // Hands newly scheduled timers to the wheel (capped per wake-up so a burst of schedule()
+    // calls cannot stall the clock)
+    private void addScheduled() {
+        for (int i = 0; i < 100_000; i++) {
+            Timeout timeout = scheduled.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state == Timeout.CANCELLED) {
+                continue;
+            }
+            // The tick in which the deadline falls; a deadline in the past goes to this tick
+            timeout.expiryTick = Math.max(timeout.deadline / tickNanos, tick);
+            place(timeout);
+            pendingCount++;
+        }
+    }
+
+    // Puts a timer into the lowest level whose range [current bucket, current bucket + one turn)
+    // reaches its expiry tick
+    private void place(Timeout timeout) {
+        long expiry = timeout.expiryTick;
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = bits * level;
+            long levelStart = (tick >>> shift) << shift;
+            if (expiry - levelStart < (1L << (shift + bits))) {
+                levels[level][(int) ((expiry >>> shift) & mask)].add(timeout);
+                return;
+            }
+        }
+        // Beyond the whole wheel: park it in the top bucket that is reached last; it is placed
+        // again when that bucket cascades
+        int shift = bits * (LEVELS - 1);
+        levels[LEVELS - 1][(int) (((tick >>> shift) + mask) & mask)].add(timeout);
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            // A timeout cancelled before it was placed has no bucket; addScheduled skips it
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+                pendingCount--;
+            }
+        }
+    }
+
+    private void processTick() {
+        // When lower levels complete a turn, the next bucket of the level above moves down into
+        // them; the highest level goes first, because its timers may land in the levels below
+        for (int level = LEVELS - 1; level > 0; level--) {
+            int shift = bits * level;
+            if ((tick & ((1L << shift) - 1)) == 0) {
+                Timeout timeout = levels[level][(int) ((tick >>> shift) & mask)].clear();
+                while (timeout != null) {
+                    Timeout next = timeout.next;
+                    timeout.previous = null;
+                    timeout.next = null;
+                    place(timeout);
+                    timeout = next;
+                }
+            }
+        }
+
+        // Every timer in this level-0 bucket is due in this tick
+        Timeout timeout = levels[0][(int) (tick & mask)].clear();
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.bucket = null;
+            pendingCount--;
+            if (Timeout.STATE.compareAndSet(timeout, Timeout.PENDING, Timeout.EXPIRED)) {
+                run(timeout.task);
+            }
+            timeout = next;
+        }
+    }
+
+    private void run(Runnable task) {
+        try {
+            if (executor == null) {
+                task.run();
+            } else {
+                executor.execute(task);
+            }
+        } catch (RuntimeException e) {
+            // One failing task must not stop the wheel (and every other timer with it)
+            BatchedConsoleWriter.log("TIMER ERROR", e);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TimerWheelBenchmark class: Compares TimerWheel with ScheduledThreadPoolExecutor (a binary
+ * heap, O(log n) per operation) on the workload of a busy server: a million pending timeouts,
+ * most of which are cancelled before they fire (requests that completed in time).
+ *
+ * For each scheduler it measures:
+ * 1. scheduling 1M timers with deadlines spread over 30 to 60 seconds,
+ * 2. the heap memory they occupy,
+ * 3. cancelling all of them,
+ * 4. firing 1M timers due within the next 2 seconds: the time until the last one ran and how
+ *    late they ran.
+ *
+ * Usage: java -Xmx2g TimerWheelBenchmark [timers]
+ */
+public class TimerWheelBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int timers = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.printf("%,d timers per phase%n%n", timers);
+        System.out.printf("%-28s %14s %12s %14s %14s %12s %12s%n", "Scheduler",
+                "schedule ns/op", "MB pending", "cancel ns/op", "fire all (ms)", "late p50", "late p99");
+
+        // Warm-up round for both, then the measured round
+        for (int round = 0; round < 2; round++) {
+            boolean print = round == 1;
+            run(new WheelScheduler(), timers, print);
+            run(new ExecutorScheduler(false), timers, print);
+            run(new ExecutorScheduler(true), timers, print);
+        }
+    }
+
+    // The operations compared: a tiny common interface over the two schedulers
+    private interface Scheduler extends AutoCloseable {
+        String name();
+
+        Object schedule(Runnable task, long delayNanos);
+
+        void cancel(Object handle);
+
+        @Override
+        void close();
+    }
+
+    private static final class WheelScheduler implements Scheduler {
+        // 1 ms ticks, 256 buckets per level
+        private final TimerWheel wheel = new TimerWheel(1, 256, "BenchmarkWheel");
+
+        public String name() {
+            return "TimerWheel (1 ms ticks)";
+        }
+
+        public Object schedule(Runnable task, long delayNanos) {
+            return wheel.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public void cancel(Object handle) {
+            ((TimerWheel.Timeout) handle).cancel();
+        }
+
+        public void close() {
+            wheel.close();
+        }
+    }
+
+    private static final class ExecutorScheduler implements Scheduler {
+        private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+        private final boolean removeOnCancel;
+
+        ExecutorScheduler(boolean removeOnCancel) {
+            this.removeOnCancel = removeOnCancel;
+            // Without this, cancelled tasks stay in the heap until their deadline
+            executor.setRemoveOnCancelPolicy(removeOnCancel);
+        }
+
+        public String name() {
+            return "STPE" + (removeOnCancel ? " (remove on cancel)" : "");
+        }
+
+        public Object schedule(Runnable task, long delayNanos) {
+            return executor.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public void cancel(Object handle) {
+            ((ScheduledFuture<?>) handle).cancel(false);
+        }
+
+        public void close() {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void run(Scheduler scheduler, int timers, boolean print) throws InterruptedException {
+        try (scheduler) {
+            SplittableRandom random = new SplittableRandom(42);
+            Runnable nothing = () -> { };
+
+            // --- 1 + 2. Schedule far-away timers and measure their memory ---
+            long memoryBefore = usedMemory();
+            Object[] handles = new Object[timers];
+            long start = System.nanoTime();
+            for (int i = 0; i < timers; i++) {
+                handles[i] = scheduler.schedule(nothing, TimeUnit.SECONDS.toNanos(30) + random.nextLong(TimeUnit.SECONDS.toNanos(30)));
+            }
+            long scheduleNanos = System.nanoTime() - start;
+            Thread.sleep(50);    // let the wheel thread take over its queue
+            long pendingBytes = usedMemory() - memoryBefore;
+
+            // --- 3. Cancel them all ---
+            start = System.nanoTime();
+            for (Object handle : handles) {
+                scheduler.cancel(handle);
+            }
+            long cancelNanos = System.nanoTime() - start;
+            handles = null;
+
+            // --- 4. Fire timers due within 2 seconds ---
+            long[] lateness = new long[timers];
+            AtomicLong fired = new AtomicLong();
+            long window = TimeUnit.SECONDS.toNanos(2);
+            long fireStart = System.nanoTime();
+            for (int i = 0; i < timers; i++) {
+                long deadline = fireStart + random.nextLong(window);
+                int index = i;
+                scheduler.schedule(() -> {
+                    lateness[index] = System.nanoTime() - deadline;
+                    fired.incrementAndGet();
+                }, deadline - System.nanoTime());
+            }
+            while (fired.get() < timers) {
+                Thread.sleep(1);
+            }
+            long fireMillis = (System.nanoTime() - fireStart) / 1_000_000;
+            Arrays.sort(lateness);
+
+            if (print) {
+                System.out.printf("%-28s %14.0f %12.1f %14.0f %14d %12s %12s%n", scheduler.name(),
+                        scheduleNanos / (double) timers, pendingBytes / 1e6, cancelNanos / (double) timers,
+                        fireMillis, millis(lateness[timers / 2]), millis(lateness[timers * 99 / 100]));
+            }
+        }
+    }
+
+    private static long usedMemory() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f ms", nanos / 1e6);
+    }
+}
@@ -0,0 +1,67 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Measures CatalogBulkLoader: generates CSV and JSON-lines files, imports them into empty
+ * catalogs with progress output, then exports the catalogs again.
+ *
+ * Usage: java -Xmx4g CatalogBulkBenchmark [items]   (default 2,000,000 items)
+ */
+public class CatalogBulkBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        Path directory = Files.createTempDirectory("catalog-bulk");
+        try {
+            for (CatalogBulkLoader.Format format : CatalogBulkLoader.Format.values()) {
+                Path input = directory.resolve("items." + format.name().toLowerCase());
+                Path output = directory.resolve("export." + format.name().toLowerCase());
+                generate(input, format, items);
+                System.out.printf("%n--- %s: %,d records, %.1f MB ---%n", format, items, Files.size(input) / 1e6);
+
+                LibraryCatalog<Integer> catalog = new LibraryCatalog<>();
+                CatalogBulkLoader<Integer> loader = CatalogBulkLoader.forIntegerIDs(catalog);
+                loader.setProgressListener(stats -> System.out.println("[PROGRESS] " + stats));
+                CatalogBulkLoader.LoadStats stats = loader.importFile(input, format);
+                System.out.println("[IMPORT] " + stats);
+                for (String error : stats.errors) {
+                    System.out.println("  " + error);
+                }
+
+                long start = System.nanoTime();
+                long written = loader.exportFile(output, format);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("[EXPORT] %,d items in %.2f s (%,.0f items/s)%n", written, seconds, written / seconds);
+            }
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    // Writes items with a few awkward values: commas, quotes, and one invalid record per 100,000
+    private static void generate(Path file, CatalogBulkLoader.Format format, int items) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (format == CatalogBulkLoader.Format.CSV) {
+                writer.write("id,title,author\n");
+            }
+            for (int n = 0; n < items; n++) {
+                String id = n % 100_000 == 99_999 ? "not-a-number" : Integer.toString(n);
+                if (format == CatalogBulkLoader.Format.CSV) {
+                    writer.write(id + ",\"Collected Works, Volume " + id + "\",Author " + (n % 10_000) + "\n");
+                } else {
+                    writer.write("{\"id\": \"" + id + "\", \"title\": \"The \\\"Collected\\\" Works " + id
+                            + "\", \"author\": \"Author " + (n % 10_000) + "\"}\n");
+                }
+            }
+        }
+    }
+}
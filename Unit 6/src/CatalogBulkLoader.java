@@ -0,0 +1,574 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Loads millions of items into a LibraryCatalog from CSV or JSON-lines files, and writes them back.
+ *
+ * Import is a three-stage pipeline:
+ *   1. read:   the calling thread reads records (lines) and groups them into batches,
+ *   2. parse:  a pool with one thread per core parses and validates whole batches in parallel,
+ *   3. insert: the calling thread inserts the parsed batches in file order (LibraryCatalog is
+ *              not thread-safe, and the file order becomes the catalog order).
+ * Only a few batches per parser thread are in flight at once, so memory stays bounded.
+ * Invalid records and duplicate IDs are counted (with the first few reasons kept) instead of
+ * stopping the load. A progress callback receives the running statistics about once per second.
+ *
+ * File formats (UTF-8):
+ *   CSV:   id,title,author    optional header line; fields with commas, quotes or line breaks
+ *                             are quoted, with "" for a quote inside
+ *   JSONL: {"id": 1001, "title": "...", "author": "..."}    one object per line
+ */
+public class CatalogBulkLoader<T> {
+
+    public enum Format {
+        CSV, JSONL;
+
+        // Picks the format from the file extension (.jsonl / .json -> JSONL, anything else -> CSV)
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase();
+            return name.endsWith(".jsonl") || name.endsWith(".json") ? JSONL : CSV;
+        }
+    }
+
+    private static final int BATCH_SIZE = 8192;
+    private static final int MAX_ERRORS_KEPT = 20;
+    private static final long PROGRESS_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final LibraryCatalog<T> catalog;
+    private final Function<String, T> idParser;
+    private final int threads;
+    private Consumer<LoadStats> progressListener = stats -> { };
+
+    /**
+     * Creates a loader.
+     * @param catalog The catalog to load into and export from.
+     * @param idParser Turns the text of an ID field into an ID (throws on invalid input).
+     * @param threads The number of parser threads.
+     */
+    public CatalogBulkLoader(LibraryCatalog<T> catalog, Function<String, T> idParser, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        this.catalog = catalog;
+        this.idParser = idParser;
+        this.threads = threads;
+    }
+
+    public static CatalogBulkLoader<Integer> forIntegerIDs(LibraryCatalog<Integer> catalog) {
+        return new CatalogBulkLoader<>(catalog, Integer::valueOf, Runtime.getRuntime().availableProcessors());
+    }
+
+    public static CatalogBulkLoader<String> forStringIDs(LibraryCatalog<String> catalog) {
+        return new CatalogBulkLoader<>(catalog, id -> id, Runtime.getRuntime().availableProcessors());
+    }
+
+    // Called with the running statistics about once per second during an import
+    public void setProgressListener(Consumer<LoadStats> progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    // ============================
+    // STATISTICS
+    // ============================
+
+    /**
+     * Counters of one import.
+     */
+    public static class LoadStats {
+        public long records;       // records read from the file
+        public long inserted;      // items added to the catalog
+        public long rejected;      // records that failed validation
+        public long duplicates;    // valid records whose ID was already in the catalog
+        public long elapsedNanos;
+        public final List<String> errors = new ArrayList<>();   // the first few problems
+
+        public double itemsPerSecond() {
+            return elapsedNanos == 0 ? 0 : inserted / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d records, %,d inserted, %,d rejected, %,d duplicates in %.2f s (%,.0f items/s)",
+                    records, inserted, rejected, duplicates, elapsedNanos / 1e9, itemsPerSecond());
+        }
+    }
+
+    // The output of parsing one batch
+    private static final class ParsedBatch<T> {
+        final List<LibraryItem<T>> items = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+        int rejected = 0;
+    }
+
+    // ============================
+    // IMPORT
+    // ============================
+
+    /**
+     * Imports every record of a file into the catalog.
+     * @param file The CSV or JSONL file.
+     * @param format Its format.
+     * @return The statistics of the import.
+     * @throws IOException If the file cannot be read.
+     */
+    public LoadStats importFile(Path file, Format format) throws IOException {
+        LoadStats stats = new LoadStats();
+        long start = System.nanoTime();
+        long nextProgress = start + PROGRESS_INTERVAL_NANOS;
+
+        boolean wasVerbose = catalog.isVerbose();
+        catalog.setVerbose(false);
+        ExecutorService parsers = Executors.newFixedThreadPool(threads);
+        Deque<Future<ParsedBatch<T>>> inFlight = new ArrayDeque<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            long recordNumber = 0;
+            List<String> batch = new ArrayList<>(BATCH_SIZE);
+            String record;
+            while ((record = nextRecord(reader, format)) != null) {
+                recordNumber++;
+                if (recordNumber == 1 && format == Format.CSV && isCsvHeader(record)) {
+                    continue;
+                }
+                if (record.isBlank()) {
+                    continue;
+                }
+                batch.add(record);
+                stats.records++;
+                if (batch.size() == BATCH_SIZE) {
+                    submit(parsers, inFlight, batch, stats.records - batch.size() + 1, format);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                    // Insert finished batches while the parsers work, keeping a few per thread queued
+                    while (inFlight.size() > threads * 4) {
+                        insert(await(inFlight.removeFirst()), stats);
+                    }
+                }
+
+                if ((stats.records & 1023) == 0) {
+                    long now = System.nanoTime();
+                    if (now >= nextProgress) {
+                        stats.elapsedNanos = now - start;
+                        progressListener.accept(stats);
+                        nextProgress = now + PROGRESS_INTERVAL_NANOS;
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                submit(parsers, inFlight, batch, stats.records - batch.size() + 1, format);
+            }
+            while (!inFlight.isEmpty()) {
+                insert(await(inFlight.removeFirst()), stats);
+            }
+        } finally {
+            parsers.shutdownNow();
+            catalog.setVerbose(wasVerbose);
+        }
+
+        stats.elapsedNanos = System.nanoTime() - start;
+        progressListener.accept(stats);
+        return stats;
+    }
+
+    private void submit(ExecutorService parsers, Deque<Future<ParsedBatch<T>>> inFlight, List<String> batch,
+                        long firstRecord, Format format) {
+        inFlight.addLast(parsers.submit(() -> parseBatch(batch, firstRecord, format)));
+    }
+
+    // Stage 2 (parser threads): parses and validates every record of a batch
+    private ParsedBatch<T> parseBatch(List<String> records, long firstRecord, Format format) {
+        ParsedBatch<T> parsed = new ParsedBatch<>();
+        for (int i = 0; i < records.size(); i++) {
+            try {
+                String[] fields = format == Format.CSV ? parseCsv(records.get(i)) : parseJson(records.get(i));
+                parsed.items.add(validate(fields));
+            } catch (IllegalArgumentException e) {
+                parsed.rejected++;
+                if (parsed.errors.size() < MAX_ERRORS_KEPT) {
+                    parsed.errors.add("Record " + (firstRecord + i) + ": " + e.getMessage());
+                }
+            }
+        }
+        return parsed;
+    }
+
+    // Checks the fields (id, title, author) of one record and builds its item
+    private LibraryItem<T> validate(String[] fields) {
+        if (fields[0] == null || fields[0].isBlank()) {
+            throw new IllegalArgumentException("missing ID");
+        }
+        if (fields[1] == null || fields[1].isBlank()) {
+            throw new IllegalArgumentException("missing title");
+        }
+        T id;
+        try {
+            id = idParser.apply(fields[0].trim());
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("invalid ID \"" + fields[0] + "\"");
+        }
+        return new LibraryItem<>(id, fields[1], fields[2]);
+    }
+
+    // Stage 3 (calling thread): adds a parsed batch to the catalog
+    private void insert(ParsedBatch<T> parsed, LoadStats stats) {
+        stats.rejected += parsed.rejected;
+        for (String error : parsed.errors) {
+            if (stats.errors.size() < MAX_ERRORS_KEPT) {
+                stats.errors.add(error);
+            }
+        }
+        for (LibraryItem<T> item : parsed.items) {
+            try {
+                catalog.addItem(item);
+                stats.inserted++;
+            } catch (IllegalArgumentException e) {
+                stats.duplicates++;
+                if (stats.errors.size() < MAX_ERRORS_KEPT) {
+                    stats.errors.add(e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static <R> R await(Future<R> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Import failed: " + e.getCause(), e.getCause());
+        }
+    }
+
+    // ============================
+    // READING AND PARSING RECORDS
+    // ============================
+
+    // Stage 1: reads one record. A CSV record continues on the next line while a quoted field is open.
+    private static String nextRecord(BufferedReader reader, Format format) throws IOException {
+        String line = reader.readLine();
+        if (line == null || format == Format.JSONL || countQuotes(line) % 2 == 0) {
+            return line;
+        }
+        StringBuilder record = new StringBuilder(line);
+        int quotes = countQuotes(line);
+        while (quotes % 2 == 1 && (line = reader.readLine()) != null) {
+            record.append('\n').append(line);
+            quotes += countQuotes(line);
+        }
+        return record.toString();
+    }
+
+    private static int countQuotes(String line) {
+        int quotes = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes;
+    }
+
+    private static boolean isCsvHeader(String record) {
+        return record.trim().toLowerCase().startsWith("id,");
+    }
+
+    // Splits a CSV record into exactly three fields (id, title, author)
+    static String[] parseCsv(String record) {
+        String[] fields = new String[3];
+        int count = 0;
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        while (true) {
+            if (i < record.length() && record.charAt(i) == '"') {
+                // Quoted field: runs to the closing quote; "" stands for one quote
+                i++;
+                while (true) {
+                    if (i >= record.length()) {
+                        throw new IllegalArgumentException("unclosed quote");
+                    }
+                    char c = record.charAt(i++);
+                    if (c == '"') {
+                        if (i < record.length() && record.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                }
+            } else {
+                while (i < record.length() && record.charAt(i) != ',') {
+                    field.append(record.charAt(i++));
+                }
+            }
+
+            if (count == 3) {
+                throw new IllegalArgumentException("more than 3 fields");
+            }
+            fields[count++] = field.toString();
+            field.setLength(0);
+            if (i >= record.length()) {
+                break;
+            }
+            if (record.charAt(i) != ',') {
+                throw new IllegalArgumentException("unexpected text after a quoted field");
+            }
+            i++;
+        }
+        if (count != 3) {
+            throw new IllegalArgumentException("expected 3 fields, found " + count);
+        }
+        return fields;
+    }
+
+    // Reads the "id", "title" and "author" members of a flat JSON object
+    static String[] parseJson(String record) {
+        String[] fields = new String[3];
+        JsonCursor json = new JsonCursor(record);
+        json.expect('{');
+        if (!json.consume('}')) {
+            do {
+                String name = json.readString();
+                json.expect(':');
+                String value = json.readValue();
+                if (name.equals("id")) {
+                    fields[0] = value;
+                } else if (name.equals("title")) {
+                    fields[1] = value;
+                } else if (name.equals("author")) {
+                    fields[2] = value;
+                }
+            } while (json.consume(','));
+            json.expect('}');
+        }
+        json.expectEnd();
+        return fields;
+    }
+
+    // A minimal reader for one line of JSON holding strings, numbers, booleans and null
+    private static final class JsonCursor {
+        private final String text;
+        private int position = 0;
+        private final StringBuilder buffer = new StringBuilder();
+
+        JsonCursor(String text) {
+            this.text = text;
+        }
+
+        void skipSpaces() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        boolean consume(char c) {
+            skipSpaces();
+            if (position < text.length() && text.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(char c) {
+            if (!consume(c)) {
+                throw new IllegalArgumentException("expected '" + c + "' at column " + (position + 1));
+            }
+        }
+
+        void expectEnd() {
+            skipSpaces();
+            if (position != text.length()) {
+                throw new IllegalArgumentException("unexpected text at column " + (position + 1));
+            }
+        }
+
+        // A string, or the text of a number/true/false; null for a JSON null
+        String readValue() {
+            skipSpaces();
+            if (position < text.length() && text.charAt(position) == '"') {
+                return readString();
+            }
+            int start = position;
+            while (position < text.length() && ",}] \t".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            String literal = text.substring(start, position);
+            if (literal.isEmpty()) {
+                throw new IllegalArgumentException("missing value at column " + (start + 1));
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        String readString() {
+            expect('"');
+            buffer.setLength(0);
+            while (true) {
+                if (position >= text.length()) {
+                    throw new IllegalArgumentException("unclosed string");
+                }
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return buffer.toString();
+                }
+                if (c != '\\') {
+                    buffer.append(c);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    throw new IllegalArgumentException("unclosed string");
+                }
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case 'n': buffer.append('\n'); break;
+                    case 't': buffer.append('\t'); break;
+                    case 'r': buffer.append('\r'); break;
+                    case 'b': buffer.append('\b'); break;
+                    case 'f': buffer.append('\f'); break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw new IllegalArgumentException("bad \\u escape");
+                        }
+                        try {
+                            buffer.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException("bad \\u escape");
+                        }
+                        position += 4;
+                        break;
+                    default: buffer.append(escaped);   // \" \\ \/
+                }
+            }
+        }
+    }
+
+    // ============================
+    // EXPORT
+    // ============================
+
+    /**
+     * Writes every item of the catalog to a file, in insertion order.
+     * @param file The file to create or replace.
+     * @param format CSV (with a header line) or JSONL.
+     * @return The number of items written.
+     * @throws IOException If the file cannot be written.
+     */
+    public long exportFile(Path file, Format format) throws IOException {
+        long[] written = {0};
+        StringBuilder row = new StringBuilder(256);
+        char[][] chars = {new char[256]};
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (format == Format.CSV) {
+                writer.write("id,title,author");
+                writer.newLine();
+            }
+            try {
+                catalog.forEachItem(item -> {
+                    row.setLength(0);
+                    if (format == Format.CSV) {
+                        appendCsv(row, String.valueOf(item.getItemID()));
+                        row.append(',');
+                        appendCsv(row, item.getTitle());
+                        row.append(',');
+                        appendCsv(row, item.getAuthor());
+                    } else {
+                        row.append("{\"id\": ");
+                        Object id = item.getItemID();
+                        if (id instanceof Number) {
+                            row.append(id);
+                        } else {
+                            appendJson(row, String.valueOf(id));
+                        }
+                        row.append(", \"title\": ");
+                        appendJson(row, item.getTitle());
+                        row.append(", \"author\": ");
+                        appendJson(row, item.getAuthor());
+                        row.append('}');
+                    }
+                    row.append('\n');
+                    // Copy through a reusable char array: Writer.append(row) would create a String per row
+                    if (chars[0].length < row.length()) {
+                        chars[0] = new char[row.length() * 2];
+                    }
+                    row.getChars(0, row.length(), chars[0], 0);
+                    try {
+                        writer.write(chars[0], 0, row.length());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    written[0]++;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        return written[0];
+    }
+
+    // Quotes a CSV field only when it needs it
+    private static void appendCsv(StringBuilder row, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes && !value.isEmpty()) {
+            row.append(value);
+            return;
+        }
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                row.append('"');
+            }
+            row.append(c);
+        }
+        row.append('"');
+    }
+
+    private static void appendJson(StringBuilder row, String value) {
+        if (value == null) {
+            row.append("null");
+            return;
+        }
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': row.append("\\\""); break;
+                case '\\': row.append("\\\\"); break;
+                case '\n': row.append("\\n"); break;
+                case '\r': row.append("\\r"); break;
+                case '\t': row.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        row.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        row.append(c);
+                    }
+            }
+        }
+        row.append('"');
+    }
+}
@@ -0,0 +1,400 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * A bounded read-through cache in front of a LibraryCatalog, for deployments where a few IDs
+ * receive most getItemDetails calls and the catalog behind it is slow (persisted, huge, remote).
+ *
+ * get(id) answers from the cache when it can (a hit) and otherwise loads the item from the
+ * catalog and keeps it (a miss). The cache holds at most maximumWeight: by default every item
+ * weighs 1 (a size limit), or a weigher gives each item its own weight (e.g. its bytes).
+ * Removing an item from the catalog invalidates it here, since the cache is a CatalogListener.
+ *
+ * Eviction policies:
+ * - LRU: evicts the least recently used item. Simple, but one large scan flushes the hot items.
+ * - W_TINY_LFU (as in the Caffeine library): new items enter a small LRU window (1%); an item
+ *   leaving the window only enters the main area if it has been asked for more often than the
+ *   main area's next victim, judged by a TinyLFU frequency sketch (4-bit Count-Min counters that
+ *   are halved periodically so old popularity fades). The main area is a segmented LRU: items
+ *   start in "probation" and move to "protected" (80%) on their second hit. Hot items therefore
+ *   survive scans and one-hit wonders.
+ *
+ * Hits, misses, evictions and invalidations are counted. All methods are synchronized; misses
+ * call the catalog while holding the cache lock. close() unregisters the cache from the catalog,
+ * which otherwise keeps it (and every cached item) reachable for as long as the catalog lives.
+ */
+public class CatalogCache<T> implements CatalogListener<T>, AutoCloseable {
+
+    public enum Policy { LRU, W_TINY_LFU }
+
+    // Weigher that approximates the heap bytes of an item (object headers plus UTF-16 text)
+    public static final ToIntFunction<LibraryItem<?>> APPROXIMATE_BYTES = item ->
+            96 + 2 * (length(item.getTitle()) + length(item.getAuthor()));
+
+    // Queue numbers; LRU keeps every item in PROBATION
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    // A cached item, linked into one of the queues
+    private static final class Node<T> {
+        T key;
+        LibraryItem<T> item;
+        int weight;
+        int queue;
+        Node<T> previous;
+        Node<T> next;
+    }
+
+    // A doubly linked list with a sentinel: first = least recently used, last = most recently used
+    private static final class AccessQueue<T> {
+        final Node<T> sentinel = new Node<>();
+        long weight = 0;
+
+        AccessQueue() {
+            sentinel.previous = sentinel;
+            sentinel.next = sentinel;
+        }
+
+        Node<T> first() {
+            return sentinel.next == sentinel ? null : sentinel.next;
+        }
+
+        void addLast(Node<T> node) {
+            node.previous = sentinel.previous;
+            node.next = sentinel;
+            sentinel.previous.next = node;
+            sentinel.previous = node;
+            weight += node.weight;
+        }
+
+        void remove(Node<T> node) {
+            node.previous.next = node.next;
+            node.next.previous = node.previous;
+            node.previous = null;
+            node.next = null;
+            weight -= node.weight;
+        }
+    }
+
+    private final LibraryCatalog<T> catalog;
+    private final Policy policy;
+    private final long maximumWeight;
+    private final ToIntFunction<? super LibraryItem<T>> weigher;
+
+    private final Map<T, Node<T>> nodes = new HashMap<>();
+    private final AccessQueue<T>[] queues;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final FrequencySketch sketch;
+
+    // Counters
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long invalidations = 0;
+
+    /**
+     * Creates a cache where every item weighs 1, so maximumWeight is the number of items.
+     */
+    public CatalogCache(LibraryCatalog<T> catalog, Policy policy, long maximumWeight) {
+        this(catalog, policy, maximumWeight, item -> 1, maximumWeight);
+    }
+
+    /**
+     * Creates a cache with a weight limit.
+     * @param catalog The catalog behind the cache; its removals invalidate cached items.
+     * @param policy The eviction policy.
+     * @param maximumWeight The total weight the cache may hold.
+     * @param weigher The weight of one item (must not be negative).
+     */
+    public CatalogCache(LibraryCatalog<T> catalog, Policy policy, long maximumWeight,
+                        ToIntFunction<? super LibraryItem<T>> weigher) {
+        // How many items fit is only known once they are weighed, so the sketch grows with them
+        this(catalog, policy, maximumWeight, weigher, 0);
+    }
+
+    private CatalogCache(LibraryCatalog<T> catalog, Policy policy, long maximumWeight,
+                         ToIntFunction<? super LibraryItem<T>> weigher, long expectedItems) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("Maximum weight must be positive: " + maximumWeight);
+        }
+        this.catalog = catalog;
+        this.policy = policy;
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        AccessQueue<T>[] accessQueues = new AccessQueue[] {new AccessQueue<T>(), new AccessQueue<T>(), new AccessQueue<T>()};
+        this.queues = accessQueues;
+
+        this.windowMaximum = Math.max(1, maximumWeight / 100);
+        this.protectedMaximum = (maximumWeight - windowMaximum) * 80 / 100;
+        this.sketch = policy == Policy.W_TINY_LFU ? new FrequencySketch(expectedItems) : null;
+        catalog.addListener(this);
+    }
+
+    // ============================
+    // READS
+    // ============================
+
+    /**
+     * Returns the item with this ID, from the cache or else from the catalog.
+     * @param itemID The ID to look up.
+     * @return The item, or null if the catalog does not have it (misses are not cached).
+     */
+    public synchronized LibraryItem<T> get(T itemID) {
+        if (sketch != null) {
+            sketch.increment(itemID.hashCode());
+        }
+        Node<T> node = nodes.get(itemID);
+        if (node != null) {
+            hits++;
+            onHit(node);
+            return node.item;
+        }
+
+        misses++;
+        LibraryItem<T> item = catalog.getItemDetails(itemID);
+        if (item != null) {
+            insert(itemID, item);
+        }
+        return item;
+    }
+
+    // Removes an item from the cache (the catalog is not changed)
+    public synchronized void invalidate(T itemID) {
+        Node<T> node = nodes.remove(itemID);
+        if (node != null) {
+            queues[node.queue].remove(node);
+            invalidations++;
+        }
+    }
+
+    // ============================
+    // INVALIDATION (CatalogListener)
+    // ============================
+
+    @Override
+    public void itemAdded(LibraryItem<T> item) {
+        // Nothing to do: misses are not cached, so no stale "not found" can exist
+    }
+
+    @Override
+    public void itemRemoved(LibraryItem<T> item) {
+        invalidate(item.getItemID());
+    }
+
+    // Stops listening to the catalog and empties the cache; the statistics stay readable
+    @Override
+    public synchronized void close() {
+        catalog.removeListener(this);
+        nodes.clear();
+        for (AccessQueue<T> queue : queues) {
+            queue.sentinel.previous = queue.sentinel;
+            queue.sentinel.next = queue.sentinel;
+            queue.weight = 0;
+        }
+    }
+
+    // ============================
+    // POLICY
+    // ============================
+
+    private void onHit(Node<T> node) {
+        if (policy == Policy.LRU || node.queue != PROBATION) {
+            // Most recently used again, in the same queue
+            AccessQueue<T> queue = queues[node.queue];
+            queue.remove(node);
+            queue.addLast(node);
+            return;
+        }
+        // W-TinyLFU: a second hit promotes from probation to protected; protected overflow
+        // goes back to probation
+        queues[PROBATION].remove(node);
+        node.queue = PROTECTED;
+        queues[PROTECTED].addLast(node);
+        while (queues[PROTECTED].weight > protectedMaximum) {
+            Node<T> demoted = queues[PROTECTED].first();
+            queues[PROTECTED].remove(demoted);
+            demoted.queue = PROBATION;
+            queues[PROBATION].addLast(demoted);
+        }
+    }
+
+    private void insert(T itemID, LibraryItem<T> item) {
+        int weight = weigher.applyAsInt(item);
+        if (weight > maximumWeight) {
+            return;
+        }
+        Node<T> node = new Node<>();
+        node.key = itemID;
+        node.item = item;
+        node.weight = weight;
+        nodes.put(itemID, node);
+
+        if (policy == Policy.LRU) {
+            node.queue = PROBATION;
+            queues[PROBATION].addLast(node);
+            while (queues[PROBATION].weight > maximumWeight) {
+                evict(queues[PROBATION].first());
+            }
+            return;
+        }
+
+        sketch.ensureCapacity(nodes.size());
+        node.queue = WINDOW;
+        queues[WINDOW].addLast(node);
+        while (queues[WINDOW].weight > windowMaximum) {
+            Node<T> candidate = queues[WINDOW].first();
+            queues[WINDOW].remove(candidate);
+            admit(candidate);
+        }
+    }
+
+    // An item leaving the window enters the main area only if it is more popular than the
+    // victims that would have to leave to make room for it
+    private void admit(Node<T> candidate) {
+        long mainMaximum = maximumWeight - windowMaximum;
+        while (queues[PROBATION].weight + queues[PROTECTED].weight + candidate.weight > mainMaximum) {
+            Node<T> victim = queues[PROBATION].first();
+            if (victim == null) {
+                victim = queues[PROTECTED].first();
+            }
+            if (victim == null || sketch.frequency(candidate.key.hashCode()) <= sketch.frequency(victim.key.hashCode())) {
+                nodes.remove(candidate.key);
+                evictions++;
+                return;
+            }
+            evict(victim);
+        }
+        candidate.queue = PROBATION;
+        queues[PROBATION].addLast(candidate);
+    }
+
+    private void evict(Node<T> node) {
+        queues[node.queue].remove(node);
+        nodes.remove(node.key);
+        evictions++;
+    }
+
+    // ============================
+    // STATISTICS
+    // ============================
+
+    public synchronized long hitCount() {
+        return hits;
+    }
+
+    public synchronized long missCount() {
+        return misses;
+    }
+
+    public synchronized long evictionCount() {
+        return evictions;
+    }
+
+    public synchronized long invalidationCount() {
+        return invalidations;
+    }
+
+    public synchronized double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : hits / (double) requests;
+    }
+
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    public synchronized long weight() {
+        return queues[WINDOW].weight + queues[PROBATION].weight + queues[PROTECTED].weight;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s cache: %,d items (weight %,d of %,d), %,d hits, %,d misses (hit rate %.1f%%), "
+                        + "%,d evictions, %,d invalidations",
+                policy, nodes.size(), weight(), maximumWeight, hits, misses, hitRate() * 100, evictions, invalidations);
+    }
+
+    private static int length(String text) {
+        return text == null ? 0 : text.length();
+    }
+
+    /**
+     * TinyLFU frequency sketch: a Count-Min sketch of 4-bit counters (16 per long), 4 hash
+     * functions, estimate = smallest counter. After 10 increments per counter slot, every
+     * counter is halved, so the sketch forgets old popularity. It has one long (16 counters) per
+     * item the cache holds: sized up front when the number of items is known, otherwise grown
+     * (and restarted empty, since the counters cannot be rehashed) as the cache fills.
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {0x97CB3127L, 0xB1C9A67DL, 0x8DC1F3B3L, 0xC9E7A5F1L};
+
+        private static final int MAXIMUM_SIZE = 1 << 22;
+
+        private long[] table;
+        private int sampleSize;
+        private int additions = 0;
+
+        FrequencySketch(long expectedItems) {
+            resize(expectedItems);
+        }
+
+        // Grows the table when the cache holds more items than it was sized for
+        void ensureCapacity(long items) {
+            if (items > table.length && table.length < MAXIMUM_SIZE) {
+                resize(items);
+            }
+        }
+
+        private void resize(long items) {
+            int size = Integer.highestOneBit((int) Math.min(MAXIMUM_SIZE, Math.max(16, items)) * 2 - 1);
+            table = new long[size];
+            sampleSize = 10 * size;
+            additions = 0;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int h = spread(hash, i);
+                int index = h & (table.length - 1);
+                int shift = ((h >>> 24) & 15) << 2;
+                if (((table[index] >>> shift) & 15) < 15) {
+                    table[index] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions == sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(int hash) {
+            int frequency = 15;
+            for (int i = 0; i < 4; i++) {
+                int h = spread(hash, i);
+                int index = h & (table.length - 1);
+                int shift = ((h >>> 24) & 15) << 2;
+                frequency = Math.min(frequency, (int) ((table[index] >>> shift) & 15));
+            }
+            return frequency;
+        }
+
+        // Halves every counter at once (a shift per long, masking off bits that crossed counters)
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+            }
+            additions /= 2;
+        }
+
+        private static int spread(int hash, int i) {
+            long h = (hash + SEEDS[i]) * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 29;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Compares the hit rates and lookup speed of the CatalogCache policies on a skewed workload:
+ * item popularity follows a Zipf distribution (a few items get most lookups), and in the second
+ * phase a long sequential scan over cold items is mixed in, the pattern that flushes an LRU cache.
+ *
+ * Usage: java CatalogCacheBenchmark [items] [lookups]
+ */
+public class CatalogCacheBenchmark {
+
+    public static void main(String[] args) {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+
+        LibraryCatalog<Integer> catalog = new LibraryCatalog<>();
+        catalog.setVerbose(false);
+        for (int id = 0; id < items; id++) {
+            catalog.addItem(new LibraryItem<>(id, "Title " + id, "Author " + (id % 1000)));
+        }
+
+        int[] zipf = zipfWorkload(items, lookups, 0.9, new SplittableRandom(42));
+        int[] scans = scanWorkload(items, lookups, zipf);
+        System.out.printf("%,d items, %,d lookups (Zipf s=0.9)%n%n", items, lookups);
+        System.out.printf("%-12s %-10s %12s %14s %12s%n", "Policy", "Capacity", "Hit rate", "Hit rate+scan", "ns/lookup");
+
+        for (double fraction : new double[] {0.001, 0.01, 0.1}) {
+            long capacity = Math.max(1, (long) (items * fraction));
+            for (CatalogCache.Policy policy : CatalogCache.Policy.values()) {
+                // Each cache is closed before the next one starts, so the catalog does not
+                // keep notifying (and holding) the caches of earlier rounds
+                try (CatalogCache<Integer> cache = new CatalogCache<>(catalog, policy, capacity);
+                     CatalogCache<Integer> scanned = new CatalogCache<>(catalog, policy, capacity)) {
+                    long start = System.nanoTime();
+                    run(cache, zipf);
+                    long elapsed = System.nanoTime() - start;
+
+                    run(scanned, scans);
+                    System.out.printf("%-12s %-10s %11.1f%% %13.1f%% %12.0f%n", policy, String.format("%,d", capacity),
+                            cache.hitRate() * 100, scanned.hitRate() * 100, elapsed / (double) lookups);
+                }
+            }
+        }
+
+        // Weight-based limit and invalidation
+        CatalogCache<Integer> weighted = new CatalogCache<>(catalog, CatalogCache.Policy.W_TINY_LFU, 1_000_000,
+                CatalogCache.APPROXIMATE_BYTES);
+        run(weighted, zipf);
+        catalog.removeItem(zipf[0]);
+        if (weighted.get(zipf[0]) != null) {
+            throw new AssertionError("A removed item was still served from the cache.");
+        }
+        System.out.println();
+        System.out.println(weighted);
+
+        // A closed cache no longer hears about removals
+        weighted.close();
+        int cachedID = zipf[0] == 0 ? 1 : 0;
+        weighted.get(cachedID);
+        long invalidations = weighted.invalidationCount();
+        catalog.removeItem(cachedID);
+        if (weighted.invalidationCount() != invalidations) {
+            throw new AssertionError("A closed cache was still notified by the catalog.");
+        }
+    }
+
+    private static void run(CatalogCache<Integer> cache, int[] workload) {
+        long found = 0;
+        for (int id : workload) {
+            if (cache.get(id) != null) {
+                found++;
+            }
+        }
+        if (found != workload.length) {
+            throw new AssertionError("Lookups failed: " + (workload.length - found));
+        }
+    }
+
+    // IDs drawn from a Zipf distribution; the popular ranks are shuffled over the ID space
+    private static int[] zipfWorkload(int items, int lookups, double skew, SplittableRandom random) {
+        double[] cumulative = new double[items];
+        double sum = 0;
+        for (int rank = 0; rank < items; rank++) {
+            sum += 1 / Math.pow(rank + 1, skew);
+            cumulative[rank] = sum;
+        }
+        int[] idOfRank = new int[items];
+        for (int i = 0; i < items; i++) {
+            idOfRank[i] = i;
+        }
+        for (int i = items - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = idOfRank[i];
+            idOfRank[i] = idOfRank[j];
+            idOfRank[j] = swap;
+        }
+
+        int[] workload = new int[lookups];
+        for (int i = 0; i < lookups; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            workload[i] = idOfRank[Math.min(items - 1, rank < 0 ? -rank - 1 : rank)];
+        }
+        return workload;
+    }
+
+    // The Zipf workload with every 4th lookup replaced by the next ID of a sequential scan
+    private static int[] scanWorkload(int items, int lookups, int[] zipf) {
+        int[] workload = zipf.clone();
+        int next = 0;
+        for (int i = 3; i < lookups; i += 4) {
+            workload[i] = next;
+            next = (next + 1) % items;
+        }
+        return workload;
+    }
+}
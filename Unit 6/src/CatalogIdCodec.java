@@ -0,0 +1,44 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Turns item IDs into bytes and back, so catalogs with any ID type can be written to disk.
+ * Codecs for the two ID types used by the app (Integer and String) are provided.
+ */
+public interface CatalogIdCodec<T> {
+
+    byte[] toBytes(T itemID);
+
+    // Reads an ID of the given number of bytes from the buffer's current position
+    T fromBytes(ByteBuffer buffer, int length);
+
+    static CatalogIdCodec<Integer> integers() {
+        return new CatalogIdCodec<Integer>() {
+            @Override
+            public byte[] toBytes(Integer itemID) {
+                return ByteBuffer.allocate(Integer.BYTES).putInt(itemID).array();
+            }
+
+            @Override
+            public Integer fromBytes(ByteBuffer buffer, int length) {
+                return buffer.getInt();
+            }
+        };
+    }
+
+    static CatalogIdCodec<String> strings() {
+        return new CatalogIdCodec<String>() {
+            @Override
+            public byte[] toBytes(String itemID) {
+                return itemID.getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public String fromBytes(ByteBuffer buffer, int length) {
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+}
@@ -0,0 +1,11 @@
+/**
+ * Receives every change made to a LibraryCatalog, so extra structures
+ * (search indexes, logs, caches) can stay up to date without the catalog knowing them.
+ * Listeners are called after the change succeeded, on the thread that made it.
+ */
+public interface CatalogListener<T> {
+
+    void itemAdded(LibraryItem<T> item);
+
+    void itemRemoved(LibraryItem<T> item);
+}
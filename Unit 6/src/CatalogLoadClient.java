@@ -0,0 +1,240 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Load generator for CatalogServer. It opens several connections, preloads items, then sends a
+ * mix of GET (80%), MGET of 10 IDs (15%) and ADD/REMOVE (5%) requests for a fixed time, with a
+ * number of requests pipelined per round trip, and reports requests per second and latency
+ * percentiles. Without a host it starts a local server in the same JVM.
+ *
+ * Usage: java CatalogLoadClient [--host H] [--port P] [--connections N] [--pipeline N]
+ *                               [--seconds N] [--items N]
+ */
+public class CatalogLoadClient {
+
+    public static void main(String[] args) throws Exception {
+        String host = null;
+        int port = 7070;
+        int connections = 16;
+        int pipeline = 8;
+        int seconds = 5;
+        int items = 100_000;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--host": host = args[i + 1]; break;
+                case "--port": port = Integer.parseInt(args[i + 1]); break;
+                case "--connections": connections = Integer.parseInt(args[i + 1]); break;
+                case "--pipeline": pipeline = Integer.parseInt(args[i + 1]); break;
+                case "--seconds": seconds = Integer.parseInt(args[i + 1]); break;
+                case "--items": items = Integer.parseInt(args[i + 1]); break;
+                default: System.out.println("Unknown option: " + args[i]);
+            }
+        }
+
+        CatalogServer<Integer> localServer = null;
+        if (host == null) {
+            localServer = new CatalogServer<>(new LibraryCatalog<>(), Integer::valueOf, 0);
+            host = "localhost";
+            port = localServer.getPort();
+            System.out.println("Started a local server on port " + port);
+        }
+
+        try {
+            preload(host, port, items);
+            checkProtocol(host, port);
+            System.out.printf("Preloaded %,d items; running %d connections, pipeline depth %d, %d s...%n",
+                    items, connections, pipeline, seconds);
+            run(host, port, connections, pipeline, seconds, items);
+        } finally {
+            if (localServer != null) {
+                localServer.close();
+            }
+        }
+    }
+
+    // Adds the items the load will read, in pipelined batches of 1000
+    private static void preload(String host, int port, int items) throws IOException {
+        try (Connection connection = new Connection(host, port)) {
+            for (int start = 0; start < items; start += 1000) {
+                int end = Math.min(items, start + 1000);
+                for (int id = start; id < end; id++) {
+                    connection.send("ADD " + id + "\tTitle " + id + "\tAuthor " + (id % 1000));
+                }
+                connection.flush();
+                for (int id = start; id < end; id++) {
+                    connection.readLine();
+                }
+            }
+        }
+    }
+
+    // Pipelines an MGET with an invalid ID and a GET behind it: the MGET must answer with one
+    // line per ID, or the GET's reply would be read as part of it
+    private static void checkProtocol(String host, int port) throws IOException {
+        try (Connection connection = new Connection(host, port)) {
+            connection.send("MGET 1 abc 3");
+            connection.send("GET 2");
+            connection.flush();
+            String[] expected = {"ITEM 1\t", "ERR ", "ITEM 3\t", "ITEM 2\t"};
+            for (String prefix : expected) {
+                String line = connection.readLine();
+                if (!line.startsWith(prefix)) {
+                    throw new IllegalStateException("Protocol check failed: expected " + prefix.trim() + "..., got " + line);
+                }
+            }
+        }
+        System.out.println("[PASS] MGET answers one line per ID, also for invalid IDs");
+    }
+
+    private static void run(String host, int port, int connections, int pipeline, int seconds, int items)
+            throws InterruptedException {
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        long[][] latencies = new long[connections][];
+        int[] counts = new int[connections];
+        long[] errors = new long[connections];
+        List<Thread> threads = new ArrayList<>();
+
+        for (int c = 0; c < connections; c++) {
+            int number = c;
+            Thread thread = new Thread(() -> {
+                long[] samples = new long[1 << 16];
+                int count = 0;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                // IDs this connection adds and later removes again, oldest first
+                int nextNewId = items + number * 10_000_000;
+                int oldestNewId = nextNewId;
+                String[] requests = new String[pipeline];
+                int[] replyLines = new int[pipeline];
+                try (Connection connection = new Connection(host, port)) {
+                    while (System.nanoTime() < end) {
+                        for (int i = 0; i < pipeline; i++) {
+                            int kind = random.nextInt(100);
+                            if (kind < 80) {
+                                requests[i] = "GET " + random.nextInt(items);
+                                replyLines[i] = 1;
+                            } else if (kind < 95) {
+                                StringBuilder mget = new StringBuilder("MGET");
+                                for (int k = 0; k < 10; k++) {
+                                    mget.append(' ').append(random.nextInt(items));
+                                }
+                                requests[i] = mget.toString();
+                                replyLines[i] = 10;
+                            } else if (kind < 98 || oldestNewId == nextNewId) {
+                                requests[i] = "ADD " + nextNewId++ + "\tNew Title\tNew Author";
+                                replyLines[i] = 1;
+                            } else {
+                                requests[i] = "REMOVE " + oldestNewId++;
+                                replyLines[i] = 1;
+                            }
+                        }
+
+                        // Send the whole batch, then read the replies; each request's latency runs
+                        // from the batch being sent to its own reply
+                        long sent = System.nanoTime();
+                        for (String request : requests) {
+                            connection.send(request);
+                        }
+                        connection.flush();
+                        for (int i = 0; i < pipeline; i++) {
+                            for (int line = 0; line < replyLines[i]; line++) {
+                                if (connection.readLine().startsWith("ERR")) {
+                                    errors[number]++;
+                                }
+                            }
+                            if (count == samples.length) {
+                                samples = Arrays.copyOf(samples, count * 2);
+                            }
+                            samples[count++] = System.nanoTime() - sent;
+                        }
+                    }
+                } catch (IOException e) {
+                    System.out.println("[CLIENT ERROR] " + e.getMessage());
+                }
+                latencies[number] = samples;
+                counts[number] = count;
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        long[] all = new long[total];
+        int position = 0;
+        long errorCount = 0;
+        for (int c = 0; c < connections; c++) {
+            System.arraycopy(latencies[c], 0, all, position, counts[c]);
+            position += counts[c];
+            errorCount += errors[c];
+        }
+        Arrays.sort(all);
+
+        System.out.printf("Requests:  %,d (%,d errors)%n", total, errorCount);
+        System.out.printf("QPS:       %,.0f%n", total / (double) seconds);
+        System.out.printf("Latency:   p50 %s  p90 %s  p99 %s  p99.9 %s  max %s%n",
+                micros(all, 0.50), micros(all, 0.90), micros(all, 0.99), micros(all, 0.999), micros(all, 1.0));
+    }
+
+    private static String micros(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return "-";
+        }
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1);
+        return String.format("%.0f us", sorted[Math.max(0, index)] / 1000.0);
+    }
+
+    // A client connection with buffered, pipelined writes
+    private static final class Connection implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final BufferedWriter out;
+
+        Connection(String host, int port) throws IOException {
+            socket = new Socket(host, port);
+            socket.setTcpNoDelay(true);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8), 64 * 1024);
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), 64 * 1024);
+        }
+
+        void send(String request) throws IOException {
+            out.write(request);
+            out.write('\n');
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        String readLine() throws IOException {
+            String line = in.readLine();
+            if (line == null) {
+                throw new IOException("The server closed the connection.");
+            }
+            return line;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                send("QUIT");
+                flush();
+            } finally {
+                socket.close();
+            }
+        }
+    }
+}
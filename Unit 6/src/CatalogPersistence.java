@@ -0,0 +1,546 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps a LibraryCatalog on disk: a write-ahead log of every add/remove, plus compact snapshots.
+ *
+ * Files in the data directory:
+ *   catalog.snapshot        every item at one moment, tagged with the log generation that follows it
+ *   wal-&lt;generation&gt;.log     the add/remove operations made after that snapshot
+ *
+ * Writing: as a CatalogListener, every operation is appended to an in-memory batch. A background
+ * flusher thread writes whole batches with FileChannel.write and one fsync (force) per batch, so
+ * operations made while a flush is running are committed together by the next one (group commit).
+ * sync() waits until everything logged so far is on disk; without it, a crash can lose the
+ * operations of the last few milliseconds but never corrupts the files.
+ *
+ * Every snapshotInterval operations (and on snapshot()) the log is rolled to a new generation,
+ * the whole catalog is written to a temporary file that atomically replaces the old snapshot,
+ * and the older logs are deleted.
+ *
+ * Startup: the snapshot is read through memory-mapped windows and the log tail is replayed. A
+ * record cut off by a crash is detected by its length and CRC32 checksum and dropped.
+ *
+ * Like LibraryCatalog, this class expects the catalog to be used from one thread.
+ */
+public class CatalogPersistence<T> implements CatalogListener<T>, Closeable {
+
+    public static final long DEFAULT_SNAPSHOT_INTERVAL = 1_000_000;
+
+    private static final String SNAPSHOT_FILE = "catalog.snapshot";
+    private static final String LOG_PREFIX = "wal-";
+    private static final String LOG_SUFFIX = ".log";
+    private static final int SNAPSHOT_MAGIC = 0x4C43534E; // "LCSN"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int SNAPSHOT_HEADER_SIZE = 2 * Integer.BYTES + 2 * Long.BYTES;
+
+    // Operation codes of the records
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+
+    // Record layout: payload length (int), CRC32 of the payload (int), payload
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+    private static final long MAP_WINDOW = 256L * 1024 * 1024;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private final Path directory;
+    private final CatalogIdCodec<T> codec;
+    private final LibraryCatalog<T> catalog;
+    private final long snapshotInterval;
+    private long operationsSinceSnapshot = 0;
+
+    // ============================
+    // GROUP COMMIT STATE (guarded by lock)
+    // ============================
+    private final Object lock = new Object();
+    private ByteBuffer pending = ByteBuffer.allocate(BUFFER_SIZE);
+    private ByteBuffer flushing = ByteBuffer.allocate(BUFFER_SIZE);
+    private FileChannel log;
+    private long generation;
+    private long appended = 0;   // records appended to a batch so far
+    private long durable = 0;    // records known to be on disk
+    private IOException failure;
+    private boolean closed = false;
+    private final Thread flusher;
+
+    private CatalogPersistence(Path directory, CatalogIdCodec<T> codec, LibraryCatalog<T> catalog, long snapshotInterval) {
+        this.directory = directory;
+        this.codec = codec;
+        this.catalog = catalog;
+        this.snapshotInterval = snapshotInterval;
+        this.flusher = new Thread(this::flushLoop, "catalog-wal-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    /**
+     * Restores an empty catalog from a data directory and keeps logging its changes there.
+     * @param directory The data directory (created if needed).
+     * @param codec How item IDs are written.
+     * @param catalog An empty catalog to restore into.
+     * @return The open persistence; close it before the program exits.
+     * @throws IOException If the files cannot be read or created.
+     */
+    public static <T> CatalogPersistence<T> open(Path directory, CatalogIdCodec<T> codec, LibraryCatalog<T> catalog) throws IOException {
+        return open(directory, codec, catalog, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * Same as open(directory, codec, catalog), with a snapshot every snapshotInterval
+     * operations (0 means only when snapshot() is called).
+     */
+    public static <T> CatalogPersistence<T> open(Path directory, CatalogIdCodec<T> codec, LibraryCatalog<T> catalog,
+                                                 long snapshotInterval) throws IOException {
+        if (catalog.size() != 0) {
+            throw new IllegalArgumentException("The catalog must be empty before it is restored from disk.");
+        }
+        Files.createDirectories(directory);
+        CatalogPersistence<T> persistence = new CatalogPersistence<>(directory, codec, catalog, snapshotInterval);
+        persistence.restore();
+        catalog.addListener(persistence);
+        persistence.flusher.start();
+        return persistence;
+    }
+
+    // ============================
+    // LOGGING (CatalogListener)
+    // ============================
+
+    @Override
+    public void itemAdded(LibraryItem<T> item) {
+        append(ADD, codec.toBytes(item.getItemID()), utf8(item.getTitle()), utf8(item.getAuthor()));
+    }
+
+    @Override
+    public void itemRemoved(LibraryItem<T> item) {
+        append(REMOVE, codec.toBytes(item.getItemID()), null, null);
+    }
+
+    private void append(byte operation, byte[] id, byte[] title, byte[] author) {
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("The catalog log is closed.");
+            }
+            if (failure != null) {
+                throw new UncheckedIOException("The catalog log could not be written.", failure);
+            }
+            boolean wasEmpty = pending.position() == 0;
+            pending = putRecord(pending, operation, id, title, author);
+            appended++;
+            if (wasEmpty) {
+                lock.notifyAll();
+            }
+        }
+
+        operationsSinceSnapshot++;
+        if (snapshotInterval > 0 && operationsSinceSnapshot >= snapshotInterval) {
+            try {
+                snapshot();
+            } catch (IOException e) {
+                throw new UncheckedIOException("The catalog snapshot could not be written.", e);
+            }
+        }
+    }
+
+    // Background thread: takes the whole pending batch, writes it and fsyncs once
+    private void flushLoop() {
+        while (true) {
+            ByteBuffer batch;
+            FileChannel target;
+            long batchEnd;
+            synchronized (lock) {
+                try {
+                    while (pending.position() == 0 && !closed) {
+                        lock.wait();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (pending.position() == 0) {
+                    return;
+                }
+                batch = pending;
+                pending = flushing;
+                flushing = batch;
+                target = log;
+                batchEnd = appended;
+            }
+
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    target.write(batch);
+                }
+                target.force(false);
+                batch.clear();
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+
+            synchronized (lock) {
+                durable = batchEnd;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits until every operation logged so far is safely on disk.
+     * @throws IOException If the log could not be written.
+     */
+    public void sync() throws IOException {
+        synchronized (lock) {
+            long target = appended;
+            while (durable < target) {
+                if (failure != null) {
+                    throw new IOException("The catalog log could not be written.", failure);
+                }
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the catalog log.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot of the whole catalog and deletes the logs it replaces.
+     * @throws IOException If the snapshot cannot be written.
+     */
+    public void snapshot() throws IOException {
+        // Everything in the current log is on disk and covered by the snapshot from here on
+        sync();
+        long newGeneration = generation + 1;
+        FileChannel newLog = openLog(newGeneration);
+        FileChannel oldLog;
+        synchronized (lock) {
+            oldLog = log;
+            log = newLog;
+            generation = newGeneration;
+        }
+        oldLog.close();
+
+        writeSnapshot(newGeneration);
+        for (Path oldFile : listLogs()) {
+            if (logGeneration(oldFile) < newGeneration) {
+                Files.delete(oldFile);
+            }
+        }
+        operationsSinceSnapshot = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            synchronized (lock) {
+                closed = true;
+                lock.notifyAll();
+            }
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            log.close();
+        }
+    }
+
+    // ============================
+    // SNAPSHOTS
+    // ============================
+
+    private void writeSnapshot(long snapshotGeneration) throws IOException {
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] buffer = {ByteBuffer.allocate(BUFFER_SIZE)};
+            buffer[0].putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putLong(snapshotGeneration).putLong(catalog.size());
+            try {
+                catalog.forEachItem(item -> {
+                    byte[] idBytes = codec.toBytes(item.getItemID());
+                    byte[] title = utf8(item.getTitle());
+                    byte[] author = utf8(item.getAuthor());
+                    if (buffer[0].remaining() < recordSize(idBytes, title, author)) {
+                        try {
+                            writeFully(out, buffer[0]);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                    buffer[0] = putRecord(buffer[0], ADD, idBytes, title, author);
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writeFully(out, buffer[0]);
+            out.force(true);
+        }
+        Files.move(temporary, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Loads the snapshot, replays the logs after it, and opens the newest log for appending
+    private void restore() throws IOException {
+        boolean wasVerbose = catalog.isVerbose();
+        catalog.setVerbose(false);
+        try {
+            generation = 1;
+            Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+            if (Files.exists(snapshotFile)) {
+                generation = loadSnapshot(snapshotFile);
+            }
+
+            long validLength = 0;
+            for (Path logFile : listLogs()) {
+                long fileGeneration = logGeneration(logFile);
+                if (fileGeneration < generation) {
+                    // Left over from a snapshot that finished just before a crash
+                    Files.delete(logFile);
+                    continue;
+                }
+                generation = fileGeneration;
+                validLength = replayLog(logFile);
+            }
+
+            // Continue the newest log after its last complete record
+            log = openLog(generation);
+            log.truncate(validLength);
+            log.position(validLength);
+        } finally {
+            catalog.setVerbose(wasVerbose);
+        }
+    }
+
+    private long loadSnapshot(Path snapshotFile) throws IOException {
+        try (FileChannel in = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            MappedReader reader = new MappedReader(in);
+            if (!reader.ensure(SNAPSHOT_HEADER_SIZE)) {
+                throw new IOException("Snapshot is truncated: " + snapshotFile);
+            }
+            ByteBuffer header = reader.buffer;
+            if (header.getInt() != SNAPSHOT_MAGIC || header.getInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Not a catalog snapshot: " + snapshotFile);
+            }
+            long snapshotGeneration = header.getLong();
+            long itemCount = header.getLong();
+            for (long i = 0; i < itemCount; i++) {
+                ByteBuffer payload = reader.nextRecord();
+                if (payload == null) {
+                    throw new IOException("Snapshot is damaged at item " + i + ": " + snapshotFile);
+                }
+                apply(payload);
+            }
+            return snapshotGeneration;
+        }
+    }
+
+    // Replays every complete record of a log; returns the length of its valid part
+    private long replayLog(Path logFile) throws IOException {
+        try (FileChannel in = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            MappedReader reader = new MappedReader(in);
+            long validLength = 0;
+            ByteBuffer payload;
+            while ((payload = reader.nextRecord()) != null) {
+                apply(payload);
+                validLength = reader.position();
+            }
+            return validLength;
+        }
+    }
+
+    // Applies one record to the catalog; replaying a record twice changes nothing
+    private void apply(ByteBuffer payload) {
+        byte operation = payload.get();
+        int idLength = payload.getInt();
+        T id = codec.fromBytes(payload, idLength);
+        if (operation == ADD) {
+            String title = readString(payload);
+            String author = readString(payload);
+            if (catalog.getItemDetails(id) == null) {
+                catalog.addItem(new LibraryItem<>(id, title, author));
+            }
+        } else if (operation == REMOVE && catalog.getItemDetails(id) != null) {
+            catalog.removeItem(id);
+        }
+    }
+
+    // ============================
+    // RECORD ENCODING
+    // ============================
+
+    private static int recordSize(byte[] id, byte[] title, byte[] author) {
+        return RECORD_HEADER_SIZE + 1 + 3 * Integer.BYTES + id.length
+                + (title == null ? 0 : title.length) + (author == null ? 0 : author.length);
+    }
+
+    // Appends one record, growing the buffer if it is too small; returns the buffer to keep using
+    private static ByteBuffer putRecord(ByteBuffer buffer, byte operation, byte[] id, byte[] title, byte[] author) {
+        int size = recordSize(id, title, author);
+        if (buffer.remaining() < size) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + size));
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+
+        int start = buffer.position();
+        buffer.position(start + RECORD_HEADER_SIZE);
+        buffer.put(operation);
+        buffer.putInt(id.length).put(id);
+        putBytes(buffer, title);
+        putBytes(buffer, author);
+
+        int payloadLength = buffer.position() - start - RECORD_HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), buffer.arrayOffset() + start + RECORD_HEADER_SIZE, payloadLength);
+        buffer.putInt(start, payloadLength);
+        buffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+        return buffer;
+    }
+
+    // Strings are stored as a byte length (-1 for null) followed by UTF-8 bytes
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String text) {
+        return text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Reads records from a file through memory-mapped windows of up to 256 MB, so files larger
+     * than one mapping (2 GB) can be read too; a record that crosses a window end is re-mapped.
+     */
+    private static final class MappedReader {
+        private final FileChannel channel;
+        private final long size;
+        private long windowStart = 0;
+        private MappedByteBuffer buffer;
+
+        MappedReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            map(0);
+        }
+
+        long position() {
+            return windowStart + buffer.position();
+        }
+
+        // Makes sure the next n bytes are in the window; false if the file ends first
+        boolean ensure(int n) throws IOException {
+            if (position() + n > size) {
+                return false;
+            }
+            if (buffer.remaining() < n) {
+                map(position());
+            }
+            return true;
+        }
+
+        // Returns the next record's payload, or null at the end of the file or at a damaged record
+        ByteBuffer nextRecord() throws IOException {
+            if (!ensure(RECORD_HEADER_SIZE)) {
+                return null;
+            }
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > MAX_RECORD_SIZE) {
+                return null;
+            }
+            if (!ensure(length)) {
+                return null;
+            }
+            ByteBuffer payload = buffer.slice();
+            payload.limit(length);
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                return null;
+            }
+            buffer.position(buffer.position() + length);
+            return payload;
+        }
+
+        private void map(long start) throws IOException {
+            windowStart = start;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MAP_WINDOW, size - start));
+        }
+    }
+
+    // ============================
+    // LOG FILES
+    // ============================
+
+    private FileChannel openLog(long logGeneration) throws IOException {
+        FileChannel channel = FileChannel.open(logPath(logGeneration), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        return channel;
+    }
+
+    private Path logPath(long logGeneration) {
+        return directory.resolve(String.format("%s%012d%s", LOG_PREFIX, logGeneration, LOG_SUFFIX));
+    }
+
+    // The log files of the directory, oldest generation first
+    private List<Path> listLogs() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(LOG_PREFIX) && name.endsWith(LOG_SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    private static long logGeneration(Path logFile) {
+        String name = logFile.getFileName().toString();
+        return Long.parseLong(name.substring(LOG_PREFIX.length(), name.length() - LOG_SUFFIX.length()));
+    }
+}
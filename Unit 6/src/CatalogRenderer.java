@@ -0,0 +1,86 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes catalog rows as text to any Appendable (System.out, a Writer, a StringBuilder, ...).
+ *
+ * A row looks exactly like LibraryItem.toString():
+ *   [ID: 1001, Type: Integer] Title: Java Generics Handbook, Author: Joshua Bloch
+ * but it is built without String.format: the parts are appended to one reusable StringBuilder,
+ * Integer and Long IDs are appended as numbers (no string is created for them), the simple class
+ * name of each ID type is looked up once, and the buffer is handed to the Appendable in blocks
+ * of about 8 KB. Dumping a huge catalog therefore needs no copy of it and almost no garbage.
+ */
+public class CatalogRenderer {
+
+    private static final int FLUSH_SIZE = 8192;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    // Simple class name of each ID type, computed once per class
+    private static final ClassValue<String> TYPE_NAMES = new ClassValue<String>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            return type.getSimpleName();
+        }
+    };
+
+    private final Appendable out;
+    private final StringBuilder buffer = new StringBuilder(FLUSH_SIZE + 256);
+
+    public CatalogRenderer(Appendable out) {
+        this.out = out;
+    }
+
+    // Writes one row followed by a line separator
+    public void render(LibraryItem<?> item) throws IOException {
+        appendRow(buffer, item);
+        buffer.append(LINE_SEPARATOR);
+        if (buffer.length() >= FLUSH_SIZE) {
+            flush();
+        }
+    }
+
+    // Writes every row of a catalog, in insertion order
+    public <T> void renderAll(LibraryCatalog<T> catalog) throws IOException {
+        try {
+            catalog.forEachItem(item -> {
+                try {
+                    render(item);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        flush();
+    }
+
+    // Hands the buffered text to the Appendable
+    public void flush() throws IOException {
+        if (buffer.length() > 0) {
+            out.append(buffer);
+            buffer.setLength(0);
+        }
+    }
+
+    /**
+     * Appends the text of one row (without line separator) to a StringBuilder.
+     * @param row The builder to append to.
+     * @param item The item to describe.
+     */
+    public static void appendRow(StringBuilder row, LibraryItem<?> item) {
+        Object id = item.getItemID();
+        row.append("[ID: ");
+        if (id instanceof Integer) {
+            row.append(((Integer) id).intValue());
+        } else if (id instanceof Long) {
+            row.append(((Long) id).longValue());
+        } else {
+            row.append(id);
+        }
+        row.append(", Type: ").append(TYPE_NAMES.get(id.getClass()))
+                .append("] Title: ").append(item.getTitle())
+                .append(", Author: ").append(item.getAuthor());
+    }
+}
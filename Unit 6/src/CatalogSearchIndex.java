@@ -0,0 +1,277 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Inverted full-text index over the title and author of catalog items.
+ *
+ * Every item gets a slot number (0, 1, 2, ... in the order items are added). The index maps
+ * each normalized token (lowercase letters and digits) to a posting list: the sorted int array
+ * of the slots whose title or author contains it. Queries then work on int arrays only:
+ * - searchAll: items containing every term (sorted-array intersection, smallest list first),
+ * - searchAny: items containing at least one term (union),
+ * - searchPrefix: items with a token starting with a prefix (TreeMap range of tokens).
+ * Results come back in insertion order.
+ *
+ * The index is a CatalogListener, so it is updated incrementally on addItem/removeItem.
+ * Slots are never reused: a removed item leaves a dead slot, and each posting list is
+ * compacted once more than half of its entries are dead. Not thread-safe, like LibraryCatalog.
+ */
+public class CatalogSearchIndex<T> implements CatalogListener<T> {
+
+    // Sorted slot numbers of one token, plus how many of them belong to removed items
+    private static final class PostingList {
+        int[] slots = new int[4];
+        int size = 0;
+        int dead = 0;
+
+        PostingList() {
+        }
+
+        // Wraps an already sorted array (query results)
+        PostingList(int[] slots, int size) {
+            this.slots = slots;
+            this.size = size;
+        }
+
+        void add(int slot) {
+            // Slots only grow, so appending keeps the list sorted; skip a token repeated in one item
+            if (size > 0 && slots[size - 1] == slot) {
+                return;
+            }
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+    }
+
+    private static final PostingList NO_SLOTS = new PostingList(new int[0], 0);
+
+    // Token -> posting list, sorted by token for prefix queries
+    private final TreeMap<String, PostingList> postings = new TreeMap<>();
+
+    // Slot -> item (null once removed) and ID -> slot
+    private final List<LibraryItem<T>> itemsBySlot = new ArrayList<>();
+    private final Map<T, Integer> slotById = new HashMap<>();
+
+    @Override
+    public void itemAdded(LibraryItem<T> item) {
+        int slot = itemsBySlot.size();
+        itemsBySlot.add(item);
+        slotById.put(item.getItemID(), slot);
+        for (String token : tokenize(item)) {
+            postings.computeIfAbsent(token, t -> new PostingList()).add(slot);
+        }
+    }
+
+    @Override
+    public void itemRemoved(LibraryItem<T> item) {
+        Integer slot = slotById.remove(item.getItemID());
+        if (slot == null) {
+            return;
+        }
+        itemsBySlot.set(slot, null);
+
+        // Count the dead entry in each of the item's lists, and compact or drop lists that are mostly dead
+        for (String token : tokenize(item)) {
+            PostingList list = postings.get(token);
+            if (list == null || !containsSlot(list, slot)) {
+                continue;
+            }
+            list.dead++;
+            if (list.dead == list.size) {
+                postings.remove(token);
+            } else if (list.dead * 2 > list.size) {
+                compact(list);
+            }
+        }
+    }
+
+    // ============================
+    // QUERIES
+    // ============================
+
+    /**
+     * Finds the items whose title or author contains every term of the query.
+     * A term ending in '*' matches any token starting with it (e.g. "blo*").
+     * @param query Terms separated by spaces or punctuation, in any case.
+     * @return The matching items in insertion order.
+     */
+    public List<LibraryItem<T>> searchAll(String query) {
+        List<PostingList> lists = new ArrayList<>();
+        for (String term : query.trim().split("\\s+")) {
+            boolean prefix = term.endsWith("*");
+            for (String token : tokenize(prefix ? term.substring(0, term.length() - 1) : term)) {
+                lists.add(prefix ? prefixSlots(token) : postings.getOrDefault(token, NO_SLOTS));
+            }
+        }
+        if (lists.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Intersect the shortest lists first, so the intermediate result stays small
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+        PostingList result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.size > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+        return toItems(result.slots, result.size);
+    }
+
+    /**
+     * Finds the items whose title or author contains at least one term of the query.
+     * @param query Terms separated by spaces or punctuation, in any case.
+     * @return The matching items in insertion order.
+     */
+    public List<LibraryItem<T>> searchAny(String query) {
+        BitSet union = new BitSet(itemsBySlot.size());
+        for (String token : tokenize(query)) {
+            PostingList list = postings.get(token);
+            if (list != null) {
+                addAll(union, list);
+            }
+        }
+        int[] slots = union.stream().toArray();
+        return toItems(slots, slots.length);
+    }
+
+    /**
+     * Finds the items whose title or author has a token starting with a prefix.
+     * @param prefix The start of a word, in any case.
+     * @return The matching items in insertion order.
+     */
+    public List<LibraryItem<T>> searchPrefix(String prefix) {
+        List<String> tokens = tokenize(prefix);
+        if (tokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+        PostingList slots = prefixSlots(tokens.get(0));
+        return toItems(slots.slots, slots.size);
+    }
+
+    public int tokenCount() {
+        return postings.size();
+    }
+
+    // ============================
+    // POSTING LIST OPERATIONS
+    // ============================
+
+    // Union of the posting lists of every token from prefix up to prefix + Character.MAX_VALUE
+    private PostingList prefixSlots(String prefix) {
+        NavigableMap<String, PostingList> range = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (range.isEmpty()) {
+            return NO_SLOTS;
+        }
+        if (range.firstKey().equals(range.lastKey())) {
+            return range.firstEntry().getValue();
+        }
+        BitSet union = new BitSet(itemsBySlot.size());
+        for (PostingList list : range.values()) {
+            addAll(union, list);
+        }
+        int[] slots = union.stream().toArray();
+        return new PostingList(slots, slots.length);
+    }
+
+    private static void addAll(BitSet set, PostingList list) {
+        for (int i = 0; i < list.size; i++) {
+            set.set(list.slots[i]);
+        }
+    }
+
+    // Intersection of two sorted arrays. When one is much shorter, each of its slots is
+    // found in the longer one by galloping (exponential then binary search) instead of a full merge.
+    private static PostingList intersect(PostingList small, PostingList large) {
+        int[] result = new int[small.size];
+        int count = 0;
+        int from = 0;
+        for (int i = 0; i < small.size && from < large.size; i++) {
+            int slot = small.slots[i];
+            int bound = 1;
+            while (from + bound < large.size && large.slots[from + bound] < slot) {
+                bound *= 2;
+            }
+            int position = Arrays.binarySearch(large.slots, from + bound / 2, Math.min(from + bound + 1, large.size), slot);
+            if (position >= 0) {
+                result[count++] = slot;
+                from = position + 1;
+            } else {
+                from = -position - 1;
+            }
+        }
+        return new PostingList(result, count);
+    }
+
+    private static boolean containsSlot(PostingList list, int slot) {
+        return Arrays.binarySearch(list.slots, 0, list.size, slot) >= 0;
+    }
+
+    // Drops the slots of removed items from a posting list
+    private void compact(PostingList list) {
+        int live = 0;
+        for (int i = 0; i < list.size; i++) {
+            if (itemsBySlot.get(list.slots[i]) != null) {
+                list.slots[live++] = list.slots[i];
+            }
+        }
+        list.size = live;
+        list.dead = 0;
+        if (live * 4 < list.slots.length && list.slots.length > 4) {
+            list.slots = Arrays.copyOf(list.slots, Math.max(4, live * 2));
+        }
+    }
+
+    // Turns slots into items, skipping the dead slots that are not compacted away yet
+    private List<LibraryItem<T>> toItems(int[] slots, int size) {
+        List<LibraryItem<T>> items = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            LibraryItem<T> item = itemsBySlot.get(slots[i]);
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    // ============================
+    // TOKENIZING
+    // ============================
+
+    // The distinct tokens of an item's title and author
+    private static Set<String> tokenize(LibraryItem<?> item) {
+        Set<String> tokens = new LinkedHashSet<>(tokenize(item.getTitle()));
+        tokens.addAll(tokenize(item.getAuthor()));
+        return tokens;
+    }
+
+    // Splits text into lowercase runs of letters and digits
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,274 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Method;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Serves a LibraryCatalog over TCP with a line-based text protocol (UTF-8, one request per line):
+ *
+ *   GET id                          -> ITEM id TAB title TAB author   or   NOT_FOUND id
+ *   MGET id id id ...               -> one ITEM / NOT_FOUND / ERR line per ID, in request order
+ *   ADD id TAB title TAB author     -> OK   or   ERR message
+ *   REMOVE id                       -> OK   or   ERR message
+ *   SEARCH words                    -> RESULTS n, then n ITEM lines (at most 100)
+ *   SIZE                            -> SIZE n
+ *   QUIT                            -> closes the connection
+ * Tabs, line breaks and backslashes inside titles and authors are escaped as \t, \n and \\.
+ *
+ * Each connection gets its own thread: a virtual thread when the JVM has them (Java 21+),
+ * otherwise a platform thread from a cached pool. Clients may pipeline: they can send many
+ * requests without waiting, and the server only flushes its replies when no further request is
+ * already waiting in the input, so a pipelined batch is answered with a single write.
+ *
+ * The catalog is guarded by a read/write lock: GET, MGET, SEARCH and SIZE run in parallel,
+ * ADD and REMOVE one at a time. An MGET takes the read lock once for all its IDs.
+ */
+public class CatalogServer<T> implements Closeable {
+
+    private static final int MAX_SEARCH_RESULTS = 100;
+
+    private final LibraryCatalog<T> catalog;
+    private final Function<String, T> idParser;
+    private final CatalogSearchIndex<T> searchIndex;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = newConnectionExecutor();
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+    private final Thread acceptor;
+
+    /**
+     * Starts a server.
+     * @param catalog The catalog to serve; only this server may change it from now on.
+     * @param idParser Turns the text of an ID into an ID (throws on invalid input).
+     * @param port The TCP port, or 0 for any free port.
+     * @throws IOException If the port cannot be opened.
+     */
+    public CatalogServer(LibraryCatalog<T> catalog, Function<String, T> idParser, int port) throws IOException {
+        this.catalog = catalog;
+        this.idParser = idParser;
+        this.searchIndex = catalog.enableSearchIndex();
+        catalog.setVerbose(false);
+        this.serverSocket = new ServerSocket(port);
+        this.acceptor = new Thread(this::acceptLoop, "catalog-server-acceptor");
+        this.acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    // Waits until the server is closed
+    public void awaitTermination() throws InterruptedException {
+        acceptor.join();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : openSockets) {
+            socket.close();
+        }
+        connections.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                openSockets.add(socket);
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.out.println("[SERVER ERROR] " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // ============================
+    // ONE CONNECTION
+    // ============================
+
+    private void serve(Socket socket) {
+        try (Socket connection = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8), 64 * 1024);
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8), 64 * 1024)) {
+            StringBuilder reply = new StringBuilder(256);
+            String request;
+            while ((request = in.readLine()) != null) {
+                if (request.equals("QUIT")) {
+                    break;
+                }
+                reply.setLength(0);
+                handle(request, reply);
+                out.append(reply);
+
+                // Flush only when the client is not already waiting with more pipelined requests
+                if (!in.ready()) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        } catch (SocketException e) {
+            // The client went away or the server is closing
+        } catch (IOException e) {
+            System.out.println("[SERVER ERROR] " + e.getMessage());
+        } finally {
+            openSockets.remove(socket);
+        }
+    }
+
+    // Executes one request and appends its reply lines
+    void handle(String request, StringBuilder reply) {
+        int space = request.indexOf(' ');
+        String command = space < 0 ? request : request.substring(0, space);
+        String argument = space < 0 ? "" : request.substring(space + 1);
+        try {
+            switch (command) {
+                case "GET":
+                    withReadLock(() -> appendItem(reply, argument.trim(), catalog.getItemDetails(idParser.apply(argument.trim()))));
+                    break;
+                case "MGET":
+                    String[] ids = argument.trim().split("\\s+");
+                    // Exactly one reply line per ID, even for invalid ones: pipelining clients
+                    // count the lines to find where the next reply starts
+                    withReadLock(() -> {
+                        for (String id : ids) {
+                            try {
+                                appendItem(reply, id, catalog.getItemDetails(idParser.apply(id)));
+                            } catch (RuntimeException e) {
+                                reply.append("ERR ").append(escape(String.valueOf(e.getMessage()))).append('\n');
+                            }
+                        }
+                    });
+                    break;
+                case "ADD":
+                    String[] fields = argument.split("\t", -1);
+                    if (fields.length != 3) {
+                        throw new IllegalArgumentException("ADD needs id, title and author separated by tabs.");
+                    }
+                    LibraryItem<T> item = new LibraryItem<>(idParser.apply(fields[0].trim()), unescape(fields[1]), unescape(fields[2]));
+                    withWriteLock(() -> catalog.addItem(item));
+                    reply.append("OK\n");
+                    break;
+                case "REMOVE":
+                    T id = idParser.apply(argument.trim());
+                    withWriteLock(() -> catalog.removeItem(id));
+                    reply.append("OK\n");
+                    break;
+                case "SEARCH":
+                    withReadLock(() -> {
+                        List<LibraryItem<T>> matches = searchIndex.searchAll(argument);
+                        int count = Math.min(matches.size(), MAX_SEARCH_RESULTS);
+                        reply.append("RESULTS ").append(count).append('\n');
+                        for (int i = 0; i < count; i++) {
+                            appendItem(reply, null, matches.get(i));
+                        }
+                    });
+                    break;
+                case "SIZE":
+                    withReadLock(() -> reply.append("SIZE ").append(catalog.size()).append('\n'));
+                    break;
+                default:
+                    reply.append("ERR Unknown command: ").append(escape(command)).append('\n');
+            }
+        } catch (RuntimeException e) {
+            // Invalid IDs, duplicates and unknown items all end up here; the connection stays open
+            reply.append("ERR ").append(escape(String.valueOf(e.getMessage()))).append('\n');
+        }
+    }
+
+    private void appendItem(StringBuilder reply, String requestedId, LibraryItem<T> item) {
+        if (item == null) {
+            reply.append("NOT_FOUND ").append(requestedId).append('\n');
+            return;
+        }
+        reply.append("ITEM ").append(item.getItemID()).append('\t')
+                .append(escape(item.getTitle())).append('\t')
+                .append(escape(item.getAuthor())).append('\n');
+    }
+
+    private void withReadLock(Runnable action) {
+        lock.readLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ============================
+    // ESCAPING (shared with the client)
+    // ============================
+
+    static String escape(String text) {
+        if (text == null) {
+            return "";
+        }
+        if (text.indexOf('\t') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0 && text.indexOf('\\') < 0) {
+            return text;
+        }
+        return text.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    static String unescape(String text) {
+        if (text.indexOf('\\') < 0) {
+            return text;
+        }
+        StringBuilder result = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char next = text.charAt(++i);
+                result.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    // ============================
+    // THREADS
+    // ============================
+
+    // One virtual thread per connection on Java 21+ (looked up by reflection so the code still
+    // compiles and runs on Java 17), otherwise one platform thread per connection
+    static ExecutorService newConnectionExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "catalog-connection");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
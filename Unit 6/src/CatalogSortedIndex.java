@@ -0,0 +1,162 @@
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A secondary index that keeps catalog items sorted by one key (author, title, or the ID itself),
+ * so range and prefix queries no longer need a full scan.
+ *
+ * The items are kept in a ConcurrentSkipListMap ordered by (key, insertion number); the insertion
+ * number keeps items with the same key (e.g. several books by one author) apart, in the order
+ * they were added. Queries return lazy iterators over a view of the skip list: nothing is copied,
+ * and items are visited only as the caller advances.
+ *
+ * The index is a CatalogListener and is updated incrementally on addItem/removeItem. Reads are
+ * safe from any number of threads, even while the catalog is being changed; an iterator is weakly
+ * consistent (it never fails, and sees changes made during the iteration or not).
+ *
+ * Author and title keys are compared ignoring case. Items whose key is null are not indexed.
+ */
+public class CatalogSortedIndex<T, K extends Comparable<? super K>> implements CatalogListener<T> {
+
+    // Position of an item in the index: its key, then its insertion number
+    private static final class Position<K> {
+        final K key;
+        final long sequence;
+
+        Position(K key, long sequence) {
+            this.key = key;
+            this.sequence = sequence;
+        }
+    }
+
+    private final Function<LibraryItem<T>, K> keyExtractor;
+    private final boolean stringKeys;
+    private final ConcurrentSkipListMap<Position<K>, LibraryItem<T>> items;
+    private final ConcurrentMap<T, Position<K>> positions = new ConcurrentHashMap<>();
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    private CatalogSortedIndex(Function<LibraryItem<T>, K> keyExtractor, boolean stringKeys) {
+        this.keyExtractor = keyExtractor;
+        this.stringKeys = stringKeys;
+        Comparator<Position<K>> order = Comparator.comparing((Position<K> position) -> position.key)
+                .thenComparingLong(position -> position.sequence);
+        this.items = new ConcurrentSkipListMap<>(order);
+    }
+
+    /**
+     * Creates an index on any key.
+     * @param keyExtractor Computes the key of an item (null = not indexed).
+     * @return The index; register it with LibraryCatalog.addSortedIndex().
+     */
+    public static <T, K extends Comparable<? super K>> CatalogSortedIndex<T, K> on(Function<LibraryItem<T>, K> keyExtractor) {
+        return new CatalogSortedIndex<>(keyExtractor, false);
+    }
+
+    // Items sorted by author, ignoring case; supports prefix queries
+    public static <T> CatalogSortedIndex<T, String> byAuthor() {
+        return new CatalogSortedIndex<>(item -> normalize(item.getAuthor()), true);
+    }
+
+    // Items sorted by title, ignoring case; supports prefix queries
+    public static <T> CatalogSortedIndex<T, String> byTitle() {
+        return new CatalogSortedIndex<>(item -> normalize(item.getTitle()), true);
+    }
+
+    // Items sorted by ID, for catalogs whose ID type is Comparable (Integer, String, ...)
+    public static <T extends Comparable<? super T>> CatalogSortedIndex<T, T> byID() {
+        return new CatalogSortedIndex<>(LibraryItem::getItemID, false);
+    }
+
+    // ============================
+    // MAINTENANCE (CatalogListener)
+    // ============================
+
+    @Override
+    public void itemAdded(LibraryItem<T> item) {
+        K key = keyExtractor.apply(item);
+        if (key == null) {
+            return;
+        }
+        Position<K> position = new Position<>(key, nextSequence.getAndIncrement());
+        items.put(position, item);
+        positions.put(item.getItemID(), position);
+    }
+
+    @Override
+    public void itemRemoved(LibraryItem<T> item) {
+        Position<K> position = positions.remove(item.getItemID());
+        if (position != null) {
+            items.remove(position);
+        }
+    }
+
+    // ============================
+    // QUERIES
+    // ============================
+
+    /**
+     * Iterates over the items whose key lies between from and to (both included), in key order.
+     * For example byID().range(1000, 1999) visits the items with IDs 1000 to 1999.
+     */
+    public Iterator<LibraryItem<T>> range(K from, K to) {
+        return range(from, true, to, true);
+    }
+
+    /**
+     * Iterates over the items whose key lies between from and to, in key order.
+     * @param from The lowest key, or null for no lower bound.
+     * @param fromInclusive Whether items with key from are included.
+     * @param to The highest key, or null for no upper bound.
+     * @param toInclusive Whether items with key to are included.
+     * @return A lazy, weakly consistent iterator.
+     */
+    public Iterator<LibraryItem<T>> range(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        NavigableMap<Position<K>, LibraryItem<T>> view = items;
+        if (from != null) {
+            // Sequences bracket all items with the same key: -1 is below them, MAX_VALUE above
+            view = view.tailMap(new Position<>(from, fromInclusive ? -1 : Long.MAX_VALUE), false);
+        }
+        if (to != null) {
+            view = view.headMap(new Position<>(to, toInclusive ? Long.MAX_VALUE : -1), false);
+        }
+        return view.values().iterator();
+    }
+
+    // Iterates over the items whose key equals key, in insertion order
+    public Iterator<LibraryItem<T>> equalTo(K key) {
+        return range(key, true, key, true);
+    }
+
+    /**
+     * Iterates over the items whose key starts with a prefix (ignoring case), in key order.
+     * Only for the author and title indexes.
+     */
+    @SuppressWarnings("unchecked")
+    public Iterator<LibraryItem<T>> prefix(String prefix) {
+        if (!stringKeys) {
+            throw new UnsupportedOperationException("Prefix queries need an author or title index.");
+        }
+        String from = normalize(prefix);
+        return range((K) from, true, (K) (from + Character.MAX_VALUE), false);
+    }
+
+    // Iterates over all indexed items in key order
+    public Iterator<LibraryItem<T>> iterator() {
+        return items.values().iterator();
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    private static String normalize(String text) {
+        return text == null ? null : text.toLowerCase(Locale.ROOT);
+    }
+}
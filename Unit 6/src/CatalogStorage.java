@@ -0,0 +1,34 @@
+import java.util.function.Consumer;
+
+/**
+ * Where a LibraryCatalog keeps its items. The catalog handles listeners, messages and errors;
+ * the storage only has to find items by ID and remember the order they were added in.
+ * - HeapCatalogStorage: one LibraryItem object per item (the default, works with any ID type),
+ * - ColumnarCatalogStorage: Integer IDs in a primitive column and titles/authors off-heap.
+ */
+public interface CatalogStorage<T> {
+
+    // Stores an item; returns false (and changes nothing) if its ID is already present
+    boolean add(LibraryItem<T> item);
+
+    // Removes an item; returns it, or null if the ID is unknown
+    LibraryItem<T> remove(T itemID);
+
+    // Returns the item with this ID, or null
+    LibraryItem<T> get(T itemID);
+
+    int size();
+
+    // Visits every item in insertion order
+    void forEach(Consumer<LibraryItem<T>> action);
+
+    // Visits every item ID in insertion order, without creating item objects
+    void forEachID(Consumer<T> action);
+
+    // Visits at most limit items in insertion order, starting with the item at position offset
+    void forEach(int offset, int limit, Consumer<LibraryItem<T>> action);
+
+    // Visits at most limit items in insertion order, starting with the item added after lastID
+    // (null = the first item); returns false (and visits nothing) if lastID is unknown
+    boolean forEachAfter(T lastID, int limit, Consumer<LibraryItem<T>> action);
+}
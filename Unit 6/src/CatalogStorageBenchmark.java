@@ -0,0 +1,101 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the two catalog storage engines on the same items:
+ * - heap used by the catalog (measured after a full GC),
+ * - off-heap memory used by ColumnarCatalogStorage,
+ * - time of a full GC with the catalog alive (the collector has to walk every live object),
+ * - random getItemDetails throughput,
+ * - paging through the whole catalog with pageAfter once some items have been removed,
+ *   against a single page near the end by offset.
+ *
+ * Usage: java -Xmx8g CatalogStorageBenchmark [items]   (default 5,000,000 items)
+ */
+public class CatalogStorageBenchmark {
+
+    private static final int LOOKUPS = 5_000_000;
+
+    public static void main(String[] args) {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        System.out.printf("%-10s %12s %14s %14s %16s%n", "Storage", "Items", "Heap (MB)", "Off-heap (MB)", "Full GC (ms)");
+        run("heap", new HeapCatalogStorage<>(), items);
+        run("columnar", new ColumnarCatalogStorage(), items);
+    }
+
+    private static void run(String name, CatalogStorage<Integer> storage, int items) {
+        long heapBefore = usedHeapAfterGc();
+
+        LibraryCatalog<Integer> catalog = new LibraryCatalog<>(storage);
+        catalog.setVerbose(false);
+        for (int id = 0; id < items; id++) {
+            catalog.addItem(new LibraryItem<>(id, "The Collected Works, Volume " + id, "Author Number " + (id % 10_000)));
+        }
+
+        long gcStart = gcTimeMillis();
+        long heapAfter = usedHeapAfterGc();
+        long gcTime = gcTimeMillis() - gcStart;
+        long offHeap = storage instanceof ColumnarCatalogStorage ? ((ColumnarCatalogStorage) storage).offHeapBytes() : 0;
+
+        System.out.printf("%-10s %12d %14.1f %14.1f %16d%n", name, catalog.size(),
+                (heapAfter - heapBefore) / 1e6, offHeap / 1e6, gcTime);
+
+        // Random lookups; for the columnar storage each one builds a LibraryItem view
+        Random random = new Random(1);
+        long found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            LibraryItem<Integer> item = catalog.getItemDetails(random.nextInt(items));
+            found += item.getTitle().length();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-10s %,.0f lookups/s (checksum %d)%n", "", LOOKUPS / seconds, found);
+
+        // Paging, after removing every 100th item so positions no longer match rows
+        for (int id = 0; id < items; id += 100) {
+            catalog.removeItem(id);
+        }
+        start = System.nanoTime();
+        long paged = 0;
+        Integer lastID = null;
+        int expectedID = 1;
+        while (true) {
+            List<LibraryItem<Integer>> page = catalog.pageAfter(lastID, 100);
+            if (page.isEmpty()) {
+                break;
+            }
+            for (LibraryItem<Integer> item : page) {
+                if (item.getItemID() != expectedID) {
+                    throw new AssertionError("Paging returned " + item.getItemID() + " instead of " + expectedID);
+                }
+                expectedID += expectedID % 100 == 99 ? 2 : 1;
+            }
+            paged += page.size();
+            lastID = page.get(page.size() - 1).getItemID();
+        }
+        double pagingMillis = (System.nanoTime() - start) / 1e6;
+        if (paged != catalog.size()) {
+            throw new AssertionError("Paging returned " + paged + " of " + catalog.size() + " items");
+        }
+        start = System.nanoTime();
+        catalog.page(catalog.size() - 100, 100);
+        System.out.printf("%-10s all %,d items in pages of 100 by cursor: %.1f ms; the last page by offset: %.1f ms%n",
+                "", paged, pagingMillis, (System.nanoTime() - start) / 1e6);
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long gcTimeMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+}
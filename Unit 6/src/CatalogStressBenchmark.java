@@ -0,0 +1,272 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stress test and throughput benchmark for ConcurrentLibraryCatalog.
+ *
+ * Part 1 (correctness, in the style of jcstress): many threads race on the same IDs and
+ * the results are checked against what any correct thread-safe catalog must produce.
+ * Part 2 (throughput, in the style of JMH): 1 to 64 threads run a mixed load of
+ * 90% getItemDetails and 10% addItem/removeItem for a fixed time after a warmup, once on
+ * ConcurrentLibraryCatalog and once on a LibraryCatalog behind one global lock.
+ *
+ * Usage: java CatalogStressBenchmark [--seconds N] [--items N]
+ */
+public class CatalogStressBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+    private static final int READ_PERCENT = 90;
+
+    // Blackhole so the JIT cannot drop the reads
+    private static final LongAdder sink = new LongAdder();
+
+    // Common view of the two catalogs under test
+    private interface Catalog {
+        void add(LibraryItem<Integer> item);
+        void remove(Integer id);
+        LibraryItem<Integer> get(Integer id);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int seconds = 2;
+        int items = 1_000_000;
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals("--seconds")) {
+                seconds = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--items")) {
+                items = Integer.parseInt(args[++i]);
+            }
+        }
+
+        System.out.println("====== Part 1: Concurrency Checks ======");
+        checkDuplicateAdds();
+        checkAddRemoveRace();
+        checkSnapshotConsistency();
+
+        System.out.println("\n====== Part 2: Mixed Load (" + READ_PERCENT + "% reads, " + items + " items) ======");
+        System.out.printf("%-8s %22s %22s%n", "Threads", "Concurrent (ops/s)", "Global lock (ops/s)");
+
+        // LibraryCatalog prints one line per add/remove; send it nowhere while measuring
+        PrintStream console = System.out;
+        for (int threads : THREAD_COUNTS) {
+            ConcurrentLibraryCatalog<Integer> concurrent = new ConcurrentLibraryCatalog<>();
+            LibraryCatalog<Integer> locked = new LibraryCatalog<>();
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            try {
+                for (int id = 0; id < items; id++) {
+                    concurrent.addItem(newItem(id));
+                    locked.addItem(newItem(id));
+                }
+                double concurrentOps = run(concurrentView(concurrent), threads, items, seconds);
+                double lockedOps = run(lockedView(locked), threads, items, seconds);
+                console.printf("%-8d %22.0f %22.0f%n", threads, concurrentOps, lockedOps);
+            } finally {
+                System.setOut(console);
+            }
+        }
+        System.out.println("(blackhole: " + sink.sum() + ")");
+    }
+
+    // ============================
+    // PART 1: CONCURRENCY CHECKS
+    // ============================
+
+    // Many threads add the same ID at once: exactly one of them may succeed, every round.
+    private static void checkDuplicateAdds() throws InterruptedException {
+        int threads = 16;
+        int rounds = 2_000;
+        int failures = 0;
+        for (int round = 0; round < rounds; round++) {
+            ConcurrentLibraryCatalog<Integer> catalog = new ConcurrentLibraryCatalog<>();
+            AtomicInteger successes = new AtomicInteger();
+            runTogether(threads, t -> {
+                try {
+                    catalog.addItem(new LibraryItem<>(7, "Title " + t, "Author " + t));
+                    successes.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    // Expected for every thread but one
+                }
+            });
+            if (successes.get() != 1 || catalog.getAllItemIDs().size() != 1) {
+                failures++;
+            }
+        }
+        report("Duplicate adds: exactly one winner per ID", failures, rounds);
+    }
+
+    // Writers add and remove their own IDs at the same time, all hitting the same maps.
+    // At the end, the catalog must hold exactly the IDs each writer left in it.
+    private static void checkAddRemoveRace() throws InterruptedException {
+        int writers = 8;
+        int idsPerWriter = 20_000;
+        ConcurrentLibraryCatalog<Integer> catalog = new ConcurrentLibraryCatalog<>();
+        runTogether(writers, t -> {
+            int base = t * idsPerWriter;
+            for (int i = 0; i < idsPerWriter; i++) {
+                catalog.addItem(newItem(base + i));
+                if (i % 2 == 1) {
+                    // Keep only even IDs
+                    catalog.removeItem(base + i);
+                }
+            }
+        });
+
+        int failures = 0;
+        for (int id = 0; id < writers * idsPerWriter; id++) {
+            boolean present = catalog.getItemDetails(id) != null;
+            if (present != (id % 2 == 0)) {
+                failures++;
+            }
+        }
+        if (catalog.getAllItemIDs().size() != writers * idsPerWriter / 2) {
+            failures++;
+        }
+        report("Add/remove race: final contents match", failures, writers * idsPerWriter);
+    }
+
+    // IDs are only ever added in increasing order by one thread, so every snapshot taken
+    // by the readers must list them in increasing order, with no duplicates.
+    private static void checkSnapshotConsistency() throws InterruptedException {
+        int total = 200_000;
+        ConcurrentLibraryCatalog<Integer> catalog = new ConcurrentLibraryCatalog<>();
+        AtomicInteger failures = new AtomicInteger();
+        AtomicInteger snapshots = new AtomicInteger();
+        runTogether(4, t -> {
+            if (t == 0) {
+                for (int id = 0; id < total; id++) {
+                    catalog.addItem(newItem(id));
+                }
+                return;
+            }
+            while (catalog.size() < total) {
+                List<Integer> ids = catalog.getAllItemIDs();
+                for (int i = 1; i < ids.size(); i++) {
+                    if (ids.get(i) <= ids.get(i - 1)) {
+                        failures.incrementAndGet();
+                        break;
+                    }
+                }
+                snapshots.incrementAndGet();
+            }
+        });
+        report("Snapshots keep insertion order", failures.get(), snapshots.get());
+    }
+
+    private static void report(String check, int failures, int trials) {
+        String result = failures == 0 ? "[PASS]" : "[FAIL]";
+        System.out.println(result + " " + check + " (" + failures + " failures in " + trials + " trials)");
+    }
+
+    // ============================
+    // PART 2: MIXED LOAD
+    // ============================
+
+    // Runs the 90/10 load on all threads: a warmup of the same length first, then the
+    // measured period. Returns the total operations per second of the measured period.
+    private static double run(Catalog catalog, int threads, int items, int seconds) throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        long warmupEnd = System.nanoTime() + seconds * 1_000_000_000L;
+        long measureEnd = warmupEnd + seconds * 1_000_000_000L;
+
+        runTogether(threads, t -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            // Each thread writes its own IDs above the preloaded range, so writes never conflict
+            int nextId = items + t * 10_000_000;
+            int oldestId = nextId;
+            long count = 0;
+            long found = 0;
+            boolean measuring = false;
+            while (true) {
+                // Check the clock every 256 operations only
+                if ((count & 0xFF) == 0) {
+                    long now = System.nanoTime();
+                    if (now >= measureEnd) {
+                        break;
+                    }
+                    if (!measuring && now >= warmupEnd) {
+                        measuring = true;
+                        count = 0;
+                    }
+                }
+
+                if (random.nextInt(100) < READ_PERCENT) {
+                    if (catalog.get(random.nextInt(items)) != null) {
+                        found++;
+                    }
+                } else if (nextId - oldestId < 1000) {
+                    catalog.add(newItem(nextId++));
+                } else {
+                    catalog.remove(oldestId++);
+                }
+                count++;
+            }
+            operations.add(count);
+            sink.add(found);
+        });
+        return operations.sum() / (double) seconds;
+    }
+
+    private static Catalog concurrentView(ConcurrentLibraryCatalog<Integer> catalog) {
+        return new Catalog() {
+            public void add(LibraryItem<Integer> item) { catalog.addItem(item); }
+            public void remove(Integer id) { catalog.removeItem(id); }
+            public LibraryItem<Integer> get(Integer id) { return catalog.getItemDetails(id); }
+        };
+    }
+
+    // The way LibraryCatalog has to be shared today: every request behind one global lock
+    private static Catalog lockedView(LibraryCatalog<Integer> catalog) {
+        return new Catalog() {
+            public synchronized void add(LibraryItem<Integer> item) { catalog.addItem(item); }
+            public synchronized void remove(Integer id) { catalog.removeItem(id); }
+            public synchronized LibraryItem<Integer> get(Integer id) { return catalog.getItemDetails(id); }
+        };
+    }
+
+    // ============================
+    // HELPERS
+    // ============================
+
+    private interface ThreadBody {
+        void run(int threadNumber);
+    }
+
+    // Starts all threads at the same moment and waits for them; rethrows the first failure.
+    private static void runTogether(int threads, ThreadBody body) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        Throwable[] failure = new Throwable[threads];
+        for (int t = 0; t < threads; t++) {
+            int threadNumber = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    body.run(threadNumber);
+                } catch (Throwable e) {
+                    failure[threadNumber] = e;
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        for (Throwable e : failure) {
+            if (e != null) {
+                throw new IllegalStateException("Worker thread failed: " + e, e);
+            }
+        }
+    }
+
+    private static LibraryItem<Integer> newItem(int id) {
+        return new LibraryItem<>(id, "Title " + id, "Author " + (id % 1000));
+    }
+}
@@ -0,0 +1,340 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Compact storage for catalogs with Integer IDs.
+ *
+ * Instead of one LibraryItem (plus a boxed ID, two Strings and a map entry) per item, every item
+ * is a row number ("slot") in a few primitive arrays:
+ *   ids[slot]            the item ID
+ *   textOffsets[slot]    where its title and author bytes start in the arena
+ *   titleLengths[slot]   byte length of the title (-1 for null, REMOVED for a removed item)
+ *   authorLengths[slot]  byte length of the author (-1 for null)
+ * Titles and authors are stored as UTF-8 bytes in direct (off-heap) ByteBuffer chunks, which the
+ * garbage collector never has to scan or copy. An ID -> slot hash table of two int arrays finds
+ * items by ID. LibraryItem objects are only created when an item is asked for.
+ *
+ * Removed items leave dead rows; once they outnumber the live ones, the columns and the arena are
+ * compacted. Direct memory is limited by -XX:MaxDirectMemorySize (by default the heap size).
+ */
+public class ColumnarCatalogStorage implements CatalogStorage<Integer> {
+
+    private static final int REMOVED = Integer.MIN_VALUE;
+    private static final int FIRST_CHUNK_SIZE = 1024 * 1024;
+    private static final int MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+    private static final int MIN_DEAD_TO_COMPACT = 1024;
+
+    // ============================
+    // COLUMNS (one entry per slot, in insertion order)
+    // ============================
+    private int[] ids = new int[16];
+    private long[] textOffsets = new long[16];
+    private int[] titleLengths = new int[16];
+    private int[] authorLengths = new int[16];
+    private int slotCount = 0;
+    private int liveCount = 0;
+
+    // ============================
+    // ID INDEX: open addressing, indexSlots holds slot + 1 (0 = empty)
+    // ============================
+    private int[] indexKeys = new int[32];
+    private int[] indexSlots = new int[32];
+
+    // ============================
+    // TEXT ARENA: off-heap chunks; an offset is (chunk number << 32) | position in the chunk
+    // ============================
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private ByteBuffer currentChunk;
+
+    @Override
+    public boolean add(LibraryItem<Integer> item) {
+        int id = item.getItemID();
+        if (findSlot(id) >= 0) {
+            return false;
+        }
+        byte[] title = utf8(item.getTitle());
+        byte[] author = utf8(item.getAuthor());
+
+        if (slotCount == ids.length) {
+            growColumns();
+        }
+        int slot = slotCount++;
+        ids[slot] = id;
+        titleLengths[slot] = title == null ? -1 : title.length;
+        authorLengths[slot] = author == null ? -1 : author.length;
+        textOffsets[slot] = writeText(title, author);
+        insertIntoIndex(id, slot);
+        liveCount++;
+        return true;
+    }
+
+    @Override
+    public LibraryItem<Integer> remove(Integer itemID) {
+        int slot = findSlot(itemID);
+        if (slot < 0) {
+            return null;
+        }
+        LibraryItem<Integer> removed = view(slot);
+        removeFromIndex(itemID);
+        titleLengths[slot] = REMOVED;
+        liveCount--;
+
+        int dead = slotCount - liveCount;
+        if (dead >= MIN_DEAD_TO_COMPACT && dead > liveCount) {
+            compact();
+        }
+        return removed;
+    }
+
+    @Override
+    public LibraryItem<Integer> get(Integer itemID) {
+        int slot = findSlot(itemID);
+        return slot < 0 ? null : view(slot);
+    }
+
+    @Override
+    public int size() {
+        return liveCount;
+    }
+
+    @Override
+    public void forEach(Consumer<LibraryItem<Integer>> action) {
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (titleLengths[slot] != REMOVED) {
+                action.accept(view(slot));
+            }
+        }
+    }
+
+    @Override
+    public void forEachID(Consumer<Integer> action) {
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (titleLengths[slot] != REMOVED) {
+                action.accept(ids[slot]);
+            }
+        }
+    }
+
+    @Override
+    public void forEach(int offset, int limit, Consumer<LibraryItem<Integer>> action) {
+        // Without removed rows, position offset is simply slot offset; otherwise live rows are counted
+        int slot = 0;
+        if (liveCount == slotCount) {
+            slot = offset;
+        } else {
+            for (int skipped = 0; skipped < offset && slot < slotCount; slot++) {
+                if (titleLengths[slot] != REMOVED) {
+                    skipped++;
+                }
+            }
+        }
+        forEachFrom(slot, limit, action);
+    }
+
+    @Override
+    public boolean forEachAfter(Integer lastID, int limit, Consumer<LibraryItem<Integer>> action) {
+        int slot = 0;
+        if (lastID != null) {
+            int lastSlot = findSlot(lastID);
+            if (lastSlot < 0) {
+                return false;
+            }
+            slot = lastSlot + 1;
+        }
+        forEachFrom(slot, limit, action);
+        return true;
+    }
+
+    private void forEachFrom(int slot, int limit, Consumer<LibraryItem<Integer>> action) {
+        for (int visited = 0; visited < limit && slot < slotCount; slot++) {
+            if (titleLengths[slot] != REMOVED) {
+                action.accept(view(slot));
+                visited++;
+            }
+        }
+    }
+
+    /**
+     * Returns the approximate heap used by the columns and the ID index.
+     * @return The size in bytes.
+     */
+    public long heapBytes() {
+        return (long) ids.length * (3 * Integer.BYTES + Long.BYTES) + (long) indexKeys.length * 2 * Integer.BYTES;
+    }
+
+    /**
+     * Returns the off-heap memory reserved for titles and authors.
+     * @return The size in bytes.
+     */
+    public long offHeapBytes() {
+        long total = 0;
+        for (ByteBuffer chunk : chunks) {
+            total += chunk.capacity();
+        }
+        return total;
+    }
+
+    // Creates the LibraryItem of a slot from its columns
+    private LibraryItem<Integer> view(int slot) {
+        long offset = textOffsets[slot];
+        ByteBuffer chunk = chunks.get((int) (offset >>> 32));
+        int position = (int) offset;
+        String title = readText(chunk, position, titleLengths[slot]);
+        String author = readText(chunk, position + Math.max(0, titleLengths[slot]), authorLengths[slot]);
+        return new LibraryItem<>(ids[slot], title, author);
+    }
+
+    // ============================
+    // TEXT ARENA
+    // ============================
+
+    // Copies a title and author next to each other into the arena; returns their offset
+    private long writeText(byte[] title, byte[] author) {
+        int length = (title == null ? 0 : title.length) + (author == null ? 0 : author.length);
+        if (length > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Title and author are too long: " + length + " bytes.");
+        }
+        if (currentChunk == null || currentChunk.remaining() < length) {
+            // Chunks double in size up to 64 MB, so small catalogs stay small
+            int size = currentChunk == null ? FIRST_CHUNK_SIZE : Math.min(MAX_CHUNK_SIZE, currentChunk.capacity() * 2);
+            currentChunk = ByteBuffer.allocateDirect(Math.max(size, length));
+            chunks.add(currentChunk);
+        }
+        long offset = ((long) (chunks.size() - 1) << 32) | currentChunk.position();
+        if (title != null) {
+            currentChunk.put(title);
+        }
+        if (author != null) {
+            currentChunk.put(author);
+        }
+        return offset;
+    }
+
+    private static String readText(ByteBuffer chunk, int position, int length) {
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        chunk.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String text) {
+        return text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Drops the removed rows: live rows are moved to the front (keeping their order) and
+    // their text is copied into a fresh arena
+    private void compact() {
+        List<ByteBuffer> oldChunks = new ArrayList<>(chunks);
+        chunks.clear();
+        currentChunk = null;
+
+        int live = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (titleLengths[slot] == REMOVED) {
+                continue;
+            }
+            long offset = textOffsets[slot];
+            ByteBuffer oldChunk = oldChunks.get((int) (offset >>> 32));
+            int length = Math.max(0, titleLengths[slot]) + Math.max(0, authorLengths[slot]);
+            byte[] text = new byte[length];
+            oldChunk.get((int) offset, text);
+
+            ids[live] = ids[slot];
+            titleLengths[live] = titleLengths[slot];
+            authorLengths[live] = authorLengths[slot];
+            textOffsets[live] = writeText(text, null);
+            live++;
+        }
+        slotCount = live;
+
+        // Slots changed, so the index is rebuilt
+        int capacity = Math.max(32, Integer.highestOneBit(Math.max(1, live) * 4 - 1));
+        indexKeys = new int[capacity];
+        indexSlots = new int[capacity];
+        for (int slot = 0; slot < live; slot++) {
+            insertIntoIndex(ids[slot], slot);
+        }
+    }
+
+    private void growColumns() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        textOffsets = Arrays.copyOf(textOffsets, capacity);
+        titleLengths = Arrays.copyOf(titleLengths, capacity);
+        authorLengths = Arrays.copyOf(authorLengths, capacity);
+    }
+
+    // ============================
+    // ID INDEX
+    // ============================
+
+    private static int home(int id, int mask) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    // Returns the slot of an ID, or -1
+    private int findSlot(int id) {
+        int mask = indexKeys.length - 1;
+        for (int i = home(id, mask); indexSlots[i] != 0; i = (i + 1) & mask) {
+            if (indexKeys[i] == id) {
+                return indexSlots[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private void insertIntoIndex(int id, int slot) {
+        // Keep the table at most half full
+        if ((liveCount + 1) * 2 > indexKeys.length) {
+            int[] oldKeys = indexKeys;
+            int[] oldSlots = indexSlots;
+            indexKeys = new int[oldKeys.length * 2];
+            indexSlots = new int[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldSlots[i] != 0) {
+                    place(oldKeys[i], oldSlots[i]);
+                }
+            }
+        }
+        place(id, slot + 1);
+    }
+
+    private void place(int id, int slotPlusOne) {
+        int mask = indexKeys.length - 1;
+        int i = home(id, mask);
+        while (indexSlots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        indexKeys[i] = id;
+        indexSlots[i] = slotPlusOne;
+    }
+
+    // Removes an ID, shifting later entries back so lookups never stop early at the hole
+    private void removeFromIndex(int id) {
+        int mask = indexKeys.length - 1;
+        int hole = home(id, mask);
+        while (indexKeys[hole] != id || indexSlots[hole] == 0) {
+            hole = (hole + 1) & mask;
+        }
+        indexSlots[hole] = 0;
+
+        for (int i = (hole + 1) & mask; indexSlots[i] != 0; i = (i + 1) & mask) {
+            int entryHome = home(indexKeys[i], mask);
+            // Move the entry into the hole if the hole lies between its home and its position
+            boolean movable = hole <= i ? (entryHome <= hole || entryHome > i) : (entryHome <= hole && entryHome > i);
+            if (movable) {
+                indexKeys[hole] = indexKeys[i];
+                indexSlots[hole] = indexSlots[i];
+                indexSlots[i] = 0;
+                hole = i;
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe version of LibraryCatalog for multi-threaded servers.
+ * It has the same addItem/removeItem/getItemDetails/getAllItemIDs API, but no global lock:
+ * - reads (getItemDetails, getAllItemIDs, viewCatalog) never block,
+ * - writes only lock the hash bin of their own ID inside ConcurrentHashMap (lock striping),
+ *   so writers on different IDs do not wait for each other.
+ * Unlike LibraryCatalog it does not print a [SUCCESS] line per operation, because
+ * System.out is synchronized and would serialize every thread again.
+ */
+public class ConcurrentLibraryCatalog<T> {
+
+    // One catalog entry: the item plus its position in insertion order
+    private static final class Entry<T> {
+        final long sequence;
+        final LibraryItem<T> item;
+
+        Entry(long sequence, LibraryItem<T> item) {
+            this.sequence = sequence;
+            this.item = item;
+        }
+    }
+
+    // Primary index: ID -> entry (lock-free reads, per-bin locked writes)
+    private final ConcurrentMap<T, Entry<T>> index = new ConcurrentHashMap<>();
+
+    // Insertion order: sequence number -> entry (lock-free skip list)
+    private final ConcurrentNavigableMap<Long, Entry<T>> order = new ConcurrentSkipListMap<>();
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    public void addItem(LibraryItem<T> item) throws IllegalArgumentException {
+        Entry<T> entry = new Entry<>(nextSequence.getAndIncrement(), item);
+
+        // The entry is placed in the order first, so a concurrent removeItem that sees it in
+        // the index can always find it in the order too
+        order.put(entry.sequence, entry);
+        if (index.putIfAbsent(item.getItemID(), entry) != null) {
+            order.remove(entry.sequence);
+            throw new IllegalArgumentException("Item with ID " + item.getItemID() + " already exists in the catalog.");
+        }
+    }
+
+    public void removeItem(T itemID) throws IllegalArgumentException {
+        Entry<T> removed = index.remove(itemID);
+
+        if (removed == null) {
+            throw new IllegalArgumentException("Item with ID " + itemID + " not found in the catalog.");
+        }
+        order.remove(removed.sequence);
+    }
+
+    public LibraryItem<T> getItemDetails(T itemID) {
+        Entry<T> entry = index.get(itemID);
+        return entry == null ? null : entry.item;
+    }
+
+    // Retrieves all item IDs in insertion order. The list is a snapshot taken while other
+    // threads may keep writing: items added or removed during the call may or may not appear.
+    public List<T> getAllItemIDs() {
+        List<T> ids = new ArrayList<>();
+        for (Entry<T> entry : order.values()) {
+            if (isLive(entry)) {
+                ids.add(entry.item.getItemID());
+            }
+        }
+        return ids;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public void viewCatalog() {
+        List<LibraryItem<T>> snapshot = new ArrayList<>();
+        for (Entry<T> entry : order.values()) {
+            if (isLive(entry)) {
+                snapshot.add(entry.item);
+            }
+        }
+
+        if (snapshot.isEmpty()) {
+            System.out.println("\n--- Catalog is currently empty ---");
+            return;
+        }
+
+        System.out.println("\n--- Current Library Catalog (" + snapshot.size() + " items) ---");
+        for (LibraryItem<T> item : snapshot) {
+            System.out.println(item);
+        }
+        System.out.println("------------------------------------");
+    }
+
+    // An entry in the order is only part of the catalog once (and as long as) the index points
+    // to it; this hides entries of adds that are still in progress or were rejected as duplicates
+    private boolean isLive(Entry<T> entry) {
+        return index.get(entry.item.getItemID()) == entry;
+    }
+}
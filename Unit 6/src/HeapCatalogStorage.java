@@ -0,0 +1,135 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * The default storage: a hash index by ID over a list of rows kept in insertion order,
+ * so get/remove by ID are O(1) and the catalog is still listed in the order items were added.
+ * The index also gives each item's row, so a page that starts after a given ID begins there
+ * directly instead of walking the catalog from its first item.
+ *
+ * Removed items leave empty rows; once they outnumber the live ones, the rows are compacted.
+ */
+public class HeapCatalogStorage<T> implements CatalogStorage<T> {
+
+    private static final int MIN_DEAD_TO_COMPACT = 1024;
+
+    // An item and its position in the rows list
+    private static final class Row<T> {
+        final LibraryItem<T> item;
+        int slot;
+
+        Row(LibraryItem<T> item, int slot) {
+            this.item = item;
+            this.slot = slot;
+        }
+    }
+
+    private final Map<T, Row<T>> index = new HashMap<>();
+    private final List<Row<T>> rows = new ArrayList<>();   // null = removed
+
+    @Override
+    public boolean add(LibraryItem<T> item) {
+        Row<T> row = new Row<>(item, rows.size());
+        // putIfAbsent only inserts when the ID is new, so a duplicate leaves the storage unchanged
+        if (index.putIfAbsent(item.getItemID(), row) != null) {
+            return false;
+        }
+        rows.add(row);
+        return true;
+    }
+
+    @Override
+    public LibraryItem<T> remove(T itemID) {
+        Row<T> row = index.remove(itemID);
+        if (row == null) {
+            return null;
+        }
+        rows.set(row.slot, null);
+
+        int dead = rows.size() - index.size();
+        if (dead >= MIN_DEAD_TO_COMPACT && dead > index.size()) {
+            compact();
+        }
+        return row.item;
+    }
+
+    @Override
+    public LibraryItem<T> get(T itemID) {
+        Row<T> row = index.get(itemID);
+        return row == null ? null : row.item;
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public void forEach(Consumer<LibraryItem<T>> action) {
+        for (Row<T> row : rows) {
+            if (row != null) {
+                action.accept(row.item);
+            }
+        }
+    }
+
+    @Override
+    public void forEachID(Consumer<T> action) {
+        for (Row<T> row : rows) {
+            if (row != null) {
+                action.accept(row.item.getItemID());
+            }
+        }
+    }
+
+    @Override
+    public void forEach(int offset, int limit, Consumer<LibraryItem<T>> action) {
+        // Without removed rows, position offset is simply row offset; otherwise live rows are counted
+        int slot = 0;
+        if (index.size() == rows.size()) {
+            slot = offset;
+        } else {
+            for (int skipped = 0; skipped < offset && slot < rows.size(); slot++) {
+                if (rows.get(slot) != null) {
+                    skipped++;
+                }
+            }
+        }
+        forEachFrom(slot, limit, action);
+    }
+
+    @Override
+    public boolean forEachAfter(T lastID, int limit, Consumer<LibraryItem<T>> action) {
+        int slot = 0;
+        if (lastID != null) {
+            Row<T> last = index.get(lastID);
+            if (last == null) {
+                return false;
+            }
+            slot = last.slot + 1;
+        }
+        forEachFrom(slot, limit, action);
+        return true;
+    }
+
+    private void forEachFrom(int slot, int limit, Consumer<LibraryItem<T>> action) {
+        for (int visited = 0; visited < limit && slot < rows.size(); slot++) {
+            Row<T> row = rows.get(slot);
+            if (row != null) {
+                action.accept(row.item);
+                visited++;
+            }
+        }
+    }
+
+    // Drops the empty rows, keeping the order of the others, and renumbers them
+    private void compact() {
+        rows.removeIf(row -> row == null);
+        for (int slot = 0; slot < rows.size(); slot++) {
+            rows.get(slot).slot = slot;
+        }
+    }
+}
@@ -1,52 +1,160 @@
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 // This file now only contains the LibraryCatalog class
 public class LibraryCatalog <T> {
 
-    // Internal storage structure
-    private final List<LibraryItem<T>> items = new ArrayList<>();
+    // Internal storage structure: finds items by ID in O(1) and keeps them in insertion order
+    // (HeapCatalogStorage by default, see CatalogStorage for the other engines)
+    private final CatalogStorage<T> items;
 
-    // Retrieves all item IDs (used in performTesting)
+    // Structures that follow every change (search index, ...)
+    private final List<CatalogListener<T>> listeners = new ArrayList<>();
+    private CatalogSearchIndex<T> searchIndex;
+
+    // Whether add/remove print a [SUCCESS] line (turned off for bulk work such as restoring from disk)
+    private boolean verbose = true;
+
+    public LibraryCatalog() {
+        this(new HeapCatalogStorage<>());
+    }
+
+    public LibraryCatalog(CatalogStorage<T> storage) {
+        this.items = storage;
+    }
+
+    // A catalog with Integer IDs kept in compact columns, with titles and authors off-heap
+    public static LibraryCatalog<Integer> withColumnarStorage() {
+        return new LibraryCatalog<>(new ColumnarCatalogStorage());
+    }
+
+    // Retrieves all item IDs (used in performTesting); forEachItemID avoids the copy
     public List<T> getAllItemIDs() {
-        return items.stream()
-                .map(LibraryItem::getItemID)
-                .collect(Collectors.toList());
+        List<T> ids = new ArrayList<>(items.size());
+        items.forEachID(ids::add);
+        return ids;
+    }
+
+    // Visits every item ID in insertion order without copying them into a list
+    public void forEachItemID(Consumer<T> action) {
+        items.forEachID(action);
     }
 
-    public void addItem(LibraryItem <T> item) {
-        items.add(item);
-        System.out.println("[SUCCESS] Item added: " + item.getTitle());
+    // Visits every item in insertion order without copying the catalog
+    public void forEachItem(Consumer<LibraryItem<T>> action) {
+        items.forEach(action);
+    }
+
+    // Returns at most limit items, starting at position offset (0 = first item added).
+    // Once items have been removed, positions have to be counted from the start; to walk
+    // the whole catalog page by page, pageAfter is O(limit) per page wherever it is
+    public List<LibraryItem<T>> page(int offset, int limit) throws IllegalArgumentException {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must not be negative: " + offset + ", " + limit);
+        }
+        List<LibraryItem<T>> page = new ArrayList<>(Math.min(limit, Math.max(0, items.size() - offset)));
+        items.forEach(offset, limit, page::add);
+        return page;
+    }
+
+    // Returns at most limit items added after the item lastID (null = from the first item),
+    // e.g. with lastID = the last item of the previous page
+    public List<LibraryItem<T>> pageAfter(T lastID, int limit) throws IllegalArgumentException {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative: " + limit);
+        }
+        List<LibraryItem<T>> page = new ArrayList<>(Math.min(limit, items.size()));
+        if (!items.forEachAfter(lastID, limit, page::add)) {
+            throw new IllegalArgumentException("Item with ID " + lastID + " not found in the catalog.");
+        }
+        return page;
+    }
+
+    public void addItem(LibraryItem <T> item) throws IllegalArgumentException {
+        // The storage only inserts when the ID is new, so a duplicate leaves the catalog unchanged
+        if (!items.add(item)) {
+            throw new IllegalArgumentException("Item with ID " + item.getItemID() + " already exists in the catalog.");
+        }
+        for (CatalogListener<T> listener : listeners) {
+            listener.itemAdded(item);
+        }
+        if (verbose) {
+            System.out.println("[SUCCESS] Item added: " + item.getTitle());
+        }
     }
 
     public void removeItem(T itemID) throws IllegalArgumentException {
-        // Uses removeIf to find and remove the item by ID, returning true if removal occurred
-        boolean removed = items.removeIf(item -> item.getItemID().equals(itemID));
+        // Removes the item by ID through the storage's index, returning null if the ID is unknown
+        LibraryItem<T> removed = items.remove(itemID);
 
-        if (!removed) {
+        if (removed == null) {
             throw new IllegalArgumentException("Item with ID " + itemID + " not found in the catalog.");
         }
-        System.out.println("[SUCCESS] Item with ID " + itemID + " removed.");
+        for (CatalogListener<T> listener : listeners) {
+            listener.itemRemoved(removed);
+        }
+        if (verbose) {
+            System.out.println("[SUCCESS] Item with ID " + itemID + " removed.");
+        }
     }
 
     public LibraryItem<T> getItemDetails(T itemID) {
-        // Uses stream filter to find the first item matching the ID
-        return items.stream()
-                .filter(item -> item.getItemID().equals(itemID))
-                .findFirst()
-                .orElse(null);
+        // Looks up the item directly in the storage's index
+        return items.get(itemID);
+    }
+
+    // Registers a listener that is told about every later addItem/removeItem
+    public void addListener(CatalogListener<T> listener) {
+        listeners.add(listener);
+    }
+
+    // Stops telling a listener about changes (e.g. when a cache in front of the catalog is closed)
+    public void removeListener(CatalogListener<T> listener) {
+        listeners.remove(listener);
+    }
+
+    // Builds the full-text index over titles and authors (once) and keeps it up to date from then on
+    public CatalogSearchIndex<T> enableSearchIndex() {
+        if (searchIndex == null) {
+            searchIndex = new CatalogSearchIndex<>();
+            items.forEach(searchIndex::itemAdded);
+            addListener(searchIndex);
+        }
+        return searchIndex;
+    }
+
+    // Fills a secondary sorted index with the current items and keeps it up to date from then on
+    public <K extends Comparable<? super K>> CatalogSortedIndex<T, K> addSortedIndex(CatalogSortedIndex<T, K> index) {
+        items.forEach(index::itemAdded);
+        addListener(index);
+        return index;
+    }
+
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    public boolean isVerbose() {
+        return verbose;
+    }
+
+    public int size() {
+        return items.size();
     }
 
     public void viewCatalog() {
-        if (items.isEmpty()){
+        if (items.size() == 0){
             System.out.println("\n--- Catalog is currently empty ---");
             return;
         }
 
         System.out.println("\n--- Current Library Catalog (" + items.size() + " items) ---");
-        for (LibraryItem<T> item : items) {
-            System.out.println(item);
+        try {
+            new CatalogRenderer(System.out).renderAll(this);
+        } catch (IOException e) {
+            // PrintStream never throws; it only sets its error flag
         }
         System.out.println("------------------------------------");
     }
@@ -1,56 +1,73 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Scanner;
 import java.util.UUID;
 import java.util.ArrayList;
 
-/**
- * LibraryItem Generic Class (Moved here for clarity)
- * Must be public or package-private for use by the main application.
- */
-class LibraryItem<T> {
-    private T itemID;
-    private String title;
-    private String author;
-
-    public LibraryItem(T itemID, String title, String author) {
-        this.itemID = itemID;
-        this.title = title;
-        this.author = author;
-    }
-
-    // Getters
-    public T getItemID() {
-        return itemID;
-    }
-
-    public String getTitle() {
-        return title;
-    }
-
-    public String getAuthor() {
-        return author;
-    }
-
-    // Formatted output of item information
-    @Override
-    public String toString() {
-        String idType = itemID.getClass().getSimpleName();
-        return String.format("[ID: %s, Type: %s] Title: %s, Author: %s",
-                itemID, idType, title, author);
-    }
-}
-
-
 /**
  * Main application class: Contains CLI and Testing logic
  */
 public class LibraryCatalogApp {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         // Initializes a catalog for the CLI with Integer IDs
         LibraryCatalog<Integer> cliCatalog = new LibraryCatalog<>();
+        CatalogSearchIndex<Integer> searchIndex = cliCatalog.enableSearchIndex();
         Scanner scanner = new Scanner(System.in);
 
+        // Command-line options:
+        //   --data <directory>  restore the catalog from disk and log every change there
+        //   --import <file>     bulk load a CSV or JSON-lines file before the menu starts
+        //   --serve <port>      serve the catalog over TCP (see CatalogServer) instead of the menu
+        CatalogPersistence<Integer> persistence = null;
+        int servePort = -1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--data")) {
+                persistence = CatalogPersistence.open(Paths.get(args[i + 1]), CatalogIdCodec.integers(), cliCatalog);
+                System.out.println("[RESTORED] " + cliCatalog.size() + " item(s) loaded from " + args[i + 1]);
+            } else if (args[i].equals("--import")) {
+                Path file = Paths.get(args[i + 1]);
+                CatalogBulkLoader.LoadStats stats = CatalogBulkLoader.forIntegerIDs(cliCatalog)
+                        .importFile(file, CatalogBulkLoader.Format.of(file));
+                System.out.println("[IMPORTED] " + stats);
+                for (String error : stats.errors) {
+                    System.out.println("  " + error);
+                }
+            } else if (args[i].equals("--serve")) {
+                servePort = Integer.parseInt(args[i + 1]);
+            }
+        }
+
+        if (servePort >= 0) {
+            CatalogServer<Integer> server = new CatalogServer<>(cliCatalog, Integer::valueOf, servePort);
+            System.out.println("[SERVER] Serving " + cliCatalog.size() + " item(s) on port " + server.getPort());
+            // The server normally runs until the process is stopped (Ctrl+C, kill), which skips
+            // the finally block below: the hook still closes it and writes out the last log batch
+            CatalogPersistence<Integer> serverPersistence = persistence;
+            Thread shutdownHook = new Thread(() -> stopServing(server, serverPersistence), "catalog-shutdown");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+            try {
+                server.awaitTermination();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                // If the process is already shutting down, the hook does the closing
+                boolean stopHere;
+                try {
+                    stopHere = Runtime.getRuntime().removeShutdownHook(shutdownHook);
+                } catch (IllegalStateException shuttingDown) {
+                    stopHere = false;
+                }
+                if (stopHere) {
+                    stopServing(server, persistence);
+                }
+            }
+            return;
+        }
+
         // Execute automated testing
         performTesting();
 
@@ -66,8 +83,9 @@ public class LibraryCatalogApp {
             System.out.println("2. Remove Item");
             System.out.println("3. View Catalog");
             System.out.println("4. Get Details by ID");
-            System.out.println("5. Exit");
-            System.out.print("Enter your choice (1-5): ");
+            System.out.println("5. Search by Title/Author");
+            System.out.println("6. Exit");
+            System.out.print("Enter your choice (1-6): ");
 
             if (!scanner.hasNextInt()) {
                 System.out.println("\n[ERROR] Invalid input. Please enter a number.");
@@ -119,12 +137,26 @@ public class LibraryCatalogApp {
                         break;
 
                     case 5:
+                        System.out.print("Enter search words (all must match, end a word with * for a prefix): ");
+                        String query = scanner.nextLine();
+
+                        List<LibraryItem<Integer>> matches = searchIndex.searchAll(query);
+                        System.out.println("\n[SEARCH RESULT] " + matches.size() + " item(s) found:");
+                        for (LibraryItem<Integer> match : matches) {
+                            System.out.println(match);
+                        }
+                        break;
+
+                    case 6:
+                        if (persistence != null) {
+                            persistence.close();
+                        }
                         System.out.println("Application closing. Goodbye!");
                         scanner.close();
                         return;
 
                     default:
-                        System.out.println("\n[ERROR] Invalid choice. Please enter a number from 1 to 5.");
+                        System.out.println("\n[ERROR] Invalid choice. Please enter a number from 1 to 6.");
                 }
             } catch (Exception e) {
                 System.out.println("\n[OPERATION FAILED] " + e.getMessage());
@@ -135,6 +167,23 @@ public class LibraryCatalogApp {
         }
     }
 
+    // Closes the server, then the persistence, which waits until every logged change is on disk
+    private static void stopServing(CatalogServer<Integer> server, CatalogPersistence<Integer> persistence) {
+        try {
+            server.close();
+        } catch (IOException e) {
+            System.out.println("[SERVER ERROR] " + e.getMessage());
+        }
+        if (persistence != null) {
+            try {
+                persistence.close();
+                System.out.println("[SERVER] Stopped; all changes saved.");
+            } catch (IOException e) {
+                System.out.println("[ERROR] The last changes could not be saved: " + e.getMessage());
+            }
+        }
+    }
+
     /**
      * Automated testing method
      */
@@ -159,6 +208,15 @@ public class LibraryCatalogApp {
             System.out.println("[ERROR HANDING SUCCESS] Exception caught: " + e.getMessage());
         }
 
+        // Test error handling (adding a duplicate ID)
+        System.out.println("\n--- Test Case 2b: Error Handling (Add Duplicate ID) ---");
+        intCatalog.addItem(new LibraryItem<>(1002, "Effective Java", "Joshua Bloch"));
+        try {
+            intCatalog.addItem(new LibraryItem<>(1002, "Duplicate Entry", "Unknown"));
+        } catch (IllegalArgumentException e) {
+            System.out.println("[ERROR HANDING SUCCESS] Exception caught: " + e.getMessage());
+        }
+
         // 2. Test String ID Type (Demonstrating Generics Flexibility)
         LibraryCatalog<String> stringCatalog = new LibraryCatalog<>();
         System.out.println("\n--- Test Case 3: String (UUID) ID (DVD/Magazine) ---");
@@ -170,6 +228,25 @@ public class LibraryCatalogApp {
         System.out.println("[GENERIC COMPATIBILITY] Catalog uses ID Type: String");
         System.out.println("[GENERIC COMPATIBILITY] List of IDs (String): " + allIDs);
 
+        // 3. Test sorted secondary indexes (ID range and author prefix)
+        System.out.println("\n--- Test Case 4: Sorted Indexes (ID Range, Author Prefix) ---");
+        intCatalog.setVerbose(false);
+        CatalogSortedIndex<Integer, Integer> byID = intCatalog.addSortedIndex(CatalogSortedIndex.byID());
+        CatalogSortedIndex<Integer, String> byAuthor = intCatalog.addSortedIndex(CatalogSortedIndex.byAuthor());
+        intCatalog.addItem(new LibraryItem<>(1500, "Clean Code", "Robert C. Martin"));
+        intCatalog.addItem(new LibraryItem<>(2500, "Java Concurrency in Practice", "Brian Goetz"));
+        intCatalog.addItem(new LibraryItem<>(1200, "Effective Java (3rd Edition)", "Joshua Bloch"));
+        intCatalog.setVerbose(true);
+
+        Iterator<LibraryItem<Integer>> idRange = byID.range(1000, 1999);
+        while (idRange.hasNext()) {
+            System.out.println("[ID RANGE 1000-1999] " + idRange.next());
+        }
+        Iterator<LibraryItem<Integer>> authorPrefix = byAuthor.prefix("jo");
+        while (authorPrefix.hasNext()) {
+            System.out.println("[AUTHOR PREFIX 'jo'] " + authorPrefix.next());
+        }
+
         System.out.println("\n====== Automated Testing Complete ======");
     }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+/**
+ * LibraryItem Generic Class
+ * One item of a LibraryCatalog: an ID of any type, a title and an author.
+ */
+public class LibraryItem<T> {
+    private T itemID;
+    private String title;
+    private String author;
+
+    public LibraryItem(T itemID, String title, String author) {
+        this.itemID = itemID;
+        this.title = title;
+        this.author = author;
+    }
+
+    // Getters
+    public T getItemID() {
+        return itemID;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    // Formatted output of item information: [ID: ..., Type: ...] Title: ..., Author: ...
+    @Override
+    public String toString() {
+        StringBuilder row = new StringBuilder(64);
+        CatalogRenderer.appendRow(row, this);
+        return row.toString();
+    }
+}